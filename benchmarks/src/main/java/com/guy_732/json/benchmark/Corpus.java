@@ -0,0 +1,124 @@
+package com.guy_732.json.benchmark;
+
+import java.util.Random;
+
+/**
+ * Representative documents used by the benchmarks, generated with a fixed seed so every run parses
+ * the same data.
+ *
+ * @author Guy_732
+ */
+public enum Corpus {
+	/**
+	 * Small API payload (about 1 KB): a few fields of every type
+	 */
+	SmallApi {
+		@Override
+		String generate(Random r) {
+			StringBuilder sb = new StringBuilder();
+			sb.append("{\"id\":").append(r.nextInt(1000000));
+			sb.append(",\"type\":\"order\",\"status\":\"shipped\",\"paid\":true,\"coupon\":null");
+			sb.append(",\"customer\":{\"name\":\"Jane Doe\",\"email\":\"jane.doe@example.com\",\"vip\":false}");
+			sb.append(",\"items\":[");
+			for (int i = 0; i < 5; ++i) {
+				if (i != 0)
+					sb.append(',');
+				sb.append("{\"sku\":\"SKU-").append(r.nextInt(100000)).append("\",\"qty\":").append(1 + r.nextInt(5));
+				sb.append(",\"price\":").append(r.nextInt(10000) / 100.0).append('}');
+			}
+
+			return sb.append("],\"url\":\"https://api.example.com/v1/orders/").append(r.nextInt(1000000)).append("\"}").toString();
+		}
+	},
+
+	/**
+	 * Large array of floating point numbers (100 000 values)
+	 */
+	NumericArray {
+		@Override
+		String generate(Random r) {
+			StringBuilder sb = new StringBuilder("[");
+			for (int i = 0; i < 100000; ++i) {
+				if (i != 0)
+					sb.append(',');
+				sb.append(r.nextGaussian() * 1000);
+			}
+
+			return sb.append(']').toString();
+		}
+	},
+
+	/**
+	 * Deeply nested objects (depth 500)
+	 */
+	DeeplyNested {
+		@Override
+		String generate(Random r) {
+			StringBuilder sb = new StringBuilder();
+			final int depth = 500;
+			for (int i = 0; i < depth; ++i)
+				sb.append("{\"level\":").append(i).append(",\"name\":\"node").append(r.nextInt(100)).append("\",\"child\":");
+			sb.append("null");
+			for (int i = 0; i < depth; ++i)
+				sb.append('}');
+			return sb.toString();
+		}
+	},
+
+	/**
+	 * String heavy log records (2 000 records with messages needing escapes)
+	 */
+	StringLogs {
+		@Override
+		String generate(Random r) {
+			final String[] levels = {"DEBUG", "INFO", "WARN", "ERROR"};
+			final String[] words = {"request", "user", "timeout", "cache", "miss", "\"quoted\"", "path\\to\\file",
+					"retry", "connection", "reset", "\u00e9t\u00e9", "\t"};
+			StringBuilder sb = new StringBuilder("[");
+			for (int i = 0; i < 2000; ++i) {
+				if (i != 0)
+					sb.append(",\n");
+				sb.append("{\"ts\":\"2024-01-01T00:00:").append(i % 60).append("Z\",\"level\":\"")
+						.append(levels[r.nextInt(levels.length)]).append("\",\"logger\":\"com.example.service.Handler")
+						.append(r.nextInt(10)).append("\",\"msg\":\"");
+				for (int w = 0, n = 5 + r.nextInt(20); w < n; ++w) {
+					if (w != 0)
+						sb.append(' ');
+					appendEscaped(sb, words[r.nextInt(words.length)]);
+				}
+
+				sb.append("\"}");
+			}
+
+			return sb.append(']').toString();
+		}
+	};
+
+	/**
+	 * @return The document as a JSON String
+	 */
+	public String text() {
+		return generate(new Random(0x732));
+	}
+
+	abstract String generate(Random r);
+
+	private static void appendEscaped(StringBuilder sb, String s) {
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					sb.append(c);
+			}
+		}
+	}
+}
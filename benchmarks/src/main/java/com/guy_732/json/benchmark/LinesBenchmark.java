@@ -0,0 +1,59 @@
+package com.guy_732.json.benchmark;
+
+import com.guy_732.json.reader.JSONLinesReader;
+import com.guy_732.json.reader.JSONParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link JSONLinesReader} with the number of threads, over newline-delimited copies of
+ * the SmallApi {@link Corpus} document
+ *
+ * @author Guy_732
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinesBenchmark {
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"20000"})
+	public int lines;
+
+	private byte[] utf8;
+	private JSONLinesReader reader;
+
+	@Setup
+	public void setup() throws IOException {
+		final String line;
+		try (JSONParser parser = new JSONParser(Corpus.SmallApi.text())) {
+			line = parser.parse().toString();
+		}
+
+		final StringBuilder builder = new StringBuilder(lines * (line.length() + 1));
+		for (int i = 0; i < lines; ++i)
+			builder.append(line).append('\n');
+
+		utf8 = builder.toString().getBytes(StandardCharsets.UTF_8);
+		reader = new JSONLinesReader(utf8);
+		reader.setParallelism(threads);
+		reader.setChunkSize(1 << 16);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		reader.close();
+	}
+
+	@Benchmark
+	public long parseLines() {
+		return reader.stream().count();
+	}
+}
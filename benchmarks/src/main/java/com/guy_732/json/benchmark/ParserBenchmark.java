@@ -0,0 +1,142 @@
+package com.guy_732.json.benchmark;
+
+import com.guy_732.json.JSONValue;
+import com.guy_732.json.reader.JSONBinaryParser;
+import com.guy_732.json.reader.JSONFeedParser;
+import com.guy_732.json.reader.JSONFieldFilter;
+import com.guy_732.json.reader.JSONKeyCache;
+import com.guy_732.json.reader.JSONParser;
+import com.guy_732.json.reader.JSONPullParser;
+import com.guy_732.json.reader.JSONToken;
+import com.guy_732.json.writer.JSONBinaryWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput of every input form of {@link JSONParser} over the {@link Corpus}
+ *
+ * @author Guy_732
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+	@Param({"SmallApi", "NumericArray", "DeeplyNested", "StringLogs"})
+	public Corpus document;
+
+	private String text;
+	private byte[] utf8;
+	private byte[] binary;
+	private final JSONKeyCache keyCache = new JSONKeyCache();
+
+	/**
+	 * Keeps a few members of the records of the documents, skips the rest
+	 */
+	private final JSONFieldFilter fieldFilter = JSONFieldFilter.allow("id", "type", "level", "ts").upToDepth(1);
+
+	@Setup
+	public void setup() {
+		text = document.text();
+		utf8 = text.getBytes(StandardCharsets.UTF_8);
+		binary = JSONBinaryWriter.toByteArray(JSONValue.parseString(text));
+	}
+
+	@Benchmark
+	public JSONValue parseString() throws IOException {
+		try (JSONParser parser = new JSONParser(text)) {
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseReader() throws IOException {
+		try (JSONParser parser = new JSONParser(new StringReader(text))) {
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseUTF8Bytes() throws IOException {
+		try (JSONParser parser = new JSONParser(utf8)) {
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseUTF8Stream() throws IOException {
+		try (JSONParser parser = new JSONParser(new ByteArrayInputStream(utf8), StandardCharsets.UTF_8)) {
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseUTF8BytesIndexed() throws IOException {
+		try (JSONParser parser = new JSONParser(utf8)) {
+			parser.setStructuralIndex(true);
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseUTF8BytesKeyCache() throws IOException {
+		try (JSONParser parser = new JSONParser(utf8)) {
+			parser.setKeyCache(keyCache);
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseUTF8BytesFieldFilter() throws IOException {
+		try (JSONParser parser = new JSONParser(utf8)) {
+			parser.setFieldFilter(fieldFilter);
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseFeed() {
+		JSONFeedParser parser = new JSONFeedParser();
+		for (int off = 0; off < utf8.length; off += 8192) {
+			parser.feed(ByteBuffer.wrap(utf8, off, Math.min(8192, utf8.length - off)));
+			JSONValue value = parser.nextValue();
+			if (value != null) {
+				return value;
+			}
+		}
+
+		parser.endOfInput();
+		return parser.nextValue();
+	}
+
+	@Benchmark
+	public JSONValue parseUTF8BytesLazy() throws IOException {
+		try (JSONParser parser = new JSONParser(utf8)) {
+			parser.setLazy(true);
+			return parser.parse();
+		}
+	}
+
+	@Benchmark
+	public JSONValue parseBinary() {
+		return JSONBinaryParser.fromByteArray(binary);
+	}
+
+	@Benchmark
+	public void pullTokens(Blackhole bh) throws IOException {
+		try (JSONPullParser parser = new JSONPullParser(utf8)) {
+			JSONToken token;
+			while ((token = parser.nextToken()) != null)
+				bh.consume(token);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.guy_732.json.benchmark;
+
+import com.guy_732.json.JSONValue;
+import com.guy_732.json.path.JSONPath;
+import com.guy_732.json.reader.JSONParser;
+import com.guy_732.json.reader.JSONPullParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selection of the prices of the {@link Corpus#SmallApi} document with a {@link JSONPath}, over a
+ * parsed tree and directly over the tokens of a {@link JSONPullParser}
+ *
+ * @author Guy_732
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathBenchmark {
+	@Param({"/items/*/price", "$.items[?(@.qty > 2)].sku"})
+	public String expression;
+
+	private byte[] utf8;
+	private JSONPath path;
+
+	@Setup
+	public void setup() {
+		utf8 = Corpus.SmallApi.text().getBytes(StandardCharsets.UTF_8);
+		path = JSONPath.compile(expression);
+	}
+
+	@Benchmark
+	public List<JSONValue> selectTree() throws IOException {
+		try (JSONParser parser = new JSONParser(utf8)) {
+			return path.select(parser.parse());
+		}
+	}
+
+	@Benchmark
+	public List<JSONValue> selectStream() throws IOException {
+		try (JSONPullParser parser = new JSONPullParser(utf8)) {
+			return path.select(parser);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.guy_732.json.benchmark;
+
+import com.guy_732.json.JSONValue;
+import com.guy_732.json.writer.JSONBinaryWriter;
+import com.guy_732.json.writer.JSONWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization throughput of {@link JSONWriter} and of the {@link JSONValue#parseString(String)} /
+ * {@link JSONValue#toString()} round trip over the {@link Corpus}
+ *
+ * @author Guy_732
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+	@Param({"SmallApi", "NumericArray", "DeeplyNested", "StringLogs"})
+	public Corpus document;
+
+	private String text;
+	private JSONValue tree;
+
+	@Setup
+	public void setup() {
+		text = document.text();
+		tree = JSONValue.parseString(text);
+	}
+
+	@Benchmark
+	public long writeJSONValue() throws IOException {
+		NullWriter out = new NullWriter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.writeJSONValue(tree);
+		}
+
+		return out.count;
+	}
+
+	@Benchmark
+	public long writeJSONValueParallel() throws IOException {
+		NullWriter out = new NullWriter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.setParallelPool(ForkJoinPool.commonPool());
+			writer.setParallelThreshold(1024);
+			writer.writeJSONValue(tree);
+		}
+
+		return out.count;
+	}
+
+	@Benchmark
+	public long writeUTF8Stream() throws IOException {
+		NullOutputStream out = new NullOutputStream();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.writeJSONValue(tree);
+		}
+
+		return out.count;
+	}
+
+	@Benchmark
+	public long writeOutputStreamWriter() throws IOException {
+		NullOutputStream out = new NullOutputStream();
+		try (JSONWriter writer = new JSONWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+			writer.writeJSONValue(tree);
+		}
+
+		return out.count;
+	}
+
+	@Benchmark
+	public byte[] toUTF8() {
+		return JSONWriter.toUTF8(tree);
+	}
+
+	@Benchmark
+	public byte[] writeBinary() {
+		return JSONBinaryWriter.toByteArray(tree);
+	}
+
+	@Benchmark
+	public String toStringValue() {
+		return tree.toString();
+	}
+
+	@Benchmark
+	public String roundTrip() {
+		return JSONValue.parseString(text).toString();
+	}
+
+	/**
+	 * Writer discarding everything, to only measure the serialization
+	 */
+	static final class NullWriter extends Writer {
+		long count = 0;
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * OutputStream discarding everything, to only measure the serialization
+	 */
+	static final class NullOutputStream extends OutputStream {
+		long count = 0;
+
+		@Override
+		public void write(int b) {
+			++count;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
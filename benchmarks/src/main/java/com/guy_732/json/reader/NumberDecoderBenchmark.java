@@ -0,0 +1,72 @@
+package com.guy_732.json.reader;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare {@link JSONNumberDecoder} to the {@link Scanner} based decoding it replaced.
+ * <p>
+ * In the package of the decoder as it is not public.
+ *
+ * @author Guy_732
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberDecoderBenchmark {
+	@Param({"integers", "short_decimals", "long_decimals"})
+	public String kind;
+
+	private char[][] numbers;
+	private final JSONNumberDecoder decoder = new JSONNumberDecoder();
+
+	@Setup
+	public void setup() {
+		Random r = new Random(0x732);
+		numbers = new char[1024][];
+		for (int i = 0; i < numbers.length; ++i) {
+			String s;
+			switch (kind) {
+				case "integers":
+					s = Long.toString(r.nextInt());
+					break;
+				case "short_decimals":
+					s = Double.toString(r.nextInt(1000000) / 100.0);
+					break;
+				default:
+					s = Double.toString(r.nextDouble() * Math.pow(10, r.nextInt(40) - 20));
+					break;
+			}
+
+			numbers[i] = s.toCharArray();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(1024)
+	public void decoder(Blackhole bh) {
+		for (char[] n : numbers) {
+			decoder.decode(n, 0, n.length);
+			bh.consume(decoder.integer ? decoder.longValue : Double.doubleToRawLongBits(decoder.doubleValue));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(1024)
+	public void scanner(Blackhole bh) {
+		for (char[] n : numbers) {
+			Scanner scan = new Scanner(new String(n));
+			if (scan.hasNextLong())
+				bh.consume(scan.nextLong());
+			else if (scan.hasNextDouble())
+				bh.consume(Double.doubleToRawLongBits(scan.nextDouble()));
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.guy_732.json;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Represent an Array.
@@ -10,17 +11,59 @@ import java.util.ArrayList;
  * <p>
  * Do not add null into the ArrayList, add {@link JSONNull#Null JSONNull::Null}
  * instead.
+ * <p>
+ * Arrays containing only {@link JSONInteger JSONIntegers} or only
+ * {@link JSONNumber JSONNumbers} can be stored packed in a long[] or a double[]
+ * (see {@link JSONArray#ofLongs(long[], int, int)} and
+ * {@link JSONArray#ofDoubles(double[], int, int)}, the parser creates them
+ * automatically). Their elements are created, immutable, the first time one of
+ * them is accessed with {@link JSONArray#get(int)}, the same instances are then
+ * returned by every call. They stay packed as long as they are only accessed
+ * through {@link JSONArray#size()}, {@link JSONArray#get(int)},
+ * {@link JSONArray#getLong(int)}, {@link JSONArray#getDouble(int)} and the add
+ * methods with values of the same type, {@link JSONArray#getArray()} converts
+ * them to the generic form.
+ * <p>
+ * The content of a JSONArray created with {@link JSONArray#deferred(JSONDeferred)}
+ * is only parsed when it is first accessed. This first access is synchronized:
+ * a deferred JSONArray can be read by several threads (as long as none of them
+ * modifies it), its content is parsed once. The creation of the elements of a
+ * packed array is synchronized the same way, a packed JSONArray can be read by
+ * several threads, {@link JSONArray#getArray()} included.
  *
  * @author Guy_732
  */
 public final class JSONArray extends JSONValue {
-	private final ArrayList<JSONValue> array;
+	/**
+	 * The elements, null while the array is packed or deferred (written last when a packed array
+	 * is converted, so a thread reading null can still read the packed values)
+	 */
+	private volatile ArrayList<JSONValue> array;
+
+	/**
+	 * The packed values, meaningless once {@link #array} is set (they are kept until the array is
+	 * modified, as other threads may still be reading them)
+	 */
+	private long[] longs = null;
+	private double[] doubles = null;
+	private int packedSize = 0;
+
+	/**
+	 * The elements of a packed array returned by {@link #get(int)}, created on the first call
+	 */
+	private volatile JSONValue[] elements = null;
+
+	/**
+	 * The source of the content, null once parsed (written after the other fields, so a thread
+	 * reading null sees the elements)
+	 */
+	private volatile JSONDeferred deferred;
 
 	/**
 	 * Create a new empty JSONArray
 	 */
 	public JSONArray() {
-		this(null);
+		this(new ArrayList<>());
 	}
 
 	/**
@@ -42,6 +85,78 @@ public final class JSONArray extends JSONValue {
 		this.array = array;
 	}
 
+	private JSONArray(long[] longs, double[] doubles, int size) {
+		super();
+		this.array = null;
+		this.longs = longs;
+		this.doubles = doubles;
+		this.packedSize = size;
+	}
+
+	private JSONArray(JSONDeferred content) {
+		super();
+		this.array = null;
+		this.deferred = content;
+	}
+
+	/**
+	 * Create a JSONArray whose content is parsed the first time it is accessed
+	 *
+	 * @param content The source of the content
+	 * @return The JSONArray
+	 * @throws NullPointerException if content is null
+	 */
+	public static JSONArray deferred(JSONDeferred content) throws NullPointerException {
+		if (content == null) {
+			throw new NullPointerException("'content' cannot be null.");
+		}
+
+		return new JSONArray(content);
+	}
+
+	/**
+	 * Create a new JSONArray of {@link JSONInteger JSONIntegers} stored in a
+	 * long[]
+	 *
+	 * @param values The values (copied)
+	 * @param offset Index of the first value to copy
+	 * @param length Number of values to copy
+	 * @return The JSONArray
+	 * @throws NullPointerException      if values is null
+	 * @throws IndexOutOfBoundsException if offset or length are out of bounds
+	 */
+	public static JSONArray ofLongs(long[] values, int offset, int length)
+			throws NullPointerException, IndexOutOfBoundsException {
+		return new JSONArray(Arrays.copyOfRange(values, offset, checkRange(values.length, offset, length)), null,
+				length);
+	}
+
+	/**
+	 * Create a new JSONArray of {@link JSONNumber JSONNumbers} stored in a
+	 * double[]
+	 *
+	 * @param values The values (copied)
+	 * @param offset Index of the first value to copy
+	 * @param length Number of values to copy
+	 * @return The JSONArray
+	 * @throws NullPointerException      if values is null
+	 * @throws IndexOutOfBoundsException if offset or length are out of bounds
+	 */
+	public static JSONArray ofDoubles(double[] values, int offset, int length)
+			throws NullPointerException, IndexOutOfBoundsException {
+		return new JSONArray(null, Arrays.copyOfRange(values, offset, checkRange(values.length, offset, length)),
+				length);
+	}
+
+	private static int checkRange(int arrayLength, int offset, int length) throws IndexOutOfBoundsException {
+		if (offset < 0 || length < 0 || offset > arrayLength - length) {
+			throw new IndexOutOfBoundsException(
+					String.format("offset %d, length %d, array length %d", offset, length, arrayLength));
+		}
+
+		return offset + length;
+	}
+
 	@Override
 	public JSONType type() {
 		return JSONType.JSONArray;
@@ -49,11 +164,209 @@ public final class JSONArray extends JSONValue {
 
 	/**
 	 * Getter
+	 * <p>
+	 * Packed arrays are converted to the generic form first, its elements are the ones returned by
+	 * {@link #get(int)}.
 	 *
 	 * @return The ArrayList used to represent the JSONArray in Java
 	 */
 	public ArrayList<JSONValue> getArray() {
-		return array;
+		load();
+		final ArrayList<JSONValue> list = array;
+		return list != null ? list : inflate();
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The number of elements in the array
+	 */
+	public int size() {
+		load();
+		final ArrayList<JSONValue> list = array;
+		return list != null ? list.size() : packedSize;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @param index Index of the element
+	 * @return The element at the given index (immutable for packed arrays, the
+	 * same instance on every call)
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+	 */
+	public JSONValue get(int index) throws IndexOutOfBoundsException {
+		load();
+		final ArrayList<JSONValue> list = array;
+		if (list != null) {
+			return list.get(index);
+		}
+
+		checkIndex(index);
+		final JSONValue[] values = elements;
+		return (values != null ? values : createElements())[index];
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @param index Index of the element
+	 * @return The value of the {@link JSONInteger} at the given index
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+	 * @throws IllegalArgumentException  if the element is not a {@link JSONInteger}
+	 */
+	public long getLong(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+		load();
+		if (array == null && longs != null) {
+			checkIndex(index);
+			return longs[index];
+		}
+
+		return get(index).getInteger(null);
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @param index Index of the element
+	 * @return The value of the {@link JSONInteger} or {@link JSONNumber} at the
+	 * given index
+	 * @throws IndexOutOfBoundsException if {@code index < 0 || index >= size()}
+	 * @throws IllegalArgumentException  if the element is not a number
+	 */
+	public double getDouble(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+		load();
+		final ArrayList<JSONValue> list = array;
+		if (list != null) {
+			return list.get(index).getNumber(null);
+		}
+
+		checkIndex(index);
+		return doubles != null ? doubles[index] : longs[index];
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if the array is packed in a long[] (all the elements are
+	 * {@link JSONInteger JSONIntegers})
+	 */
+	public boolean isLongArray() {
+		load();
+		return array == null && longs != null;
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if the array is packed in a double[] (all the elements are
+	 * {@link JSONNumber JSONNumbers})
+	 */
+	public boolean isDoubleArray() {
+		load();
+		return array == null && doubles != null;
+	}
+
+	/**
+	 * Add a value at the end of the array
+	 *
+	 * @param value The value to add
+	 * @throws NullPointerException if value is null
+	 */
+	public void add(JSONValue value) throws NullPointerException {
+		if (value == null) {
+			throw new NullPointerException("JSONArray cannot contain null.");
+		}
+
+		load();
+		if (array == null && longs != null && value instanceof JSONInteger) {
+			add(((JSONInteger) value).getValue());
+		} else if (array == null && doubles != null && value instanceof JSONNumber) {
+			add(((JSONNumber) value).getValue());
+		} else {
+			mutableArray().add(value);
+		}
+	}
+
+	/**
+	 * Add a {@link JSONInteger} at the end of the array
+	 *
+	 * @param value The value to add
+	 */
+	public void add(long value) {
+		load();
+		if (array != null || longs == null) {
+			mutableArray().add(JSONValue.valueOf(value));
+			return;
+		}
+
+		if (packedSize == longs.length) {
+			longs = Arrays.copyOf(longs, Math.max(8, packedSize + (packedSize >> 1)));
+		}
+
+		longs[packedSize++] = value;
+		elements = null;
+	}
+
+	/**
+	 * Add a {@link JSONNumber} at the end of the array
+	 *
+	 * @param value The value to add
+	 */
+	public void add(double value) {
+		load();
+		if (array != null || doubles == null) {
+			mutableArray().add(JSONValue.valueOf(value));
+			return;
+		}
+
+		if (packedSize == doubles.length) {
+			doubles = Arrays.copyOf(doubles, Math.max(8, packedSize + (packedSize >> 1)));
+		}
+
+		doubles[packedSize++] = value;
+		elements = null;
+	}
+
+	/**
+	 * Copy the values of the array
+	 *
+	 * @return The values of the elements
+	 * @throws IllegalArgumentException if an element is not a {@link JSONInteger}
+	 */
+	public long[] toLongArray() throws IllegalArgumentException {
+		load();
+		if (array == null && longs != null) {
+			return Arrays.copyOf(longs, packedSize);
+		}
+
+		long[] result = new long[size()];
+		for (int i = 0; i < result.length; ++i) {
+			result[i] = getLong(i);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Copy the values of the array
+	 *
+	 * @return The values of the elements
+	 * @throws IllegalArgumentException if an element is neither a
+	 *                                  {@link JSONInteger} nor a {@link JSONNumber}
+	 */
+	public double[] toDoubleArray() throws IllegalArgumentException {
+		load();
+		if (array == null && doubles != null) {
+			return Arrays.copyOf(doubles, packedSize);
+		}
+
+		double[] result = new double[size()];
+		for (int i = 0; i < result.length; ++i) {
+			result[i] = getDouble(i);
+		}
+
+		return result;
 	}
 
 	/**
@@ -62,10 +375,99 @@ public final class JSONArray extends JSONValue {
 	 * @return true if the Array is valid, false otherwise (cannot contain null).
 	 */
 	public boolean checkArray() {
-		return !array.contains(null);
+		load();
+		final ArrayList<JSONValue> list = array;
+		return list == null || !list.contains(null);
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if the content is deferred and not parsed yet
+	 */
+	public boolean isDeferred() {
+		return deferred != null;
 	}
 
 	public JSONArray getArray(String name) {
 		return this;
 	}
+
+	private void checkIndex(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= packedSize) {
+			throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, packedSize));
+		}
+	}
+
+	/**
+	 * Convert a packed array to the generic form, the packed values are kept for the threads
+	 * still reading them
+	 *
+	 * @return The elements
+	 */
+	private synchronized ArrayList<JSONValue> inflate() {
+		if (array == null) {
+			array = new ArrayList<>(Arrays.asList(createElements()));
+		}
+
+		return array;
+	}
+
+	/**
+	 * Create the elements of a packed array, once
+	 *
+	 * @return The elements
+	 */
+	private synchronized JSONValue[] createElements() {
+		if (elements != null) {
+			return elements; // created by another thread in the meantime
+		}
+
+		final JSONValue[] values = new JSONValue[packedSize];
+		for (int i = 0; i < packedSize; ++i) {
+			values[i] = longs != null ? JSONValue.valueOf(longs[i]) : JSONValue.valueOf(doubles[i]);
+		}
+
+		elements = values;
+		return values;
+	}
+
+	/**
+	 * Getter for the methods modifying the array (which are not thread-safe): the packed values
+	 * are released
+	 *
+	 * @return The elements in the generic form
+	 */
+	private ArrayList<JSONValue> mutableArray() {
+		final ArrayList<JSONValue> list = getArray();
+		longs = null;
+		doubles = null;
+		elements = null;
+		packedSize = 0;
+		return list;
+	}
+
+	/**
+	 * Parse the deferred content if needed
+	 */
+	private void load() {
+		if (deferred != null) {
+			loadDeferred();
+		}
+	}
+
+	private synchronized void loadDeferred() {
+		final JSONDeferred content = deferred;
+		if (content == null) {
+			return; // parsed by another thread in the meantime
+		}
+
+		JSONArray parsed = content.parseArray();
+		parsed.load();
+		array = parsed.array;
+		longs = parsed.longs;
+		doubles = parsed.doubles;
+		packedSize = parsed.packedSize;
+		deferred = null;
+	}
 }
@@ -0,0 +1,35 @@
+package com.guy_732.json;
+
+import com.guy_732.json.exception.JSONException;
+
+/**
+ * Content of a {@link JSONObject} or a {@link JSONArray} that is not parsed yet, see
+ * {@link JSONObject#deferred(JSONDeferred)} and {@link JSONArray#deferred(JSONDeferred)}.
+ * <p>
+ * The content is parsed the first time the JSONObject (or JSONArray) is accessed, errors are thrown
+ * by the accessor. The parse methods are called by the first thread accessing the value, while it
+ * holds the lock of the value: they must not depend on the calling thread.
+ *
+ * @author Guy_732
+ */
+public abstract class JSONDeferred {
+	protected JSONDeferred() {
+		super();
+	}
+
+	/**
+	 * Parse the content of a deferred {@link JSONObject}
+	 *
+	 * @return A new JSONObject, its entries are moved into the deferred one
+	 * @throws JSONException if the content cannot be parsed
+	 */
+	protected abstract JSONObject parseObject() throws JSONException;
+
+	/**
+	 * Parse the content of a deferred {@link JSONArray}
+	 *
+	 * @return A new JSONArray, its elements are moved into the deferred one
+	 * @throws JSONException if the content cannot be parsed
+	 */
+	protected abstract JSONArray parseArray() throws JSONException;
+}
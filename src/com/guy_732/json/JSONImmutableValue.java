@@ -0,0 +1,33 @@
+package com.guy_732.json;
+
+import com.guy_732.json.exception.JSONException;
+
+/**
+ * Thrown when trying to modify a shared {@link JSONValue}, such as the {@link JSONInteger JSONIntegers}
+ * returned by {@link JSONInteger#valueOf(long)}
+ *
+ * @author Guy_732
+ */
+public class JSONImmutableValue extends JSONException {
+	private static final long serialVersionUID = -4113570224178395237L;
+
+	public JSONImmutableValue() {
+		super();
+	}
+
+	public JSONImmutableValue(String message) {
+		super(message);
+	}
+
+	public JSONImmutableValue(Throwable cause) {
+		super(cause);
+	}
+
+	public JSONImmutableValue(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public JSONImmutableValue(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+}
@@ -3,11 +3,45 @@ package com.guy_732.json;
 /**
  * Represent a long (NOT floating point number, see {@link JSONNumber} for
  * those)
+ * <p>
+ * The instances created by the constructors are mutable, the ones returned by
+ * {@link JSONInteger#valueOf(long) JSONInteger::valueOf(long)} (and by the parsers) are immutable
+ * and may be shared.
  *
  * @author Guy_732
  */
 public final class JSONInteger extends JSONValue {
+	/**
+	 * Bounds of the values cached by valueOf(long), -128 and 127 unless widened by the system
+	 * properties {@code com.guy_732.json.JSONInteger.cacheLow} and
+	 * {@code com.guy_732.json.JSONInteger.cacheHigh} (the range is never narrower than the default one,
+	 * and never holds more than {@link #cacheMaxSize} values)
+	 */
+	private static final int cacheLow;
+	private static final int cacheHigh;
+	private static final JSONInteger[] cache;
+
+	/**
+	 * Maximum number of cached values
+	 */
+	private static final int cacheMaxSize = 1 << 20;
+
+	static {
+		int low = Integer.getInteger("com.guy_732.json.JSONInteger.cacheLow", -128);
+		int high = Integer.getInteger("com.guy_732.json.JSONInteger.cacheHigh", 127);
+		low = Math.max(Math.min(low, -128), -cacheMaxSize / 2);
+		high = Math.min(Math.max(high, 127), low + cacheMaxSize - 1);
+
+		cacheLow = low;
+		cacheHigh = high;
+		cache = new JSONInteger[high - low + 1];
+		for (int i = 0; i < cache.length; ++i) {
+			cache[i] = new JSONInteger(low + i, true);
+		}
+	}
+
 	private long value;
+	private final boolean immutable;
 
 	/**
 	 * Construct a new JSONInteger storing 0
@@ -22,9 +56,27 @@ public final class JSONInteger extends JSONValue {
 	 * @param value The value to store in the JSONInteger.
 	 */
 	public JSONInteger(long value) {
+		this(value, false);
+	}
+
+	private JSONInteger(long value, boolean immutable) {
 		super();
 
 		this.value = value;
+		this.immutable = immutable;
+	}
+
+	/**
+	 * Get an immutable JSONInteger storing a given value, the small values (between -128 and 127 by
+	 * default) are cached.
+	 *
+	 * @param value The value to store in the JSONInteger.
+	 * @return A shared JSONInteger for the cached values, a new one otherwise
+	 */
+	public static JSONInteger valueOf(long value) {
+		if (value >= cacheLow && value <= cacheHigh)
+			return cache[(int) (value - cacheLow)];
+		return new JSONInteger(value, true);
 	}
 
 	@Override
@@ -45,11 +97,24 @@ public final class JSONInteger extends JSONValue {
 	 * Setter
 	 *
 	 * @param value The new value to store in the JSONInteger
+	 * @throws JSONImmutableValue if the JSONInteger was returned by {@link #valueOf(long)}
 	 */
-	public void setValue(long value) {
+	public void setValue(long value) throws JSONImmutableValue {
+		if (immutable)
+			throw new JSONImmutableValue("This JSONInteger is immutable, create one with new JSONInteger(long) to modify it");
+
 		this.value = value;
 	}
 
+	/**
+	 * Check
+	 *
+	 * @return true if {@link #setValue(long)} throws a {@link JSONImmutableValue}
+	 */
+	public boolean isImmutable() {
+		return immutable;
+	}
+
 	public long getInteger(String name) {
 		return getValue();
 	}
@@ -3,11 +3,19 @@ package com.guy_732.json;
 /**
  * Represent a double (floating point values, for integers see
  * {@link JSONInteger})
+ * <p>
+ * The instances created by the constructors are mutable, the ones returned by
+ * {@link JSONNumber#valueOf(double) JSONNumber::valueOf(double)} (and by the parsers) are immutable
+ * and may be shared.
  *
  * @author Guy_732
  */
 public final class JSONNumber extends JSONValue {
+	private static final JSONNumber zero = new JSONNumber(0.0, true);
+	private static final JSONNumber one = new JSONNumber(1.0, true);
+
 	private double value;
+	private final boolean immutable;
 
 	/**
 	 * Create a new JSONNumber storing 0.0
@@ -22,9 +30,29 @@ public final class JSONNumber extends JSONValue {
 	 * @param value The value to store in the JSONNumber.
 	 */
 	public JSONNumber(double value) {
+		this(value, false);
+	}
+
+	private JSONNumber(double value, boolean immutable) {
 		super();
 
 		this.value = value;
+		this.immutable = immutable;
+	}
+
+	/**
+	 * Get an immutable JSONNumber storing a given value, 0.0 and 1.0 are shared.
+	 *
+	 * @param value The value to store in the JSONNumber.
+	 * @return A shared JSONNumber for 0.0 and 1.0, a new one otherwise
+	 */
+	public static JSONNumber valueOf(double value) {
+		final long bits = Double.doubleToRawLongBits(value);
+		if (bits == 0L) // not -0.0
+			return zero;
+		if (value == 1.0)
+			return one;
+		return new JSONNumber(value, true);
 	}
 
 	@Override
@@ -45,11 +73,24 @@ public final class JSONNumber extends JSONValue {
 	 * Setter
 	 *
 	 * @param value The new value to store in the JSONNumber
+	 * @throws JSONImmutableValue if the JSONNumber was returned by {@link #valueOf(double)}
 	 */
-	public void setValue(double value) {
+	public void setValue(double value) throws JSONImmutableValue {
+		if (immutable)
+			throw new JSONImmutableValue("This JSONNumber is immutable, create one with new JSONNumber(double) to modify it");
+
 		this.value = value;
 	}
 
+	/**
+	 * Check
+	 *
+	 * @return true if {@link #setValue(double)} throws a {@link JSONImmutableValue}
+	 */
+	public boolean isImmutable() {
+		return immutable;
+	}
+
 	public double getNumber(String name) {
 		return getValue();
 	}
@@ -1,45 +1,82 @@
 package com.guy_732.json;
 
-import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Represent a JSONObject (maps {@link String Strings} to other {@link JSONValue
  * JSONValues})
+ * <p>
+ * The keys are kept in insertion order, so writing a parsed JSONObject back
+ * produces its fields in the original order.
+ * <p>
+ * The content of a JSONObject created with {@link JSONObject#deferred(JSONDeferred)}
+ * is only parsed when it is first accessed. This first access is synchronized:
+ * a deferred JSONObject can be read by several threads (as long as none of them
+ * modifies it), its content is parsed once.
  *
  * @author Guy_732
  */
 public final class JSONObject extends JSONValue {
-	private final HashMap<String, JSONValue> ob;
+	/**
+	 * The entries, null while the content is deferred
+	 */
+	private JSONObjectMap ob;
+
+	/**
+	 * The source of the content, null once parsed (written after {@link #ob}, so a thread reading
+	 * null sees the entries)
+	 */
+	private volatile JSONDeferred deferred;
 
 	/**
 	 * Construct a new JSONObject
 	 */
 	public JSONObject() {
-		this(null);
+		super();
+		this.ob = new JSONObjectMap();
 	}
 
 	/**
-	 * Construct a new JSONObject from an already existing HashMap.
+	 * Construct a new JSONObject from the content of an already existing Map.
+	 * <p>
+	 * The entries are copied (in the iteration order of the Map), later changes to
+	 * the Map are not reflected in the JSONObject.
 	 *
-	 * @param ob The HashMap, if null, will create a new one.
+	 * @param ob The Map, if null, will create an empty JSONObject.
 	 * @throws NullPointerException when 1 key or 1 value in ob is null.
 	 */
-	public JSONObject(HashMap<String, JSONValue> ob) throws NullPointerException {
+	public JSONObject(Map<String, JSONValue> ob) throws NullPointerException {
 		super();
 
 		if (ob == null) {
-			this.ob = new HashMap<>();
+			this.ob = new JSONObjectMap();
 		} else {
-			if (ob.containsKey(null)) {
-				throw new NullPointerException("No key can be null.");
+			this.ob = new JSONObjectMap(ob.size());
+			for (Map.Entry<String, JSONValue> e : ob.entrySet()) {
+				this.ob.put(e.getKey(), e.getValue());
 			}
+		}
+	}
 
-			if (ob.containsValue(null)) {
-				throw new NullPointerException("No value can be null, null values should be the instance of JSONNull.");
-			}
+	private JSONObject(JSONDeferred content) {
+		super();
+		this.ob = null;
+		this.deferred = content;
+	}
 
-			this.ob = ob;
+	/**
+	 * Create a JSONObject whose content is parsed the first time it is accessed
+	 *
+	 * @param content The source of the content
+	 * @return The JSONObject
+	 * @throws NullPointerException if content is null
+	 */
+	public static JSONObject deferred(JSONDeferred content) throws NullPointerException {
+		if (content == null) {
+			throw new NullPointerException("'content' cannot be null.");
 		}
+
+		return new JSONObject(content);
 	}
 
 	@Override
@@ -50,10 +87,20 @@ public final class JSONObject extends JSONValue {
 	/**
 	 * Getter
 	 *
-	 * @return The HashMap used to represent the JSONObject inside Java.
+	 * @return The Map used to represent the JSONObject inside Java (iterated in
+	 * insertion order, rejects null keys and values).
 	 */
-	public HashMap<String, JSONValue> getMap() {
-		return ob;
+	public Map<String, JSONValue> getMap() {
+		return map();
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The number of keys in the JSONObject
+	 */
+	public int size() {
+		return map().size();
 	}
 
 	/**
@@ -64,7 +111,7 @@ public final class JSONObject extends JSONValue {
 	 * didn't exist).
 	 */
 	public JSONValue removeKey(String key) {
-		return ob.remove(key);
+		return map().remove(key);
 	}
 
 	/**
@@ -85,11 +132,12 @@ public final class JSONObject extends JSONValue {
 			throw new NullPointerException("'value' cannot be null.");
 		}
 
-		if (ob.containsKey(key)) {
+		JSONObjectMap map = map();
+		if (map.containsKey(key)) {
 			return false;
 		}
 
-		ob.put(key, value);
+		map.append(key, value);
 		return true;
 	}
 
@@ -106,7 +154,7 @@ public final class JSONObject extends JSONValue {
 			throw new NullPointerException("'key' cannot be null.");
 		}
 
-		return ob.get(key);
+		return map().get(key);
 	}
 
 	/**
@@ -116,14 +164,45 @@ public final class JSONObject extends JSONValue {
 	 * key/value)
 	 */
 	public boolean checkObject() {
-		if (ob.containsKey(null)) {
+		JSONObjectMap map = map();
+		if (map.containsKey(null)) {
 			return false;
 		}
 
-		return !ob.containsValue(null);
+		return !map.containsValue(null);
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if the content is deferred and not parsed yet
+	 */
+	public boolean isDeferred() {
+		return deferred != null;
 	}
 
 	public JSONObject getObject(String name) {
 		return this;
 	}
+
+	/**
+	 * Parse the deferred content if needed
+	 */
+	private JSONObjectMap map() {
+		if (deferred != null) {
+			load();
+		}
+
+		return ob;
+	}
+
+	private synchronized void load() {
+		final JSONDeferred content = deferred;
+		if (content == null) {
+			return; // parsed by another thread in the meantime
+		}
+
+		ob = content.parseObject().map();
+		deferred = null;
+	}
 }
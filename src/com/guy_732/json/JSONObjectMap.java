@@ -0,0 +1,420 @@
+package com.guy_732.json;
+
+import java.util.*;
+
+/**
+ * Compact {@link Map} used by {@link JSONObject} to store its values.
+ * <p>
+ * Keys and values are stored in 2 parallel arrays, in insertion order. Small maps are searched
+ * linearly, above {@link #indexThreshold} entries an open addressing table of positions is added to
+ * keep lookups constant time.
+ * <p>
+ * A removal leaves a hole (a null key) in the arrays and deletes its slot from the table by shifting
+ * the following slots back, the holes are squeezed out once they are half of the arrays: removing
+ * every entry (through an iterator or removeIf for instance) is linear.
+ * <p>
+ * null keys and null values are rejected.
+ *
+ * @author Guy_732
+ */
+final class JSONObjectMap extends AbstractMap<String, JSONValue> {
+	/**
+	 * Number of entries above which the hash index is used
+	 */
+	private static final int indexThreshold = 8;
+
+	private static final String[] noKeys = new String[0];
+	private static final JSONValue[] noValues = new JSONValue[0];
+
+	private String[] keys = noKeys;
+	private JSONValue[] values = noValues;
+	private int size = 0;
+
+	/**
+	 * Number of positions used in {@link #keys} and {@link #values}, including the holes
+	 */
+	private int end = 0;
+
+	/**
+	 * Position + 1 of the entry of each slot (0 for empty slots), null while the map is small
+	 */
+	private int[] index = null;
+
+	/**
+	 * Incremented on structural modifications to make iterators fail-fast
+	 */
+	private int modCount = 0;
+
+	private EntrySet entrySet = null;
+
+	JSONObjectMap() {
+		super();
+	}
+
+	JSONObjectMap(int capacity) {
+		super();
+		if (capacity > 0) {
+			keys = new String[capacity];
+			values = new JSONValue[capacity];
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String && find((String) key) >= 0;
+	}
+
+	@Override
+	public JSONValue get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+
+		int i = find((String) key);
+		return i >= 0 ? values[i] : null;
+	}
+
+	@Override
+	public JSONValue put(String key, JSONValue value) throws NullPointerException {
+		if (key == null) {
+			throw new NullPointerException("No key can be null.");
+		}
+
+		if (value == null) {
+			throw new NullPointerException("No value can be null, null values should be the instance of JSONNull.");
+		}
+
+		int i = find(key);
+		if (i >= 0) {
+			JSONValue old = values[i];
+			values[i] = value;
+			return old;
+		}
+
+		append(key, value);
+		return null;
+	}
+
+	@Override
+	public JSONValue remove(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+
+		int i = find((String) key);
+		if (i < 0) {
+			return null;
+		}
+
+		JSONValue old = values[i];
+		removeAt(i, true);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, 0, end, null);
+		Arrays.fill(values, 0, end, null);
+		size = 0;
+		end = 0;
+		index = null;
+		++modCount;
+	}
+
+	@Override
+	public Set<Entry<String, JSONValue>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+
+		return entrySet;
+	}
+
+	/**
+	 * Add an entry without checking if the key is already present
+	 */
+	void append(String key, JSONValue value) {
+		if (end == keys.length) {
+			if (end - size > end >> 2) {
+				compact();
+				if (size > indexThreshold) {
+					rebuildIndex();
+				} else {
+					index = null;
+				}
+			} else {
+				int capacity = Math.max(4, end + (end >> 1));
+				keys = Arrays.copyOf(keys, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+		}
+
+		keys[end] = key;
+		values[end] = value;
+		++end;
+		++size;
+		++modCount;
+
+		if (index != null && end * 2 <= index.length) {
+			insertIndex(key, end);
+		} else if (index != null || size > indexThreshold) {
+			rebuildIndex();
+		}
+	}
+
+	/**
+	 * @return The position of the key, -1 if absent
+	 */
+	private int find(String key) {
+		if (index == null) {
+			final String[] k = keys;
+			for (int i = 0; i < end; ++i) {
+				if (key.equals(k[i])) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		final int mask = index.length - 1;
+		for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+			int pos = index[slot];
+			if (pos == 0) {
+				return -1;
+			}
+
+			if (key.equals(keys[pos - 1])) {
+				return pos - 1;
+			}
+		}
+	}
+
+	/**
+	 * Remove the entry at position i
+	 *
+	 * @param compact false to keep the positions of the other entries (removal by an iterator)
+	 */
+	private void removeAt(int i, boolean compact) {
+		if (index != null) {
+			deleteIndex(i);
+		}
+
+		keys[i] = null;
+		values[i] = null;
+		--size;
+		++modCount;
+
+		if (size == 0) {
+			end = 0;
+			index = null;
+		} else if (i == end - 1) {
+			do {
+				--end;
+			} while (keys[end - 1] == null);
+		}
+
+		if (!compact || end == size) {
+			return;
+		}
+
+		if (index == null || size <= indexThreshold) {
+			compact();
+			index = null;
+		} else if (end - size > end >> 1) {
+			compact();
+			rebuildIndex();
+		}
+	}
+
+	/**
+	 * Move the entries over the holes, keeping their order (the table must be rebuilt)
+	 */
+	private void compact() {
+		int j = 0;
+		for (int i = 0; i < end; ++i) {
+			if (keys[i] != null) {
+				keys[j] = keys[i];
+				values[j] = values[i];
+				++j;
+			}
+		}
+
+		Arrays.fill(keys, j, end, null);
+		Arrays.fill(values, j, end, null);
+		end = j;
+	}
+
+	private void rebuildIndex() {
+		int capacity = Integer.highestOneBit(end * 4 - 1);
+		index = new int[capacity];
+		for (int i = 0; i < end; ++i) {
+			if (keys[i] != null) {
+				insertIndex(keys[i], i + 1);
+			}
+		}
+	}
+
+	private void insertIndex(String key, int position) {
+		final int mask = index.length - 1;
+		int slot = hash(key) & mask;
+		while (index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+
+		index[slot] = position;
+	}
+
+	/**
+	 * Delete the slot of the entry at position i (its key must still be there), moving back the
+	 * following slots of the cluster so that no lookup stops early
+	 */
+	private void deleteIndex(int i) {
+		final int mask = index.length - 1;
+		int hole = hash(keys[i]) & mask;
+		while (index[hole] != i + 1) {
+			hole = (hole + 1) & mask;
+		}
+
+		for (int slot = (hole + 1) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+			final int ideal = hash(keys[index[slot] - 1]) & mask;
+			// the entry can move to the hole if the hole is between its ideal slot and its slot
+			if (((slot - ideal) & mask) >= ((slot - hole) & mask)) {
+				index[hole] = index[slot];
+				hole = slot;
+			}
+		}
+
+		index[hole] = 0;
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, JSONValue>> {
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			JSONObjectMap.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<String, JSONValue>> iterator() {
+			return new EntryIterator();
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Entry<String, JSONValue>> {
+		private int next = skipHoles(0);
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return next < end;
+		}
+
+		@Override
+		public Entry<String, JSONValue> next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			if (next >= end) {
+				throw new NoSuchElementException();
+			}
+
+			last = next;
+			next = skipHoles(next + 1);
+			return new MapEntry(last);
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+
+			removeAt(last, false);
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+
+	/**
+	 * @return The position of the first entry at or after i, {@link #end} if none
+	 */
+	private int skipHoles(int i) {
+		while (i < end && keys[i] == null) {
+			++i;
+		}
+
+		return i;
+	}
+
+	private final class MapEntry implements Entry<String, JSONValue> {
+		private final int position;
+		private final String key;
+
+		MapEntry(int position) {
+			this.position = position;
+			this.key = keys[position];
+		}
+
+		@Override
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public JSONValue getValue() {
+			return values[position];
+		}
+
+		@Override
+		public JSONValue setValue(JSONValue value) throws NullPointerException {
+			if (value == null) {
+				throw new NullPointerException("No value can be null, null values should be the instance of JSONNull.");
+			}
+
+			JSONValue old = values[position];
+			values[position] = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && getValue().equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ getValue().hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return key + "=" + getValue();
+		}
+	}
+}
@@ -1,11 +1,10 @@
 package com.guy_732.json;
 
 import com.guy_732.json.reader.JSONParser;
+import com.guy_732.json.writer.JSONNonFinitePolicy;
 import com.guy_732.json.writer.JSONWriter;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.util.ArrayDeque;
 
 /**
  * class extended by all JSONValues (all listed in the enumeration
@@ -14,6 +13,13 @@ import java.util.ArrayDeque;
  * @author Guy_732
  */
 public abstract class JSONValue {
+	/**
+	 * Capacity above which the {@link StringBuilder} used by {@link #toString()} is not kept
+	 */
+	private static final int maxScratchCapacity = 1 << 16;
+
+	private static final ThreadLocal<StringBuilder> scratch = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
 	/**
 	 * Note: you can also use {@code instanceof} however with this method, you can
 	 * use switch case statements.
@@ -26,10 +32,8 @@ public abstract class JSONValue {
 	 * Do not use to compare 2 {@link JSONValue JSONValues}, this will only return
 	 * {@code this == ob} and won't actually compare the content.
 	 * <p>
-	 * This function is here for the JSONWriter to be sure that it doesn't get stuck
-	 * in an infinite loop trying to write object containing themselves as
-	 * {@link ArrayDeque#contains(Object) ArrayDeque::contains(Object)} will call
-	 * this method.
+	 * Values are compared by identity so that they can be stored in collections
+	 * while they are being processed, whatever they contain.
 	 *
 	 * @return {@code this == ob}
 	 */
@@ -38,16 +42,48 @@ public abstract class JSONValue {
 		return this == ob;
 	}
 
+	/**
+	 * The JSON representation of the value, written in a {@link StringBuilder} reused by the
+	 * calling thread (the returned String is the only allocation for small values).
+	 * <p>
+	 * NaN and the infinities are written as Strings ({@link JSONNonFinitePolicy#WriteString}), use
+	 * a {@link JSONWriter} to reject them.
+	 *
+	 * @return The JSON data
+	 * @throws com.guy_732.json.writer.JSONRecursiveObject if the value contains itself
+	 */
 	@Override
 	public final String toString() {
-		StringWriter out = new StringWriter();
-		try (JSONWriter writer = new JSONWriter(out)) {
-			writer.writeJSONValue(this);
-		} catch (IOException e) {
-			throw new RuntimeException(e);
+		final StringBuilder sb = scratch.get();
+		if (sb.length() != 0) {
+			// toString() called while writing, in a JSONValue subclass: the scratch builder is in use
+			return appendTo(new StringBuilder()).toString();
 		}
 
-		return out.toString();
+		try {
+			JSONWriter.appendTo(sb, this, JSONNonFinitePolicy.WriteString);
+			return sb.toString();
+		} finally {
+			if (sb.capacity() > maxScratchCapacity) {
+				scratch.remove();
+			} else {
+				sb.setLength(0);
+			}
+		}
+	}
+
+	/**
+	 * Append the JSON representation of the value to a {@link StringBuilder}, the one returned by
+	 * {@link #toString()}
+	 *
+	 * @param builder Where the value is appended
+	 * @return builder
+	 * @throws NullPointerException                        if builder is null
+	 * @throws com.guy_732.json.writer.JSONRecursiveObject if the value contains itself
+	 */
+	public StringBuilder appendTo(StringBuilder builder) throws NullPointerException {
+		JSONWriter.appendTo(builder, this, JSONNonFinitePolicy.WriteString);
+		return builder;
 	}
 
 	/**
@@ -133,12 +169,20 @@ public abstract class JSONValue {
 		return ((s == null) ? JSONNull.Null : new JSONString(s));
 	}
 
+	/**
+	 * @param l The value
+	 * @return An immutable (maybe shared) JSONInteger, see {@link JSONInteger#valueOf(long)}
+	 */
 	public static JSONInteger valueOf(long l) {
-		return new JSONInteger(l);
+		return JSONInteger.valueOf(l);
 	}
 
+	/**
+	 * @param d The value
+	 * @return An immutable (maybe shared) JSONNumber, see {@link JSONNumber#valueOf(double)}
+	 */
 	public static JSONNumber valueOf(double d) {
-		return new JSONNumber(d);
+		return JSONNumber.valueOf(d);
 	}
 
 	public static JSONBoolean valueOf(boolean b) {
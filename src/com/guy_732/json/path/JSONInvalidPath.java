@@ -0,0 +1,32 @@
+package com.guy_732.json.path;
+
+import com.guy_732.json.exception.JSONException;
+
+/**
+ * Thrown by {@link JSONPath#compile(String)} when an expression cannot be compiled
+ *
+ * @author Guy_732
+ */
+public class JSONInvalidPath extends JSONException {
+	private static final long serialVersionUID = 2651447120873523901L;
+
+	public JSONInvalidPath() {
+		super();
+	}
+
+	public JSONInvalidPath(String message) {
+		super(message);
+	}
+
+	public JSONInvalidPath(Throwable cause) {
+		super(cause);
+	}
+
+	public JSONInvalidPath(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public JSONInvalidPath(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+}
@@ -0,0 +1,319 @@
+package com.guy_732.json.path;
+
+import com.guy_732.json.*;
+import com.guy_732.json.exception.JSONException;
+import com.guy_732.json.reader.JSONPullParser;
+import com.guy_732.json.reader.JSONSyntaxException;
+import com.guy_732.json.reader.JSONToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compiled path expression selecting values inside a JSON document, either a {@link JSONValue} tree
+ * or the tokens of a {@link JSONPullParser}. Two syntaxes are supported:
+ * <ul>
+ * <li>JSON Pointer (RFC 6901), such as {@code /payload/items/0/price}: {@code ~0} and {@code ~1}
+ * stand for {@code ~} and {@code /}, a segment made of digits selects an element of a JSONArray or
+ * a member of a JSONObject. As an extension, a {@code *} segment selects every member or element.</li>
+ * <li>A subset of JSONPath, such as {@code $.payload.items[*].price}: {@code .name},
+ * {@code ['name']}, {@code .*}, {@code [*]}, {@code [index]} and the filters {@code [?(@.path)]} (the
+ * value at path exists) and {@code [?(@.path op literal)]} where op is one of {@code == != < <= > >=}
+ * and literal a number, a quoted String, {@code true}, {@code false} or {@code null}. Recursive
+ * descent ({@code ..}), negative indexes, slices and unions are not supported.</li>
+ * </ul>
+ * With a {@link JSONPullParser}, the values that cannot match are skipped without being decoded,
+ * only the selected values (and the values tested by filters) are read as trees.
+ * <p>
+ * A JSONPath is immutable: it can be compiled once and used by several threads.
+ *
+ * @author Guy_732
+ */
+public final class JSONPath {
+	private final String expression;
+	private final PathStep[] steps;
+
+	private JSONPath(String expression, PathStep[] steps) {
+		super();
+		this.expression = expression;
+		this.steps = steps;
+	}
+
+	/**
+	 * Compile a path
+	 *
+	 * @param expression A JSON Pointer (empty or starting with {@code /}) or a JSONPath (starting
+	 *                   with {@code $})
+	 * @return The compiled path
+	 * @throws NullPointerException if expression is null
+	 * @throws JSONInvalidPath      if the expression is not valid or uses an unsupported feature
+	 */
+	public static JSONPath compile(String expression) throws NullPointerException, JSONInvalidPath {
+		if (expression == null) {
+			throw new NullPointerException("'expression' cannot be null");
+		}
+
+		return new JSONPath(expression, new PathCompiler(expression).compile());
+	}
+
+	/**
+	 * Select the values of a tree
+	 *
+	 * @param root The value the path starts from
+	 * @return The values selected, in document order
+	 * @throws NullPointerException if root is null
+	 * @throws JSONException        thrown by deferred values
+	 */
+	public List<JSONValue> select(JSONValue root) throws NullPointerException, JSONException {
+		final ArrayList<JSONValue> result = new ArrayList<>();
+		forEach(root, result::add);
+		return result;
+	}
+
+	/**
+	 * Select the first value of a tree matching the path
+	 *
+	 * @param root The value the path starts from
+	 * @return The first value selected, null if none
+	 * @throws NullPointerException if root is null
+	 * @throws JSONException        thrown by deferred values
+	 */
+	public JSONValue selectFirst(JSONValue root) throws NullPointerException, JSONException {
+		if (root == null) {
+			throw new NullPointerException("'root' cannot be null");
+		}
+
+		return first(root, 0);
+	}
+
+	/**
+	 * Call action on each value of a tree matching the path, in document order
+	 *
+	 * @param root   The value the path starts from
+	 * @param action Called with each value selected
+	 * @throws NullPointerException if root or action is null
+	 * @throws JSONException        thrown by deferred values
+	 */
+	public void forEach(JSONValue root, Consumer<? super JSONValue> action) throws NullPointerException, JSONException {
+		if (root == null) {
+			throw new NullPointerException("'root' cannot be null");
+		}
+
+		if (action == null) {
+			throw new NullPointerException("'action' cannot be null");
+		}
+
+		evaluate(root, 0, action);
+	}
+
+	/**
+	 * Read the next value of a parser and select its values matching the path
+	 *
+	 * @param parser The parser, the value of its current {@link JSONToken#FIELD_NAME} is read if
+	 *               there is one
+	 * @return The values selected, in document order
+	 * @throws NullPointerException if parser is null
+	 * @throws IOException          thrown by the parser, {@link EOFException} if there is no value to
+	 *                              read
+	 * @throws JSONSyntaxException  if the data is not valid JSON
+	 * @throws IllegalStateException if the parser is at the end of a container
+	 */
+	public List<JSONValue> select(JSONPullParser parser)
+			throws NullPointerException, IOException, JSONSyntaxException, IllegalStateException {
+		final ArrayList<JSONValue> result = new ArrayList<>();
+		forEach(parser, result::add);
+		return result;
+	}
+
+	/**
+	 * Read the next value of a parser and call action on each of its values matching the path, in
+	 * document order. Once the method returns, the current token of the parser is the last token
+	 * of the value.
+	 *
+	 * @param parser The parser, the value of its current {@link JSONToken#FIELD_NAME} is read if
+	 *               there is one
+	 * @param action Called with each value selected
+	 * @throws NullPointerException if parser or action is null
+	 * @throws IOException          thrown by the parser, {@link EOFException} if there is no value to
+	 *                              read
+	 * @throws JSONSyntaxException  if the data is not valid JSON
+	 * @throws IllegalStateException if the parser is at the end of a container
+	 */
+	public void forEach(JSONPullParser parser, Consumer<? super JSONValue> action)
+			throws NullPointerException, IOException, JSONSyntaxException, IllegalStateException {
+		if (parser == null) {
+			throw new NullPointerException("'parser' cannot be null");
+		}
+
+		if (action == null) {
+			throw new NullPointerException("'action' cannot be null");
+		}
+
+		if (parser.currentToken() != JSONToken.FIELD_NAME) {
+			parser.nextToken();
+		}
+
+		if (parser.currentToken() == JSONToken.FIELD_NAME) {
+			parser.nextToken();
+		}
+
+		final JSONToken t = parser.currentToken();
+		if (t == null) {
+			throw new EOFException("The parser is at End Of File, nothing to be selected");
+		}
+
+		if (t == JSONToken.END_OBJECT || t == JSONToken.END_ARRAY) {
+			throw new IllegalStateException(t.name().concat(" does not start a value"));
+		}
+
+		match(parser, 0, action);
+	}
+
+	/**
+	 * @return The expression this path was compiled from
+	 */
+	@Override
+	public String toString() {
+		return expression;
+	}
+
+	/**
+	 * @return The member or element of value selected by a step without wildcard, null if there is
+	 * none
+	 */
+	static JSONValue child(JSONValue value, PathStep step) {
+		final JSONType t = value.type();
+		if (t == JSONType.JSONObject && step.name != null)
+			return ((JSONObject) value).getMap().get(step.name);
+
+		if (t == JSONType.JSONArray && step.index >= 0) {
+			final JSONArray arr = (JSONArray) value;
+			return step.index < arr.size() ? arr.get(step.index) : null;
+		}
+
+		return null;
+	}
+
+	private void evaluate(JSONValue value, int i, Consumer<? super JSONValue> action) {
+		if (i == steps.length) {
+			action.accept(value);
+			return;
+		}
+
+		final PathStep step = steps[i];
+		if (!step.wildcard) {
+			final JSONValue child = child(value, step);
+			if (child != null)
+				evaluate(child, i + 1, action);
+			return;
+		}
+
+		final JSONType t = value.type();
+		if (t == JSONType.JSONObject) {
+			for (JSONValue child : ((JSONObject) value).getMap().values()) {
+				if (step.filter == null || step.filter.test(child))
+					evaluate(child, i + 1, action);
+			}
+		} else if (t == JSONType.JSONArray) {
+			final JSONArray arr = (JSONArray) value;
+			final int size = arr.size();
+			for (int j = 0; j < size; ++j) {
+				final JSONValue child = arr.get(j); // keeps packed arrays packed
+				if (step.filter == null || step.filter.test(child))
+					evaluate(child, i + 1, action);
+			}
+		}
+	}
+
+	private JSONValue first(JSONValue value, int i) {
+		if (i == steps.length)
+			return value;
+
+		final PathStep step = steps[i];
+		if (!step.wildcard) {
+			final JSONValue child = child(value, step);
+			return child != null ? first(child, i + 1) : null;
+		}
+
+		final JSONType t = value.type();
+		if (t == JSONType.JSONObject) {
+			for (Map.Entry<String, JSONValue> e : ((JSONObject) value).getMap().entrySet()) {
+				final JSONValue found = firstOfCandidate(e.getValue(), step, i);
+				if (found != null)
+					return found;
+			}
+		} else if (t == JSONType.JSONArray) {
+			final JSONArray arr = (JSONArray) value;
+			final int size = arr.size();
+			for (int j = 0; j < size; ++j) {
+				final JSONValue found = firstOfCandidate(arr.get(j), step, i);
+				if (found != null)
+					return found;
+			}
+		}
+
+		return null;
+	}
+
+	private JSONValue firstOfCandidate(JSONValue child, PathStep step, int i) {
+		if (step.filter != null && !step.filter.test(child))
+			return null;
+		return first(child, i + 1);
+	}
+
+	/**
+	 * Select the values matching steps[i..] in the value started by the current token of the
+	 * parser, and leave the parser on the last token of the value
+	 */
+	private void match(JSONPullParser p, int i, Consumer<? super JSONValue> action)
+			throws IOException, JSONSyntaxException {
+		if (i == steps.length) {
+			action.accept(p.readValueAsTree());
+			return;
+		}
+
+		final PathStep step = steps[i];
+		final JSONToken t = p.currentToken();
+		if (t == JSONToken.START_OBJECT && step.selectsMembers()) {
+			while (p.nextToken() == JSONToken.FIELD_NAME) {
+				final boolean selected = step.wildcard || p.textEquals(step.name);
+				p.nextToken();
+				if (selected)
+					matchChild(p, step, i, action);
+				else
+					p.skipChildren();
+			}
+		} else if (t == JSONToken.START_ARRAY && step.selectsElements()) {
+			int index = 0;
+			while (p.nextToken() != JSONToken.END_ARRAY) {
+				if (step.wildcard || index == step.index)
+					matchChild(p, step, i, action);
+				else
+					p.skipChildren();
+				++index;
+			}
+		} else {
+			p.skipChildren();
+		}
+	}
+
+	/**
+	 * Continue the matching in a member or element selected by steps[i]
+	 */
+	private void matchChild(JSONPullParser p, PathStep step, int i, Consumer<? super JSONValue> action)
+			throws IOException, JSONSyntaxException {
+		if (step.filter == null) {
+			match(p, i + 1, action);
+			return;
+		}
+
+		// the filter needs the whole candidate
+		final JSONValue child = p.readValueAsTree();
+		if (step.filter.test(child))
+			evaluate(child, i + 1, action);
+	}
+}
@@ -0,0 +1,356 @@
+package com.guy_732.json.path;
+
+import java.util.ArrayList;
+
+/**
+ * Translate the expressions given to {@link JSONPath#compile(String)} into {@link PathStep PathSteps}
+ *
+ * @author Guy_732
+ */
+final class PathCompiler {
+	private final String expression;
+	private int pos = 0;
+
+	PathCompiler(String expression) {
+		super();
+		this.expression = expression;
+	}
+
+	/**
+	 * @return The steps of the expression
+	 * @throws JSONInvalidPath if the expression is neither a JSON Pointer nor a supported JSONPath
+	 */
+	PathStep[] compile() throws JSONInvalidPath {
+		if (expression.isEmpty() || expression.charAt(0) == '/')
+			return compilePointer();
+
+		if (expression.charAt(0) == '$') {
+			pos = 1;
+			return compilePath();
+		}
+
+		throw new JSONInvalidPath(String.format("`%s' is neither a JSON Pointer (`/...') nor a JSONPath (`$...')",
+				expression));
+	}
+
+	private PathStep[] compilePointer() throws JSONInvalidPath {
+		final ArrayList<PathStep> steps = new ArrayList<>();
+		int start = 1;
+		while (start <= expression.length()) {
+			int end = expression.indexOf('/', start);
+			if (end < 0)
+				end = expression.length();
+
+			final String segment = unescape(expression.substring(start, end), start);
+			if (segment.equals("*")) {
+				steps.add(PathStep.any(null));
+			} else {
+				// "0" may be a key of a JSONObject or an index of a JSONArray
+				steps.add(new PathStep(segment, pointerIndex(segment), false, null));
+			}
+
+			start = end + 1;
+		}
+
+		return steps.toArray(new PathStep[0]);
+	}
+
+	/**
+	 * Decode the {@code ~0} and {@code ~1} escape sequences of a JSON Pointer segment
+	 */
+	private String unescape(String segment, int offset) throws JSONInvalidPath {
+		int i = segment.indexOf('~');
+		if (i < 0)
+			return segment;
+
+		final StringBuilder sb = new StringBuilder(segment.length());
+		int from = 0;
+		while (i >= 0) {
+			final char c = i + 1 < segment.length() ? segment.charAt(i + 1) : 0;
+			if (c != '0' && c != '1')
+				throw new JSONInvalidPath(String.format("Invalid escape sequence at index %d in `%s': Expected `~0' or `~1'",
+						offset + i, expression));
+
+			sb.append(segment, from, i).append(c == '0' ? '~' : '/');
+			from = i + 2;
+			i = segment.indexOf('~', from);
+		}
+
+		return sb.append(segment, from, segment.length()).toString();
+	}
+
+	/**
+	 * @return The array index written by a JSON Pointer segment, -1 if it is not one
+	 */
+	private static int pointerIndex(String segment) {
+		final int len = segment.length();
+		if (len == 0 || len > 10 || (len > 1 && segment.charAt(0) == '0'))
+			return -1;
+
+		long index = 0;
+		for (int i = 0; i < len; ++i) {
+			final char c = segment.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			index = index * 10 + (c - '0');
+		}
+
+		return index <= Integer.MAX_VALUE ? (int) index : -1;
+	}
+
+	private PathStep[] compilePath() throws JSONInvalidPath {
+		final ArrayList<PathStep> steps = new ArrayList<>();
+		while (pos < expression.length()) {
+			final char c = expression.charAt(pos);
+			if (c == '.') {
+				++pos;
+				if (pos < expression.length() && expression.charAt(pos) == '.')
+					throw error("Recursive descent `..' is not supported");
+				if (pos < expression.length() && expression.charAt(pos) == '*') {
+					++pos;
+					steps.add(PathStep.any(null));
+				} else {
+					steps.add(PathStep.member(name()));
+				}
+			} else if (c == '[') {
+				++pos;
+				steps.add(bracket());
+			} else {
+				throw unexpected("Expected `.' or `['");
+			}
+		}
+
+		return steps.toArray(new PathStep[0]);
+	}
+
+	/**
+	 * Compile the content of {@code [...]}, the opening bracket is already read
+	 */
+	private PathStep bracket() throws JSONInvalidPath {
+		skipSpaces();
+		final PathStep step;
+		final char c = peek();
+		if (c == '*') {
+			++pos;
+			step = PathStep.any(null);
+		} else if (c == '\'' || c == '"') {
+			step = PathStep.member(quoted());
+		} else if (c == '?') {
+			++pos;
+			step = PathStep.any(filter());
+		} else if (c == '-') {
+			throw error("Negative indexes are not supported");
+		} else if (c >= '0' && c <= '9') {
+			step = PathStep.element(index());
+		} else {
+			throw unexpected("Expected `*', a quoted name, an index or a filter `?(...)'");
+		}
+
+		skipSpaces();
+		if (peek() == ':')
+			throw error("Slices are not supported");
+		if (peek() == ',')
+			throw error("Unions are not supported");
+		expect(']');
+		return step;
+	}
+
+	/**
+	 * Compile {@code (@.path)} or {@code (@.path op literal)}, the question mark is already read
+	 */
+	private PathFilter filter() throws JSONInvalidPath {
+		skipSpaces();
+		expect('(');
+		skipSpaces();
+		expect('@');
+		final ArrayList<PathStep> path = new ArrayList<>();
+		for (;;) {
+			final char c = peek();
+			if (c == '.') {
+				++pos;
+				if (peek() == '.' || peek() == '*')
+					throw error("Only names and indexes can be used in filters");
+				path.add(PathStep.member(name()));
+			} else if (c == '[') {
+				++pos;
+				skipSpaces();
+				final char d = peek();
+				if (d == '\'' || d == '"')
+					path.add(PathStep.member(quoted()));
+				else if (d >= '0' && d <= '9')
+					path.add(PathStep.element(index()));
+				else
+					throw error("Only names and indexes can be used in filters");
+				skipSpaces();
+				expect(']');
+			} else {
+				break;
+			}
+		}
+
+		final PathStep[] steps = path.toArray(new PathStep[0]);
+		skipSpaces();
+		if (peek() == ')') {
+			++pos;
+			return PathFilter.exists(steps);
+		}
+
+		final int op = operator();
+		skipSpaces();
+		final PathFilter filter = literal(steps, op);
+		skipSpaces();
+		expect(')');
+		return filter;
+	}
+
+	private int operator() throws JSONInvalidPath {
+		final char c = peek();
+		final boolean orEqual = pos + 1 < expression.length() && expression.charAt(pos + 1) == '=';
+		switch (c) {
+			case '=':
+				if (orEqual) {
+					pos += 2;
+					return PathFilter.equal;
+				}
+				break;
+			case '!':
+				if (orEqual) {
+					pos += 2;
+					return PathFilter.notEqual;
+				}
+				break;
+			case '<':
+				pos += orEqual ? 2 : 1;
+				return orEqual ? PathFilter.lowerOrEqual : PathFilter.lower;
+			case '>':
+				pos += orEqual ? 2 : 1;
+				return orEqual ? PathFilter.greaterOrEqual : PathFilter.greater;
+			default:
+				break;
+		}
+
+		throw unexpected("Expected `)', `==', `!=', `<', `<=', `>' or `>='");
+	}
+
+	private PathFilter literal(PathStep[] path, int op) throws JSONInvalidPath {
+		final char c = peek();
+		if (c == '\'' || c == '"')
+			return PathFilter.compare(path, op, quoted());
+
+		if (c == '-' || (c >= '0' && c <= '9')) {
+			final int start = pos;
+			while (pos < expression.length() && "+-.eE0123456789".indexOf(expression.charAt(pos)) >= 0)
+				++pos;
+
+			final String number = expression.substring(start, pos);
+			try {
+				return PathFilter.compare(path, op, Long.parseLong(number));
+			} catch (NumberFormatException e) {
+				// not an integer
+			}
+
+			try {
+				return PathFilter.compare(path, op, Double.parseDouble(number));
+			} catch (NumberFormatException e) {
+				pos = start;
+				throw error(String.format("Invalid number `%s'", number));
+			}
+		}
+
+		if (expression.startsWith("true", pos)) {
+			pos += 4;
+			return PathFilter.compare(path, op, true);
+		}
+
+		if (expression.startsWith("false", pos)) {
+			pos += 5;
+			return PathFilter.compare(path, op, false);
+		}
+
+		if (expression.startsWith("null", pos)) {
+			pos += 4;
+			return PathFilter.compareToNull(path, op);
+		}
+
+		throw unexpected("Expected a number, a quoted String, `true', `false' or `null'");
+	}
+
+	/**
+	 * @return The name following a dot: every character up to the next {@code .}, {@code [},
+	 * space or operator
+	 */
+	private String name() throws JSONInvalidPath {
+		final int start = pos;
+		while (pos < expression.length() && ".[]()=!<> \t".indexOf(expression.charAt(pos)) < 0)
+			++pos;
+
+		if (pos == start)
+			throw unexpected("Expected a name");
+
+		return expression.substring(start, pos);
+	}
+
+	/**
+	 * @return The content of a String quoted by {@code '} or {@code "}, {@code \} escaping the next
+	 * character
+	 */
+	private String quoted() throws JSONInvalidPath {
+		final char quote = expression.charAt(pos++);
+		final StringBuilder sb = new StringBuilder();
+		while (pos < expression.length()) {
+			char c = expression.charAt(pos++);
+			if (c == quote)
+				return sb.toString();
+
+			if (c == '\\') {
+				if (pos == expression.length())
+					break;
+				c = expression.charAt(pos++);
+			}
+
+			sb.append(c);
+		}
+
+		throw error(String.format("Missing closing `%c'", quote));
+	}
+
+	private int index() throws JSONInvalidPath {
+		final int start = pos;
+		long index = 0;
+		while (pos < expression.length() && expression.charAt(pos) >= '0' && expression.charAt(pos) <= '9') {
+			index = index * 10 + (expression.charAt(pos++) - '0');
+			if (index > Integer.MAX_VALUE) {
+				pos = start;
+				throw error("Index too large");
+			}
+		}
+
+		return (int) index;
+	}
+
+	private char peek() {
+		return pos < expression.length() ? expression.charAt(pos) : 0;
+	}
+
+	private void expect(char c) throws JSONInvalidPath {
+		if (peek() != c)
+			throw unexpected(String.format("Expected `%c'", c));
+		++pos;
+	}
+
+	private void skipSpaces() {
+		while (pos < expression.length() && (expression.charAt(pos) == ' ' || expression.charAt(pos) == '\t'))
+			++pos;
+	}
+
+	private JSONInvalidPath unexpected(String expected) {
+		if (pos == expression.length())
+			return new JSONInvalidPath(String.format("Unexpected end of `%s': %s", expression, expected));
+		return new JSONInvalidPath(String.format("Unexpected character `%c' at index %d in `%s': %s",
+				expression.charAt(pos), pos, expression, expected));
+	}
+
+	private JSONInvalidPath error(String message) {
+		return new JSONInvalidPath(String.format("%s (index %d in `%s')", message, pos, expression));
+	}
+}
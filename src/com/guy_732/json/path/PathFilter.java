@@ -0,0 +1,159 @@
+package com.guy_732.json.path;
+
+import com.guy_732.json.*;
+
+/**
+ * Condition of a filter step of a {@link JSONPath}: {@code [?(@.path)]} (the value at path exists) or
+ * {@code [?(@.path op literal)]} (the value at path compares to the literal)
+ *
+ * @author Guy_732
+ */
+final class PathFilter {
+	static final int exists = 0;
+	static final int equal = 1;
+	static final int notEqual = 2;
+	static final int lower = 3;
+	static final int lowerOrEqual = 4;
+	static final int greater = 5;
+	static final int greaterOrEqual = 6;
+
+	/**
+	 * Results of the comparison of values that are not equal and cannot be ordered: values of
+	 * different types (or booleans), and NaN
+	 */
+	private static final int different = Integer.MIN_VALUE;
+	private static final int unordered = Integer.MAX_VALUE;
+
+	/**
+	 * Path of the tested value, relative to the filtered value (members and elements only)
+	 */
+	private final PathStep[] path;
+	private final int operator;
+
+	/**
+	 * Type of the literal, null for {@link #exists}
+	 */
+	private final JSONType literalType;
+	private final long longLiteral;
+	private final double doubleLiteral;
+	private final String stringLiteral;
+	private final boolean booleanLiteral;
+
+	private PathFilter(PathStep[] path, int operator, JSONType literalType, long longLiteral, double doubleLiteral,
+			String stringLiteral, boolean booleanLiteral) {
+		super();
+		this.path = path;
+		this.operator = operator;
+		this.literalType = literalType;
+		this.longLiteral = longLiteral;
+		this.doubleLiteral = doubleLiteral;
+		this.stringLiteral = stringLiteral;
+		this.booleanLiteral = booleanLiteral;
+	}
+
+	static PathFilter exists(PathStep[] path) {
+		return new PathFilter(path, exists, null, 0, 0, null, false);
+	}
+
+	static PathFilter compare(PathStep[] path, int operator, long literal) {
+		return new PathFilter(path, operator, JSONType.JSONInteger, literal, literal, null, false);
+	}
+
+	static PathFilter compare(PathStep[] path, int operator, double literal) {
+		return new PathFilter(path, operator, JSONType.JSONNumber, 0, literal, null, false);
+	}
+
+	static PathFilter compare(PathStep[] path, int operator, String literal) {
+		return new PathFilter(path, operator, JSONType.JSONString, 0, 0, literal, false);
+	}
+
+	static PathFilter compare(PathStep[] path, int operator, boolean literal) {
+		return new PathFilter(path, operator, JSONType.JSONBoolean, 0, 0, null, literal);
+	}
+
+	static PathFilter compareToNull(PathStep[] path, int operator) {
+		return new PathFilter(path, operator, JSONType.JSONNull, 0, 0, null, false);
+	}
+
+	/**
+	 * Check
+	 *
+	 * @param value The filtered value
+	 * @return true if the value passes the filter
+	 */
+	boolean test(JSONValue value) {
+		for (PathStep step : path) {
+			value = JSONPath.child(value, step);
+			if (value == null)
+				return false;
+		}
+
+		if (operator == exists)
+			return true;
+
+		final int order = compareTo(value);
+		switch (operator) {
+			case equal:
+				return order == 0;
+			case notEqual:
+				return order != 0;
+			case lower:
+				return order != unordered && order != different && order < 0;
+			case lowerOrEqual:
+				return order != unordered && order != different && order <= 0;
+			case greater:
+				return order != unordered && order != different && order > 0;
+			case greaterOrEqual:
+				return order != unordered && order != different && order >= 0;
+			default:
+				throw new AssertionError(operator);
+		}
+	}
+
+	/**
+	 * @return The sign of the comparison of value to the literal, {@link #different} if they are
+	 * different but cannot be ordered, {@link #unordered} for NaN
+	 */
+	private int compareTo(JSONValue value) {
+		final JSONType type = value.type();
+		switch (type) {
+			case JSONInteger:
+				if (literalType == JSONType.JSONInteger)
+					return Long.compare(((JSONInteger) value).getValue(), longLiteral);
+				if (literalType == JSONType.JSONNumber)
+					return compareDoubles(((JSONInteger) value).getValue(), doubleLiteral);
+				return different;
+
+			case JSONNumber:
+				if (literalType == JSONType.JSONInteger || literalType == JSONType.JSONNumber)
+					return compareDoubles(((JSONNumber) value).getValue(), doubleLiteral);
+				return different;
+
+			case JSONString:
+				if (literalType == JSONType.JSONString)
+					return Integer.signum(((JSONString) value).getString().compareTo(stringLiteral));
+				return different;
+
+			case JSONBoolean:
+				if (literalType == JSONType.JSONBoolean && ((JSONBoolean) value).getValue() == booleanLiteral)
+					return 0;
+				return different;
+
+			case JSONNull:
+				return literalType == JSONType.JSONNull ? 0 : different;
+
+			default:
+				return different;
+		}
+	}
+
+	private static int compareDoubles(double a, double b) {
+		if (a < b)
+			return -1;
+		if (a > b)
+			return 1;
+		if (a == b)
+			return 0;
+		return unordered;
+	}
+}
@@ -0,0 +1,76 @@
+package com.guy_732.json.path;
+
+/**
+ * One step of a {@link JSONPath}: selects some members of a JSONObject and/or some elements of a
+ * JSONArray
+ *
+ * @author Guy_732
+ */
+final class PathStep {
+	/**
+	 * Key of the member selected, null if the step does not select members by name
+	 */
+	final String name;
+
+	/**
+	 * Index of the element selected, -1 if the step does not select elements by index
+	 */
+	final int index;
+
+	/**
+	 * true if every member and element is selected (before the filter)
+	 */
+	final boolean wildcard;
+
+	/**
+	 * Condition on the selected values, may be null
+	 */
+	final PathFilter filter;
+
+	PathStep(String name, int index, boolean wildcard, PathFilter filter) {
+		super();
+		this.name = name;
+		this.index = index;
+		this.wildcard = wildcard;
+		this.filter = filter;
+	}
+
+	/**
+	 * @return The step selecting the member of a given key
+	 */
+	static PathStep member(String name) {
+		return new PathStep(name, -1, false, null);
+	}
+
+	/**
+	 * @return The step selecting the element of a given index
+	 */
+	static PathStep element(int index) {
+		return new PathStep(null, index, false, null);
+	}
+
+	/**
+	 * @return The step selecting every member and element (matching filter if it is not null)
+	 */
+	static PathStep any(PathFilter filter) {
+		return new PathStep(null, -1, true, filter);
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if the step may select members of a JSONObject
+	 */
+	boolean selectsMembers() {
+		return wildcard || name != null;
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if the step may select elements of a JSONArray
+	 */
+	boolean selectsElements() {
+		return wildcard || index >= 0;
+	}
+}
@@ -0,0 +1,432 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This class reads the binary JSON written by {@link com.guy_732.json.writer.JSONBinaryWriter
+ * JSONBinaryWriter} (see its documentation for the format) with the method
+ * {@link JSONBinaryParser#parse() JSONBinaryParser::parse()} and returns a {@link JSONValue}
+ * <p>
+ * Like {@link JSONParser}, several values can follow each other and the numbers are immutable unless
+ * {@link #setMutableNumbers(boolean) mutable numbers} are enabled.
+ *
+ * @author Guy_732
+ */
+public class JSONBinaryParser implements Closeable {
+	private static final byte tagNull = 0x00;
+	private static final byte tagFalse = 0x01;
+	private static final byte tagTrue = 0x02;
+	private static final byte tagInteger = 0x03;
+	private static final byte tagNumber = 0x04;
+	private static final byte tagString = 0x05;
+	private static final byte tagArray = 0x06;
+	private static final byte tagObject = 0x07;
+	private static final byte tagLongArray = 0x08;
+	private static final byte tagDoubleArray = 0x09;
+
+	/**
+	 * Number of keys of a root value that can be referenced
+	 */
+	private static final int maxKeys = 1 << 16;
+
+	/**
+	 * Largest initial capacity of the containers (and first growth of the buffer), their size is read
+	 * from the input
+	 */
+	private static final int maxInitialCapacity = 1 << 16;
+
+	/**
+	 * Largest size of the buffer (the largest array the VMs can allocate)
+	 */
+	private static final int maxBufferSize = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The stream to read from, null when the whole input is in {@link #buf}
+	 */
+	private final InputStream stream;
+	private byte[] buf;
+	private int pos = 0;
+	private int limit;
+
+	/**
+	 * Number of bytes of the input before buf[0]
+	 */
+	private long consumed = 0;
+
+	private char[] scratch = new char[64];
+
+	/**
+	 * The new keys of the current root value, in order
+	 */
+	private final ArrayList<String> keys = new ArrayList<>();
+
+	private JSONKeyCache keyCache = null;
+	private boolean mutableNumbers = false;
+	private boolean closed = false;
+
+	/**
+	 * Creates a new {@link JSONBinaryParser}
+	 *
+	 * @param data The byte[] storing the binary JSON data
+	 * @throws NullPointerException If 'data' is null
+	 */
+	public JSONBinaryParser(byte[] data) throws NullPointerException {
+		this(null, data.clone(), data.length);
+	}
+
+	/**
+	 * Construct a new {@link JSONBinaryParser}
+	 *
+	 * @param stream The stream to read from (the parser has its own buffer)
+	 * @throws NullPointerException if stream is null
+	 */
+	public JSONBinaryParser(InputStream stream) throws NullPointerException {
+		this(Objects.requireNonNull(stream), new byte[8192], 0);
+	}
+
+	private JSONBinaryParser(InputStream stream, byte[] buf, int limit) {
+		super();
+		this.stream = stream;
+		this.buf = buf;
+		this.limit = limit;
+	}
+
+	/**
+	 * Decode a JSONValue encoded by {@link com.guy_732.json.writer.JSONBinaryWriter#toByteArray(JSONValue)}
+	 *
+	 * @param data The binary form of the value (not copied, must not be modified while decoding)
+	 * @return The value
+	 * @throws NullPointerException if data is null
+	 * @throws JSONInvalidBinary    if data is not valid binary JSON, or holds more than a value
+	 */
+	public static JSONValue fromByteArray(byte[] data) throws NullPointerException, JSONInvalidBinary {
+		JSONBinaryParser parser = new JSONBinaryParser(null, data, data.length);
+		try {
+			JSONValue val = parser.parse();
+			if (parser.pos != parser.limit)
+				throw parser.invalid("Unexpected data after the value");
+			return val;
+		} catch (EOFException e) {
+			throw new JSONInvalidBinary("Truncated binary JSON", e);
+		} catch (IOException e) {
+			throw new AssertionError(e); // the input is in memory
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+
+		closed = true;
+		if (stream != null)
+			stream.close();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed)
+			throw new IOException("The parser is closed");
+	}
+
+	/**
+	 * Set the cache the new keys are looked up in
+	 *
+	 * @param cache The cache of the keys, null to create a new String for every new key
+	 * @see JSONParser#setKeyCache(JSONKeyCache)
+	 */
+	public void setKeyCache(JSONKeyCache cache) {
+		keyCache = cache;
+	}
+
+	/**
+	 * Enable/Disable mutable numbers
+	 *
+	 * @param flag whether every number is a new mutable instance
+	 * @see JSONParser#setMutableNumbers(boolean)
+	 */
+	public void setMutableNumbers(boolean flag) {
+		mutableNumbers = flag;
+	}
+
+	/**
+	 * Read the next value
+	 *
+	 * @return The value read
+	 * @throws IOException       thrown by the underlying stream, or an {@link EOFException} at the end
+	 *                           of the input
+	 * @throws JSONInvalidBinary if the input is not valid binary JSON
+	 */
+	public JSONValue parse() throws IOException, JSONInvalidBinary {
+		ensureOpen();
+		if (!available(1))
+			throw new EOFException("The parser is at End Of File, nothing to be parsed");
+
+		keys.clear();
+		return parseValue();
+	}
+
+	private JSONValue parseValue() throws IOException, JSONInvalidBinary {
+		require(1);
+		final byte tag = buf[pos++];
+		switch (tag) {
+			case tagNull:
+				return JSONNull.Null;
+			case tagFalse:
+				return JSONBoolean.False;
+			case tagTrue:
+				return JSONBoolean.True;
+			case tagInteger:
+				final long l = readLong();
+				return mutableNumbers ? new JSONInteger(l) : JSONInteger.valueOf(l);
+			case tagNumber:
+				final double d = readDouble();
+				return mutableNumbers ? new JSONNumber(d) : JSONNumber.valueOf(d);
+			case tagString:
+				return new JSONString(readString(readLength(), null));
+			case tagArray:
+				return parseArray();
+			case tagObject:
+				return parseObject();
+			case tagLongArray:
+				return parseLongArray();
+			case tagDoubleArray:
+				return parseDoubleArray();
+			default:
+				--pos;
+				throw invalid(String.format("Unknown tag `0x%02x'", tag & 0xFF));
+		}
+	}
+
+	private JSONArray parseArray() throws IOException, JSONInvalidBinary {
+		final int n = readLength();
+		JSONArray arr = new JSONArray();
+		ArrayList<JSONValue> list = arr.getArray();
+		list.ensureCapacity(Math.min(n, maxInitialCapacity));
+		for (int i = 0; i < n; ++i)
+			list.add(parseValue());
+		return arr;
+	}
+
+	private JSONObject parseObject() throws IOException, JSONInvalidBinary {
+		final int n = readLength();
+		JSONObject ob = new JSONObject();
+		Map<String, JSONValue> map = ob.getMap();
+		for (int i = 0; i < n; ++i) {
+			final String key = readKey();
+			if (map.put(key, parseValue()) != null)
+				throw invalid(String.format("Duplicate key \"%s\" in JSONObject", key));
+		}
+
+		return ob;
+	}
+
+	private JSONArray parseLongArray() throws IOException, JSONInvalidBinary {
+		final int n = readLength();
+		long[] values = new long[Math.min(n, maxInitialCapacity)];
+		for (int i = 0; i < n; ++i) {
+			if (i == values.length)
+				values = Arrays.copyOf(values, (int) Math.min(n, 2L * i));
+			values[i] = readLong();
+		}
+
+		return JSONArray.ofLongs(values, 0, n);
+	}
+
+	private JSONArray parseDoubleArray() throws IOException, JSONInvalidBinary {
+		final int n = readLength();
+		double[] values = new double[Math.min(n, maxInitialCapacity)];
+		for (int i = 0; i < n; ++i) {
+			if (i == values.length)
+				values = Arrays.copyOf(values, (int) Math.min(n, 2L * i));
+			values[i] = readDouble();
+		}
+
+		return JSONArray.ofDoubles(values, 0, n);
+	}
+
+	private String readKey() throws IOException, JSONInvalidBinary {
+		final long n = readVarint();
+		if ((n & 1) != 0) {
+			final long index = n >>> 1;
+			if (index >= keys.size())
+				throw invalid(String.format("Reference to the unknown key %d", index));
+			return keys.get((int) index);
+		}
+
+		final long len = n >>> 1;
+		if (len > Integer.MAX_VALUE)
+			throw invalid("Key too long");
+
+		final String key = readString((int) len, keyCache);
+		if (keys.size() < maxKeys)
+			keys.add(key);
+		return key;
+	}
+
+	/**
+	 * Read a String of len bytes, through a cache if it is not null
+	 */
+	private String readString(int len, JSONKeyCache cache) throws IOException, JSONInvalidBinary {
+		require(len);
+		final byte[] b = buf;
+		final int off = pos;
+		int bits = 0;
+		for (int i = 0; i < len; ++i)
+			bits |= b[off + i];
+
+		if (bits >= 0) {
+			pos += len;
+			if (cache != null)
+				return cache.getAscii(b, off, len);
+			return new String(b, off, len, StandardCharsets.ISO_8859_1);
+		}
+
+		if (scratch.length < len)
+			scratch = new char[Math.max(len, scratch.length * 2)];
+		final int n = decodeUTF8(b, off, off + len, scratch);
+		pos += len;
+		if (cache != null)
+			return cache.get(scratch, 0, n);
+		return new String(scratch, 0, n);
+	}
+
+	/**
+	 * Decode UTF-8 bytes (the surrogates encoded alone in 3 bytes included)
+	 *
+	 * @return the number of chars written (never more than the number of bytes)
+	 */
+	private int decodeUTF8(byte[] src, int from, int to, char[] dst) throws JSONInvalidBinary {
+		int n = 0;
+		int i = from;
+		while (i < to) {
+			final int b0 = src[i];
+			if (b0 >= 0) {
+				dst[n++] = (char) b0;
+				++i;
+				continue;
+			}
+
+			if ((b0 & 0xE0) == 0xC0 && i + 1 < to && isContinuation(src[i + 1])) {
+				dst[n++] = (char) (((b0 & 0x1F) << 6) | (src[i + 1] & 0x3F));
+				i += 2;
+			} else if ((b0 & 0xF0) == 0xE0 && i + 2 < to && isContinuation(src[i + 1]) && isContinuation(src[i + 2])) {
+				dst[n++] = (char) (((b0 & 0x0F) << 12) | ((src[i + 1] & 0x3F) << 6) | (src[i + 2] & 0x3F));
+				i += 3;
+			} else if ((b0 & 0xF8) == 0xF0 && i + 3 < to && isContinuation(src[i + 1]) && isContinuation(src[i + 2])
+					&& isContinuation(src[i + 3])) {
+				final int cp = ((b0 & 0x07) << 18) | ((src[i + 1] & 0x3F) << 12) | ((src[i + 2] & 0x3F) << 6)
+						| (src[i + 3] & 0x3F);
+				if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT || cp > Character.MAX_CODE_POINT)
+					break;
+				dst[n++] = Character.highSurrogate(cp);
+				dst[n++] = Character.lowSurrogate(cp);
+				i += 4;
+			} else {
+				break;
+			}
+		}
+
+		if (i != to) {
+			pos = i;
+			throw invalid("Invalid UTF-8 sequence");
+		}
+
+		return n;
+	}
+
+	private static boolean isContinuation(byte b) {
+		return (b & 0xC0) == 0x80;
+	}
+
+	private long readVarint() throws IOException, JSONInvalidBinary {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			require(1);
+			final byte b = buf[pos++];
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+
+		throw invalid("Varint longer than 10 bytes");
+	}
+
+	/**
+	 * @return A varint giving a number of bytes or elements
+	 */
+	private int readLength() throws IOException, JSONInvalidBinary {
+		final long len = readVarint();
+		if (len < 0 || len > Integer.MAX_VALUE)
+			throw invalid(String.format("Length %s too large", Long.toUnsignedString(len)));
+		return (int) len;
+	}
+
+	private long readLong() throws IOException, JSONInvalidBinary {
+		final long zigzag = readVarint();
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+
+	private double readDouble() throws IOException {
+		require(8);
+		long bits = 0;
+		for (int i = 0; i < 8; ++i)
+			bits = (bits << 8) | (buf[pos++] & 0xFF);
+		return Double.longBitsToDouble(bits);
+	}
+
+	/**
+	 * @throws EOFException if the input ends before n more bytes
+	 */
+	private void require(int n) throws IOException {
+		if (limit - pos < n && !available(n))
+			throw new EOFException("The parser reached End Of File while parsing values");
+	}
+
+	/**
+	 * Read from the stream until n bytes are in the buffer, the buffer only grows as the bytes arrive
+	 *
+	 * @return false if the input ends before
+	 * @throws JSONInvalidBinary if n bytes cannot fit in a buffer
+	 */
+	private boolean available(int n) throws IOException, JSONInvalidBinary {
+		if (limit - pos >= n)
+			return true;
+		if (stream == null)
+			return false;
+
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			consumed += pos;
+			limit -= pos;
+			pos = 0;
+		}
+
+		if (n > maxBufferSize)
+			throw invalid(String.format("Length %d too large", n));
+
+		while (limit < n) {
+			if (limit == buf.length) {
+				// grow with the data received, not with the length read from the input
+				buf = Arrays.copyOf(buf, (int) Math.min(n, Math.max(2L * buf.length, maxInitialCapacity)));
+			}
+
+			final int read = stream.read(buf, limit, buf.length - limit);
+			if (read < 0)
+				return false;
+			limit += read;
+		}
+
+		return true;
+	}
+
+	private JSONInvalidBinary invalid(String error) {
+		return new JSONInvalidBinary(String.format("%s at offset %d", error, consumed + pos));
+	}
+}
@@ -0,0 +1,344 @@
+package com.guy_732.json.reader;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * {@link JSONLexer} reading characters from a {@link Reader} (or an in-memory char[]) into a large
+ * buffer and scanning Strings and words in place.
+ *
+ * @author Guy_732
+ */
+class JSONCharLexer extends JSONLexer {
+	private static final int defaultBufferSize = 1 << 16;
+
+	private final Reader reader;
+	private char[] buf;
+	private int pos;
+	private int limit;
+
+	/**
+	 * Start of the current token in buf (kept when the buffer is refilled), -1 if none
+	 */
+	private int mark = -1;
+
+	private int strOff;
+	private int strLen;
+	private boolean strEscaped;
+	private char[] scratch = new char[64];
+
+	/**
+	 * Construct a lexer reading from a {@link Reader}
+	 *
+	 * @param reader The reader to read from
+	 */
+	JSONCharLexer(Reader reader) {
+		this.reader = reader;
+		this.buf = new char[defaultBufferSize];
+		this.word = buf;
+	}
+
+	/**
+	 * Construct a lexer over characters already in memory (the array is not copied)
+	 *
+	 * @param data   The characters to read
+	 * @param offset Index of the first character
+	 * @param length Number of characters
+	 */
+	JSONCharLexer(char[] data, int offset, int length) {
+		this(data, offset, length, 1);
+	}
+
+	private JSONCharLexer(char[] data, int offset, int length, int line) {
+		this.reader = null;
+		this.buf = data;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.word = buf;
+		this.lineno = line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null)
+			reader.close();
+	}
+
+	/**
+	 * Read more characters in the buffer, keeping everything after {@link #mark} (or pos)
+	 *
+	 * @return false if the end of the input is reached
+	 */
+	private boolean fill() throws IOException {
+		if (reader == null)
+			return false;
+
+		int keep = mark >= 0 ? mark : pos;
+		if (keep > 0) {
+			System.arraycopy(buf, keep, buf, 0, limit - keep);
+			limit -= keep;
+			pos -= keep;
+			if (mark >= 0)
+				mark -= keep;
+		} else if (limit == buf.length) {
+			char[] bigger = new char[buf.length * 2];
+			System.arraycopy(buf, 0, bigger, 0, limit);
+			buf = bigger;
+			word = bigger;
+		}
+
+		int read = reader.read(buf, limit, buf.length - limit);
+		if (read <= 0)
+			return false;
+
+		limit += read;
+		return true;
+	}
+
+	@Override
+	boolean inMemory() {
+		return reader == null;
+	}
+
+	@Override
+	int position() {
+		return pos;
+	}
+
+	@Override
+	JSONLexer region(int start, int end, int line) {
+		return new JSONCharLexer(buf, start, end - start, line);
+	}
+
+	@Override
+	boolean skipContainer() throws IOException, JSONSyntaxException {
+		if (reader != null || cStyleComments)
+			return super.skipContainer();
+
+		// the whole input is in buf, scan it directly
+		final char[] b = buf;
+		final int l = limit;
+		int p = pos;
+		int depth = 1;
+		try {
+			while (p < l) {
+				switch (b[p++]) {
+					case '"':
+						while (true) {
+							if (p >= l)
+								throw unterminatedString();
+							char c = b[p++];
+							if (c == '"')
+								break;
+							if (c == '\\')
+								++p;
+							else if (c == '\n' || c == '\r')
+								throw unterminatedString();
+						}
+						break;
+					case '{':
+					case '[':
+						++depth;
+						break;
+					case '}':
+					case ']':
+						if (--depth == 0) {
+							ttype = b[p - 1];
+							return true;
+						}
+						break;
+					case '\n':
+						++lineno;
+						break;
+					case '\r':
+						++lineno;
+						if (p < l && b[p] == '\n')
+							++p;
+						break;
+					default:
+						break;
+				}
+			}
+
+			return false;
+		} finally {
+			pos = Math.min(p, l);
+		}
+	}
+
+	@Override
+	int readToken() throws IOException, JSONSyntaxException {
+		mark = -1;
+		int c;
+		while (true) {
+			if (pos == limit && !fill())
+				return TT_EOF;
+
+			c = buf[pos++];
+			switch (c) {
+				case ' ':
+				case '\t':
+					continue;
+				case '\n':
+					++lineno;
+					continue;
+				case '\r':
+					++lineno;
+					if ((pos < limit || fill()) && buf[pos] == '\n')
+						++pos;
+					continue;
+				case '/':
+					if (cStyleComments && skipComment())
+						continue;
+					return c;
+				case '"':
+					scanString();
+					return TT_STRING;
+				default:
+					if (isWordChar(c)) {
+						scanWord();
+						return TT_WORD;
+					}
+
+					return c;
+			}
+		}
+	}
+
+	/**
+	 * Called after reading a '/', skip the comment if there is one.
+	 *
+	 * @return false if the '/' does not start a comment
+	 */
+	private boolean skipComment() throws IOException {
+		if (pos == limit && !fill())
+			return false;
+
+		char c = buf[pos];
+		if (c == '/') {
+			while (true) {
+				if (pos == limit && !fill())
+					return true;
+
+				c = buf[pos];
+				if (c == '\n' || c == '\r')
+					return true;
+				++pos;
+			}
+		}
+
+		if (c != '*')
+			return false;
+
+		++pos;
+		char prev = 0;
+		while (true) {
+			if (pos == limit && !fill())
+				return true;
+
+			c = buf[pos++];
+			if (c == '/' && prev == '*')
+				return true;
+
+			if (c == '\n' || (c == '\r' && (pos == limit && !fill() || buf[pos] != '\n')))
+				++lineno;
+			prev = c;
+		}
+	}
+
+	private void scanWord() throws IOException {
+		mark = pos - 1;
+		while (true) {
+			int p = pos;
+			final int l = limit;
+			final char[] b = buf;
+			while (p < l && isWordChar(b[p]))
+				++p;
+
+			pos = p;
+			if (p < l || !fill())
+				break;
+		}
+
+		wordOff = mark;
+		wordLen = pos - mark;
+	}
+
+	private void scanString() throws IOException, JSONSyntaxException {
+		mark = pos;
+		boolean escaped = false;
+		while (true) {
+			int p = pos;
+			final int l = limit;
+			final char[] b = buf;
+			char c = 0;
+			while (p < l) {
+				c = b[p];
+				if (c == '"' || c == '\\' || c == '\n' || c == '\r')
+					break;
+				++p;
+			}
+
+			pos = p;
+			if (p == l) {
+				if (!fill())
+					throw unterminatedString();
+				continue;
+			}
+
+			if (c == '"')
+				break;
+			if (c != '\\')
+				throw unterminatedString();
+
+			escaped = true;
+			++pos;
+			if (pos == limit && !fill())
+				throw unterminatedString();
+			++pos;
+		}
+
+		strOff = mark;
+		strLen = pos - mark;
+		strEscaped = escaped;
+		++pos;
+	}
+
+	@Override
+	String stringValue() throws JSONSyntaxException {
+		if (!strEscaped)
+			return new String(buf, strOff, strLen);
+
+		if (scratch.length < strLen)
+			scratch = new char[Math.max(strLen, scratch.length * 2)];
+		int n = unescape(buf, strOff, strLen, scratch);
+		return new String(scratch, 0, n);
+	}
+
+	@Override
+	boolean stringIs(String s) throws JSONSyntaxException {
+		if (strEscaped)
+			return stringValue().equals(s);
+
+		if (s.length() != strLen)
+			return false;
+
+		for (int i = 0; i < strLen; ++i) {
+			if (buf[strOff + i] != s.charAt(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	String stringValue(JSONKeyCache cache) throws JSONSyntaxException {
+		if (!strEscaped)
+			return cache.get(buf, strOff, strLen);
+
+		if (scratch.length < strLen)
+			scratch = new char[Math.max(strLen, scratch.length * 2)];
+		int n = unescape(buf, strOff, strLen, scratch);
+		return cache.get(scratch, 0, n);
+	}
+}
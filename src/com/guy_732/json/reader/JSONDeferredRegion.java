@@ -0,0 +1,70 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONArray;
+import com.guy_732.json.JSONDeferred;
+import com.guy_732.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * Content of a JSONObject or a JSONArray skipped by a lazy {@link JSONParser}: a part of its
+ * in-memory input, parsed (lazily too) when the value is first accessed.
+ *
+ * @author Guy_732
+ */
+final class JSONDeferredRegion extends JSONDeferred {
+	private final JSONLexer source;
+	private final int start;
+	private final int end;
+	private final int line;
+	private final int depth;
+	private final boolean cStyleComments;
+	private final JSONParserOptions options;
+
+	/**
+	 * @param source     The lexer the region was found by
+	 * @param start      Index of the first character after the `{' or `['
+	 * @param end        Index after the matching `}' or `]'
+	 * @param line       Line number at start
+	 * @param depth      Number of containers around the JSONObject or JSONArray
+	 * @param options    The options used to parse the region (a snapshot, never modified)
+	 */
+	JSONDeferredRegion(JSONLexer source, int start, int end, int line, int depth, JSONParserOptions options) {
+		super();
+		this.source = source;
+		this.start = start;
+		this.end = end;
+		this.line = line;
+		this.depth = depth;
+		this.cStyleComments = source.cStyleComments;
+		this.options = options;
+	}
+
+	@Override
+	protected JSONObject parseObject() throws JSONSyntaxException {
+		try {
+			return parser().parseObject();
+		} catch (IOException e) {
+			throw new AssertionError(e); // the input is in memory
+		}
+	}
+
+	@Override
+	protected JSONArray parseArray() throws JSONSyntaxException {
+		try {
+			return parser().parseArray();
+		} catch (IOException e) {
+			throw new AssertionError(e); // the input is in memory
+		}
+	}
+
+	private JSONParser parser() {
+		JSONLexer lexer = source.region(start, end, line);
+		lexer.cStyleComments = cStyleComments;
+		JSONParser parser = new JSONParser(lexer);
+		parser.copyOptions(options);
+		parser.setLazy(true);
+		parser.setDepth(depth);
+		return parser;
+	}
+}
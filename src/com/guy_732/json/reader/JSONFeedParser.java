@@ -0,0 +1,401 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONValue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking parser of a sequence of JSON values (encoded in UTF-8): the input is pushed in
+ * chunks with {@link #feed(ByteBuffer)} as it arrives (from a {@link java.nio.channels.SocketChannel
+ * SocketChannel}, an {@link java.nio.channels.AsynchronousSocketChannel AsynchronousSocketChannel},
+ * ...), and {@link #nextValue()} returns each value once all of its bytes are there, or null if it
+ * needs more input. No thread is ever blocked waiting for data.
+ * <p>
+ * The chunks are scanned once as they are fed, the state of the scan (depth, inside a String, after
+ * a backslash, inside a number...) is kept across chunk boundaries, so a token may be split
+ * anywhere. The bytes of the value being read are buffered until its end is found, it is then parsed
+ * in one pass by a {@link JSONParser} with the options of this parser: the memory used is bounded by
+ * the size of the largest value, and the errors are the ones {@link JSONParser} reports.
+ * <p>
+ * The values may be separated by whitespace (JSON Lines, concatenated JSON...). A number or a
+ * literal at the root level is only complete once the byte following it (or the end of the input,
+ * see {@link #endOfInput()}) is fed. C-style comments are not supported.
+ * <p>
+ * A JSONFeedParser is not thread-safe, but it can be fed and read by different threads one after
+ * the other (as the completion handlers of an asynchronous channel do). Once an exception is
+ * thrown, the parser cannot be used anymore.
+ *
+ * @author Guy_732
+ */
+public final class JSONFeedParser {
+	private static final int defaultBufferSize = 1 << 13;
+
+	/**
+	 * Holds the options given to the parser of each value
+	 */
+	private final JSONParserOptions options = new JSONParserOptions();
+
+	private byte[] buf = new byte[defaultBufferSize];
+
+	/**
+	 * Index of the first byte not returned yet
+	 */
+	private int start = 0;
+
+	/**
+	 * Index after the last byte fed
+	 */
+	private int limit = 0;
+
+	/**
+	 * Index of the next byte to scan
+	 */
+	private int pos = 0;
+
+	/**
+	 * Index of the first byte of the value being scanned, -1 between values
+	 */
+	private int valueStart = -1;
+	private int valueLine = 1;
+
+	private int lineno = 1;
+	private int depth = 0;
+	private boolean inString = false;
+	private boolean escape = false;
+	private boolean inWord = false;
+	private boolean afterCR = false;
+	private boolean bomChecked = false;
+	private boolean eof = false;
+
+	/**
+	 * Construct a new {@link JSONFeedParser}
+	 */
+	public JSONFeedParser() {
+		super();
+	}
+
+	/**
+	 * Enable/Disable packed arrays
+	 *
+	 * @param flag whether homogeneous numeric arrays are packed
+	 * @see JSONParser#setPackedArrays(boolean)
+	 */
+	public void setPackedArrays(boolean flag) {
+		options.packArrays = flag;
+	}
+
+	/**
+	 * Set the cache the keys of the JSONObjects are looked up in
+	 *
+	 * @param cache The cache of the keys, null to create a new String for every key
+	 * @see JSONParser#setKeyCache(JSONKeyCache)
+	 */
+	public void setKeyCache(JSONKeyCache cache) {
+		options.keyCache = cache;
+	}
+
+	/**
+	 * Set the cache the String values are looked up in
+	 *
+	 * @param cache The cache of the String values, null to create a new String for every value
+	 * @see JSONParser#setValueCache(JSONKeyCache)
+	 */
+	public void setValueCache(JSONKeyCache cache) {
+		options.valueCache = cache;
+	}
+
+	/**
+	 * Enable/Disable mutable numbers
+	 *
+	 * @param flag whether every number is a new mutable instance
+	 * @see JSONParser#setMutableNumbers(boolean)
+	 */
+	public void setMutableNumbers(boolean flag) {
+		options.mutableNumbers = flag;
+	}
+
+	/**
+	 * Set the filter of the members of the JSONObjects
+	 *
+	 * @param filter The allow-list or deny-list of the keys, null to keep every member
+	 * @see JSONParser#setFieldFilter(JSONFieldFilter)
+	 */
+	public void setFieldFilter(JSONFieldFilter filter) {
+		options.fieldFilter = filter;
+	}
+
+	/**
+	 * Push the remaining bytes of a buffer: they are copied, and the position of the buffer is moved
+	 * to its limit
+	 *
+	 * @param src The next bytes of the input
+	 * @throws NullPointerException  if src is null
+	 * @throws IllegalStateException if {@link #endOfInput()} was called
+	 */
+	public void feed(ByteBuffer src) throws NullPointerException, IllegalStateException {
+		final int n = src.remaining();
+		ensureOpen();
+		reserve(n);
+		src.get(buf, limit, n);
+		limit += n;
+	}
+
+	/**
+	 * Push bytes (they are copied)
+	 *
+	 * @param b   Buffer holding the next bytes of the input
+	 * @param off Index of the first byte
+	 * @param len Number of bytes
+	 * @throws NullPointerException      if b is null
+	 * @throws IndexOutOfBoundsException if off and len do not delimit a part of b
+	 * @throws IllegalStateException     if {@link #endOfInput()} was called
+	 */
+	public void feed(byte[] b, int off, int len)
+			throws NullPointerException, IndexOutOfBoundsException, IllegalStateException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException(String.format("off: %d, len: %d, length: %d", off, len, b.length));
+		}
+
+		ensureOpen();
+		reserve(len);
+		System.arraycopy(b, off, buf, limit, len);
+		limit += len;
+	}
+
+	/**
+	 * Signal that every byte of the input was fed: the number or literal ending the input becomes
+	 * complete, and an unfinished value becomes an error
+	 */
+	public void endOfInput() {
+		eof = true;
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true if {@link #endOfInput()} was called and every value was returned
+	 */
+	public boolean isFinished() {
+		return eof && pos == limit && valueStart < 0 && start == limit;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return Number of bytes fed but not returned yet as part of a value (the bytes of the value
+	 * being read)
+	 */
+	public int getBufferedBytes() {
+		return limit - start;
+	}
+
+	/**
+	 * Read the next value if all of its bytes were fed
+	 *
+	 * @return The value, null if more input is needed (or if the input is finished, see
+	 * {@link #isFinished()})
+	 * @throws JSONSyntaxException if the data is not valid JSON, or the input ends inside a value
+	 */
+	public JSONValue nextValue() throws JSONSyntaxException {
+		if (!bomChecked && !skipBOM())
+			return null;
+
+		final int end = scan();
+		if (end >= 0)
+			return parse(end);
+
+		if (!eof)
+			return null;
+
+		if (valueStart >= 0) {
+			// the last value ends with the input, the parser reports it if it is unfinished
+			inWord = false;
+			return parse(limit);
+		}
+
+		start = limit;
+		return null;
+	}
+
+	private void ensureOpen() throws IllegalStateException {
+		if (eof) {
+			throw new IllegalStateException("The end of the input was already signaled");
+		}
+	}
+
+	/**
+	 * Make room for n more bytes, moving the bytes not returned yet to the start of the buffer
+	 */
+	private void reserve(int n) {
+		if (n <= buf.length - limit)
+			return;
+
+		final int kept = limit - start;
+		if ((long) kept + n > Integer.MAX_VALUE - 8) {
+			throw new OutOfMemoryError("JSON value too large to be buffered");
+		}
+
+		byte[] dst = buf;
+		if (kept + n > buf.length)
+			dst = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max((long) kept + n, 2L * buf.length))];
+
+		System.arraycopy(buf, start, dst, 0, kept);
+		buf = dst;
+		pos -= start;
+		if (valueStart >= 0)
+			valueStart -= start;
+		limit = kept;
+		start = 0;
+	}
+
+	/**
+	 * Skip the byte order mark starting the input
+	 *
+	 * @return false if the first bytes may still be a byte order mark
+	 */
+	private boolean skipBOM() {
+		final byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+		final int n = Math.min(limit - pos, 3);
+		for (int i = 0; i < n; ++i) {
+			if (buf[pos + i] != bom[i]) {
+				bomChecked = true;
+				return true;
+			}
+		}
+
+		if (n < 3 && !eof)
+			return false;
+
+		bomChecked = true;
+		if (n == 3) {
+			pos += 3;
+			start = pos;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Scan the bytes fed until the end of a root value
+	 *
+	 * @return Index after the last byte of the value, -1 if the value is not complete
+	 */
+	private int scan() {
+		final byte[] b = buf;
+		final int l = limit;
+		int p = pos;
+		try {
+			while (p < l) {
+				final byte c = b[p];
+				if (inString) {
+					++p;
+					if (escape) {
+						escape = false;
+					} else if (c == '\\') {
+						escape = true;
+					} else if (c == '"') {
+						inString = false;
+						if (depth == 0)
+							return p;
+					} else if (c == '\n' || c == '\r') {
+						// unterminated String, the parser reports it
+						inString = false;
+						depth = 0;
+						return p - 1;
+					}
+
+					continue;
+				}
+
+				if (inWord) {
+					if (JSONLexer.isWordChar(c)) {
+						++p;
+						continue;
+					}
+
+					inWord = false;
+					if (depth == 0)
+						return p;
+				}
+
+				final boolean cr = afterCR;
+				afterCR = false;
+				switch (c) {
+					case ' ':
+					case '\t':
+						++p;
+						continue;
+					case '\n':
+						if (!cr)
+							++lineno;
+						++p;
+						continue;
+					case '\r':
+						++lineno;
+						afterCR = true;
+						++p;
+						continue;
+					default:
+						break;
+				}
+
+				if (depth == 0 && valueStart < 0) {
+					valueStart = p;
+					valueLine = lineno;
+				}
+
+				++p;
+				switch (c) {
+					case '"':
+						inString = true;
+						break;
+					case '{':
+					case '[':
+						++depth;
+						break;
+					case '}':
+					case ']':
+						if (depth == 0 || --depth == 0)
+							return p;
+						break;
+					default:
+						if (JSONLexer.isWordChar(c))
+							inWord = true;
+						else if (depth == 0)
+							return p; // not a value, the parser reports it
+						break;
+				}
+			}
+
+			return -1;
+		} finally {
+			pos = p;
+		}
+	}
+
+	/**
+	 * Parse the value scanned
+	 *
+	 * @param end Index after the last byte of the value
+	 */
+	private JSONValue parse(int end) throws JSONSyntaxException {
+		final int from = valueStart;
+		valueStart = -1;
+		start = end;
+		if (pos < end)
+			pos = end;
+
+		final JSONParser parser = new JSONParser(new JSONUTF8Lexer(buf, from, end - from, valueLine));
+		parser.copyOptions(options);
+		try {
+			return parser.parse();
+		} catch (EOFException e) {
+			// only thrown for unfinished values
+			throw new JSONSyntaxException(e.getMessage(), null, lineno);
+		} catch (IOException e) {
+			throw new AssertionError(e); // the input is in memory
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.guy_732.json.reader;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+/**
+ * List of the members of the JSONObjects a {@link JSONParser} keeps (allow-list) or skips
+ * (deny-list), see {@link JSONParser#setFieldFilter(JSONFieldFilter)}.
+ * <p>
+ * The keys are compared to the names without being decoded when they have no escape sequence, and
+ * the values of the skipped members are passed over by counting the brackets: their Strings are not
+ * decoded, their numbers not converted and no JSONValue is created for them (their content is not
+ * checked either).
+ * <p>
+ * By default the filter applies to the JSONObjects at every depth, so an allow-list must also name
+ * the members of the nested JSONObjects to keep; use {@link #upToDepth(int)} to only filter the
+ * outer JSONObjects and keep the nested ones whole.
+ * <p>
+ * A JSONFieldFilter is immutable, it can be shared by several parsers.
+ *
+ * @author Guy_732
+ */
+public final class JSONFieldFilter {
+	/**
+	 * Number of names above which the keys are decoded and looked up in a HashSet instead of being
+	 * compared to each name
+	 */
+	private static final int linearThreshold = 8;
+
+	private final String[] names;
+	private final HashSet<String> set;
+	private final boolean allow;
+	private final int maxDepth;
+
+	private JSONFieldFilter(String[] names, HashSet<String> set, boolean allow, int maxDepth) {
+		super();
+		this.names = names;
+		this.set = set;
+		this.allow = allow;
+		this.maxDepth = maxDepth;
+	}
+
+	private static JSONFieldFilter of(String[] names, boolean allow) throws NullPointerException {
+		if (names == null) {
+			throw new NullPointerException("'names' cannot be null");
+		}
+
+		final LinkedHashSet<String> unique = new LinkedHashSet<>();
+		for (String name : names) {
+			if (name == null) {
+				throw new NullPointerException("A name is null");
+			}
+
+			unique.add(name);
+		}
+
+		final HashSet<String> set = unique.size() > linearThreshold ? new HashSet<>(unique) : null;
+		return new JSONFieldFilter(unique.toArray(new String[0]), set, allow, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create an allow-list
+	 *
+	 * @param names Keys of the members to keep, every other member is skipped
+	 * @return The filter
+	 * @throws NullPointerException if names or one of the names is null
+	 */
+	public static JSONFieldFilter allow(String... names) throws NullPointerException {
+		return of(names, true);
+	}
+
+	/**
+	 * Create a deny-list
+	 *
+	 * @param names Keys of the members to skip, every other member is kept
+	 * @return The filter
+	 * @throws NullPointerException if names or one of the names is null
+	 */
+	public static JSONFieldFilter deny(String... names) throws NullPointerException {
+		return of(names, false);
+	}
+
+	/**
+	 * Create the same filter, only applied to the JSONObjects nested in at most depth containers (0
+	 * for the root JSONObject alone, 1 for the JSONObjects of a root JSONArray or JSONObject, ...).
+	 * The deeper JSONObjects are kept whole.
+	 *
+	 * @param depth Number of containers around the deepest JSONObjects filtered
+	 * @return The new filter
+	 * @throws IllegalArgumentException if depth is negative
+	 */
+	public JSONFieldFilter upToDepth(int depth) throws IllegalArgumentException {
+		if (depth < 0) {
+			throw new IllegalArgumentException("'depth' cannot be negative");
+		}
+
+		return new JSONFieldFilter(names, set, allow, depth);
+	}
+
+	/**
+	 * Check
+	 *
+	 * @return true for an allow-list, false for a deny-list
+	 */
+	public boolean isAllowList() {
+		return allow;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return Number of containers around the deepest JSONObjects filtered ({@link Integer#MAX_VALUE}
+	 * by default)
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Check
+	 *
+	 * @param depth Number of containers around a JSONObject
+	 * @return true if the members of the JSONObject are filtered
+	 */
+	boolean appliesAt(int depth) {
+		return depth <= maxDepth;
+	}
+
+	/**
+	 * Filter the key of the current String token
+	 *
+	 * @param lexer The lexer whose current token is a key
+	 * @param cache The cache of the keys, may be null
+	 * @return The key if the member is kept, null if it is skipped
+	 * @throws JSONSyntaxException if the key contains an invalid escape sequence
+	 */
+	String keep(JSONLexer lexer, JSONKeyCache cache) throws JSONSyntaxException {
+		if (set == null) {
+			for (String name : names) {
+				if (lexer.stringIs(name))
+					return allow ? name : null;
+			}
+
+			return allow ? null : decode(lexer, cache);
+		}
+
+		final String key = decode(lexer, cache);
+		return set.contains(key) == allow ? key : null;
+	}
+
+	private static String decode(JSONLexer lexer, JSONKeyCache cache) throws JSONSyntaxException {
+		return cache != null ? lexer.stringValue(cache) : lexer.stringValue();
+	}
+}
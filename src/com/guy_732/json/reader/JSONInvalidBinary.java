@@ -0,0 +1,32 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.exception.JSONException;
+
+/**
+ * Thrown by {@link JSONBinaryParser} when its input is not valid binary JSON
+ *
+ * @author Guy_732
+ */
+public class JSONInvalidBinary extends JSONException {
+	private static final long serialVersionUID = 7710582265312963147L;
+
+	public JSONInvalidBinary() {
+		super();
+	}
+
+	public JSONInvalidBinary(String message) {
+		super(message);
+	}
+
+	public JSONInvalidBinary(Throwable cause) {
+		super(cause);
+	}
+
+	public JSONInvalidBinary(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public JSONInvalidBinary(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+}
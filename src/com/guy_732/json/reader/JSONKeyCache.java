@@ -0,0 +1,193 @@
+package com.guy_732.json.reader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bounded cache of the {@link String Strings} created by the parsers, so that the keys repeated in
+ * many JSONObjects (or short repeated values, such as enumerations) share one instance, see
+ * {@link JSONParser#setKeyCache(JSONKeyCache)}.
+ * <p>
+ * The cache is a direct-mapped table: the characters (or bytes) of a String token are hashed and
+ * compared to the String stored at their slot before any String is created. On a miss, the new String
+ * replaces the one of the slot, so the memory used never grows beyond the capacity. Strings longer
+ * than {@link #getMaxLength() maxLength} are never cached.
+ * <p>
+ * A cache can be shared by several parsers, even on different threads: the slots only hold immutable
+ * Strings. The hit and miss counters are not synchronized, so they are approximate when parsers of
+ * several threads use the same cache.
+ *
+ * @author Guy_732
+ */
+public final class JSONKeyCache {
+	private static final int defaultCapacity = 1 << 10;
+	private static final int defaultMaxLength = 64;
+
+	private final String[] table;
+	private final int mask;
+	private final int maxLength;
+
+	private long hits = 0;
+	private long misses = 0;
+
+	/**
+	 * Construct a new {@link JSONKeyCache} of 1024 Strings of at most 64 characters
+	 */
+	public JSONKeyCache() {
+		this(defaultCapacity, defaultMaxLength);
+	}
+
+	/**
+	 * Construct a new {@link JSONKeyCache}
+	 *
+	 * @param capacity  The number of slots, rounded up to a power of 2
+	 * @param maxLength Length of the longest Strings cached
+	 * @throws IllegalArgumentException if capacity is not between 1 and 2^30 or maxLength is negative
+	 */
+	public JSONKeyCache(int capacity, int maxLength) throws IllegalArgumentException {
+		super();
+		if (capacity <= 0 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("'capacity' must be between 1 and 2^30");
+		}
+
+		if (maxLength < 0) {
+			throw new IllegalArgumentException("'maxLength' cannot be negative");
+		}
+
+		final int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+		this.table = new String[size];
+		this.mask = size - 1;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The number of Strings found in the cache
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The number of Strings created (and stored) because they were not in the cache
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The number of slots of the cache
+	 */
+	public int getCapacity() {
+		return table.length;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return Length of the longest Strings cached
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Set the hit and miss counters back to 0
+	 */
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Remove every String from the cache (the counters are kept)
+	 */
+	public void clear() {
+		for (int i = 0; i < table.length; ++i) {
+			table[i] = null;
+		}
+	}
+
+	/**
+	 * Get the String of some characters
+	 *
+	 * @param chars The characters of the String
+	 * @param off   Index of the first character
+	 * @param len   Number of characters
+	 * @return The cached String equal to the characters, or a new one
+	 */
+	String get(char[] chars, int off, int len) {
+		if (len > maxLength) {
+			return new String(chars, off, len);
+		}
+
+		int h = 0;
+		for (int i = 0; i < len; ++i) {
+			h = 31 * h + chars[off + i];
+		}
+
+		final int slot = slot(h);
+		final String s = table[slot];
+		if (s != null && s.length() == len) {
+			int i = 0;
+			while (i < len && s.charAt(i) == chars[off + i]) {
+				++i;
+			}
+
+			if (i == len) {
+				++hits;
+				return s;
+			}
+		}
+
+		++misses;
+		return table[slot] = new String(chars, off, len);
+	}
+
+	/**
+	 * Get the String of some ASCII bytes (same String as the one of the same characters)
+	 *
+	 * @param bytes The bytes of the String, all lower than 0x80
+	 * @param off   Index of the first byte
+	 * @param len   Number of bytes
+	 * @return The cached String equal to the bytes, or a new one
+	 */
+	String getAscii(byte[] bytes, int off, int len) {
+		if (len > maxLength) {
+			return new String(bytes, off, len, StandardCharsets.ISO_8859_1);
+		}
+
+		int h = 0;
+		for (int i = 0; i < len; ++i) {
+			h = 31 * h + bytes[off + i];
+		}
+
+		final int slot = slot(h);
+		final String s = table[slot];
+		if (s != null && s.length() == len) {
+			int i = 0;
+			while (i < len && s.charAt(i) == bytes[off + i]) {
+				++i;
+			}
+
+			if (i == len) {
+				++hits;
+				return s;
+			}
+		}
+
+		++misses;
+		return table[slot] = new String(bytes, off, len, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * @return The slot of a hash (its high bits mixed in, like {@link java.util.HashMap})
+	 */
+	private int slot(int h) {
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,293 @@
+package com.guy_732.json.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Base class of the JSON lexers used by {@link JSONParser}.
+ * <p>
+ * A lexer splits the input in tokens the same way the {@link java.io.StreamTokenizer} previously used
+ * by the parser did: {@link #TT_WORD words} (made of {@code a-z}, {@code 0-9}, {@code +}, {@code -},
+ * {@code .} and {@code E}), {@link #TT_STRING strings} and single characters (every other
+ * non-whitespace character).
+ * <p>
+ * The content of the current token stays valid until the next call to {@link #nextToken()}, strings
+ * are only decoded when {@link #stringValue()} is called.
+ *
+ * @author Guy_732
+ */
+abstract class JSONLexer implements Closeable {
+	/**
+	 * End of the input reached
+	 */
+	static final int TT_EOF = -1;
+
+	/**
+	 * A word was read (number, null, true, false or garbage)
+	 */
+	static final int TT_WORD = -3;
+
+	/**
+	 * A String was read (the quote character)
+	 */
+	static final int TT_STRING = '"';
+
+	/**
+	 * No token read yet
+	 */
+	static final int TT_NOTHING = -4;
+
+	private static final boolean[] wordChars = new boolean[128];
+
+	static {
+		for (char c = 'a'; c <= 'z'; ++c)
+			wordChars[c] = true;
+		for (char c = '0'; c <= '9'; ++c)
+			wordChars[c] = true;
+		for (char c : new char[]{'+', '-', '.', 'E'})
+			wordChars[c] = true;
+	}
+
+	/**
+	 * Type of the current token (one of the TT_ constants or the character read)
+	 */
+	int ttype = TT_NOTHING;
+
+	/**
+	 * Line of the current token
+	 */
+	int lineno = 1;
+
+	/**
+	 * Characters of the current word (valid when {@code ttype == TT_WORD})
+	 */
+	char[] word;
+	int wordOff;
+	int wordLen;
+
+	boolean cStyleComments = false;
+
+	/**
+	 * Index the whole input before reading the tokens (only used by {@link JSONTapeLexer})
+	 */
+	boolean structuralIndex = false;
+	private boolean pushedBack = false;
+
+	static boolean isWordChar(int c) {
+		return c < 128 && c >= 0 && wordChars[c];
+	}
+
+	/**
+	 * Read the next token
+	 *
+	 * @return the type of the token read (also stored in {@link #ttype})
+	 * @throws IOException         if the underlying source throws
+	 * @throws JSONSyntaxException if a String is not terminated
+	 */
+	final int nextToken() throws IOException, JSONSyntaxException {
+		if (pushedBack) {
+			pushedBack = false;
+			return ttype;
+		}
+
+		return ttype = readToken();
+	}
+
+	/**
+	 * The next call to {@link #nextToken()} will return the current token again.
+	 */
+	final void pushBack() {
+		if (ttype != TT_NOTHING)
+			pushedBack = true;
+	}
+
+	final int lineno() {
+		return lineno;
+	}
+
+	/**
+	 * Read the next token, setting the token content
+	 *
+	 * @return the type of the token
+	 * @throws IOException         if the underlying source throws
+	 * @throws JSONSyntaxException if a String is not terminated
+	 */
+	abstract int readToken() throws IOException, JSONSyntaxException;
+
+	/**
+	 * Check
+	 *
+	 * @return true if the whole input is in memory ({@link #position()} and
+	 * {@link #region(int, int, int)} can be used)
+	 */
+	abstract boolean inMemory();
+
+	/**
+	 * @return Index in the input of the next character to read (only for in-memory inputs)
+	 */
+	abstract int position();
+
+	/**
+	 * Create a lexer over a part of the same in-memory input
+	 *
+	 * @param start Index of the first character
+	 * @param end   Index after the last character
+	 * @param line  Line number at start
+	 * @return The new lexer
+	 */
+	abstract JSONLexer region(int start, int end, int line);
+
+	/**
+	 * Called after reading a `{' or a `[' token, skip everything until the matching `}' or `]' by
+	 * counting the brackets (the content is not checked).
+	 *
+	 * @return false if the end of the input is reached first
+	 * @throws IOException         if the underlying source throws
+	 * @throws JSONSyntaxException if a String is not terminated
+	 */
+	boolean skipContainer() throws IOException, JSONSyntaxException {
+		int depth = 1;
+		while (true) {
+			switch (nextToken()) {
+				case TT_EOF:
+					return false;
+				case '{':
+				case '[':
+					++depth;
+					break;
+				case '}':
+				case ']':
+					if (--depth == 0)
+						return true;
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Decode the current String token
+	 *
+	 * @return The content of the String (escapes resolved)
+	 * @throws JSONSyntaxException if the String contains an invalid escape sequence
+	 */
+	abstract String stringValue() throws JSONSyntaxException;
+
+	/**
+	 * Decode the current String token through a cache, without creating a {@link String} when the
+	 * cache holds it
+	 *
+	 * @param cache The cache to look the String up in (and to store it in)
+	 * @return The content of the String (escapes resolved)
+	 * @throws JSONSyntaxException if the String contains an invalid escape sequence
+	 */
+	abstract String stringValue(JSONKeyCache cache) throws JSONSyntaxException;
+
+	/**
+	 * Compare the current String token to a given String, without decoding it when it has no escape
+	 * sequence
+	 *
+	 * @param s The String to compare to
+	 * @return true if the content of the String token is s
+	 * @throws JSONSyntaxException if the String contains an invalid escape sequence
+	 */
+	abstract boolean stringIs(String s) throws JSONSyntaxException;
+
+	/**
+	 * @return The current word as a {@link String}
+	 */
+	final String wordValue() {
+		return new String(word, wordOff, wordLen);
+	}
+
+	/**
+	 * Compare the current word to a given one without creating a {@link String}
+	 *
+	 * @param s The word to compare to
+	 * @return true if the current word is s
+	 */
+	final boolean wordIs(String s) {
+		if (s.length() != wordLen)
+			return false;
+
+		for (int i = 0; i < wordLen; ++i) {
+			if (word[wordOff + i] != s.charAt(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Decode an escaped String into a char[]
+	 *
+	 * @param src The characters between the quotes
+	 * @param off Offset of the first character
+	 * @param len Number of characters
+	 * @param dst Buffer large enough to store {@code len} characters
+	 * @return The number of characters written into {@code dst}
+	 * @throws JSONSyntaxException On invalid escape sequences
+	 */
+	final int unescape(char[] src, int off, int len, char[] dst) throws JSONSyntaxException {
+		int n = 0;
+		for (int i = off, max = off + len; i < max; ++i) {
+			char c = src[i];
+			if (c != '\\') {
+				dst[n++] = c;
+				continue;
+			}
+
+			c = src[++i];
+			switch (c) {
+				case '"':
+				case '\\':
+				case '/':
+					dst[n++] = c;
+					break;
+				case 'b':
+					dst[n++] = '\b';
+					break;
+				case 'f':
+					dst[n++] = '\f';
+					break;
+				case 'n':
+					dst[n++] = '\n';
+					break;
+				case 'r':
+					dst[n++] = '\r';
+					break;
+				case 't':
+					dst[n++] = '\t';
+					break;
+				case 'u':
+					if (i + 4 >= max)
+						throw invalidEscape("\\u");
+					int value = 0;
+					for (int j = 1; j <= 4; ++j) {
+						int digit = Character.digit(src[i + j], 16);
+						if (digit < 0)
+							throw invalidEscape(new String(src, i - 1, 6));
+						value = (value << 4) | digit;
+					}
+
+					dst[n++] = (char) value;
+					i += 4;
+					break;
+				default:
+					throw invalidEscape("\\" + c);
+			}
+		}
+
+		return n;
+	}
+
+	final JSONSyntaxException invalidEscape(String sequence) {
+		return new JSONSyntaxException(String.format("Invalid escape sequence `%s' in String", sequence),
+				"Expected one of `\\\"', `\\\\', `\\/', `\\b', `\\f', `\\n', `\\r', `\\t' or `\\uXXXX'", lineno);
+	}
+
+	final JSONSyntaxException unterminatedString() {
+		return new JSONSyntaxException("Unterminated String", "Expected `\"' before end of line", lineno);
+	}
+}
@@ -0,0 +1,492 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONValue;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class reads newline-delimited JSON (one value per line, also known as NDJSON or JSON Lines)
+ * with several threads and returns the values as a {@link Stream} with
+ * {@link JSONLinesReader#stream() JSONLinesReader::stream()}.
+ * <p>
+ * The input (encoded in UTF-8) is split in chunks of about {@link #setChunkSize(int) chunkSize}
+ * bytes, ending at a line feed, and the chunks are parsed concurrently on a {@link ForkJoinPool}.
+ * At most {@link #setMaxPendingChunks(int) maxPendingChunks} chunks are parsed ahead of the consumer
+ * of the stream, so the memory used does not depend on the size of the input.
+ * <p>
+ * Empty lines are ignored, a line holding several values (or a value spanning several lines) is a
+ * syntax error.
+ * <p>
+ * The options set on the reader apply to the streams created afterwards, each stream keeps the
+ * options it was created with.
+ *
+ * @author Guy_732
+ */
+public final class JSONLinesReader implements Closeable {
+	private static final int defaultChunkSize = 1 << 20;
+
+	/**
+	 * The input when it is a byte[], null otherwise
+	 */
+	private final byte[] data;
+
+	/**
+	 * The input when it is a file, null otherwise
+	 */
+	private final MappedFile file;
+	private final long length;
+
+	private ForkJoinPool ownPool = null;
+	private ExecutorService pool = ForkJoinPool.commonPool();
+	private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+	private int chunkSize = defaultChunkSize;
+	private int maxPendingChunks = -1;
+	private boolean ordered = true;
+	private final JSONParserOptions options = new JSONParserOptions();
+
+	/**
+	 * Construct a new {@link JSONLinesReader}
+	 *
+	 * @param utf8 The byte[] storing the JSON data (encoded in UTF-8)
+	 * @throws NullPointerException If 'utf8' is null
+	 */
+	public JSONLinesReader(byte[] utf8) throws NullPointerException {
+		this(utf8.clone(), null);
+	}
+
+	private JSONLinesReader(byte[] data, MappedFile file) {
+		super();
+		this.data = data;
+		this.file = file;
+		this.length = data != null ? data.length : file.size();
+	}
+
+	/**
+	 * Creates a new {@link JSONLinesReader} reading a UTF-8 encoded file mapped in memory
+	 *
+	 * @param file The file to read
+	 * @return The reader, to close after use
+	 * @throws NullPointerException If 'file' is null
+	 * @throws IOException          If the file cannot be opened or mapped
+	 */
+	public static JSONLinesReader open(Path file) throws NullPointerException, IOException {
+		return new JSONLinesReader(null, new MappedFile(Objects.requireNonNull(file)));
+	}
+
+	/**
+	 * Set the number of threads parsing the chunks, the common {@link ForkJoinPool} is used by
+	 * default.
+	 *
+	 * @param threads The number of threads, 0 to use the common {@link ForkJoinPool}
+	 * @throws IllegalArgumentException if threads is negative
+	 */
+	public void setParallelism(int threads) throws IllegalArgumentException {
+		if (threads < 0) {
+			throw new IllegalArgumentException("'threads' cannot be negative");
+		}
+
+		shutdownPool();
+		if (threads == 0) {
+			pool = ForkJoinPool.commonPool();
+			parallelism = ForkJoinPool.getCommonPoolParallelism();
+		} else {
+			ownPool = new ForkJoinPool(threads);
+			pool = ownPool;
+			parallelism = threads;
+		}
+	}
+
+	/**
+	 * Set the size of the chunks (1 MiB by default), a chunk holds at least one line
+	 *
+	 * @param bytes The minimum number of bytes of a chunk
+	 * @throws IllegalArgumentException if bytes is not positive
+	 */
+	public void setChunkSize(int bytes) throws IllegalArgumentException {
+		if (bytes <= 0) {
+			throw new IllegalArgumentException("'bytes' must be positive");
+		}
+
+		chunkSize = bytes;
+	}
+
+	/**
+	 * Set the number of chunks parsed ahead of the consumer of the stream (twice the parallelism by
+	 * default)
+	 *
+	 * @param chunks The maximum number of chunks being parsed or waiting to be consumed
+	 * @throws IllegalArgumentException if chunks is not positive
+	 */
+	public void setMaxPendingChunks(int chunks) throws IllegalArgumentException {
+		if (chunks <= 0) {
+			throw new IllegalArgumentException("'chunks' must be positive");
+		}
+
+		maxPendingChunks = chunks;
+	}
+
+	/**
+	 * Enable/Disable the order of the stream. Enabled by default: the values come in the order of the
+	 * input. When disabled, the values of the chunks come as soon as the chunks are parsed (the
+	 * values of a chunk stay in order).
+	 *
+	 * @param flag whether the stream keeps the order of the input
+	 */
+	public void setOrdered(boolean flag) {
+		ordered = flag;
+	}
+
+	/**
+	 * Enable/Disable packed arrays
+	 *
+	 * @param flag whether homogeneous numeric arrays are packed
+	 * @see JSONParser#setPackedArrays(boolean)
+	 */
+	public void setPackedArrays(boolean flag) {
+		options.packArrays = flag;
+	}
+
+	/**
+	 * Set the filter of the members of the JSONObjects (shared by the parsers of every chunk)
+	 *
+	 * @param filter The allow-list or deny-list of the keys, null to keep every member
+	 * @see JSONParser#setFieldFilter(JSONFieldFilter)
+	 */
+	public void setFieldFilter(JSONFieldFilter filter) {
+		options.fieldFilter = filter;
+	}
+
+	/**
+	 * Start parsing the input from the beginning
+	 * <p>
+	 * Syntax errors are thrown as {@link JSONSyntaxException JSONSyntaxExceptions} by the terminal
+	 * operation of the stream (once the values of the lines before the error are consumed when the
+	 * stream is ordered), I/O errors as {@link UncheckedIOException UncheckedIOExceptions}.
+	 *
+	 * @return The values of the input, closing the stream stops the parsing of the next chunks
+	 */
+	public Stream<JSONValue> stream() {
+		final Chunks chunks = new Chunks();
+		final int characteristics = Spliterator.NONNULL | (ordered ? Spliterator.ORDERED : 0);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, characteristics), false)
+				.onClose(chunks::cancel);
+	}
+
+	@Override
+	public void close() throws IOException {
+		shutdownPool();
+		if (file != null) {
+			file.close();
+		}
+	}
+
+	private void shutdownPool() {
+		if (ownPool != null) {
+			ownPool.shutdown();
+			ownPool = null;
+		}
+	}
+
+	private byte byteAt(long position) {
+		return data != null ? data[(int) position] : file.get(position);
+	}
+
+	/**
+	 * @return The position after the line feed ending the chunk starting at start
+	 */
+	private long chunkEnd(long start, int size) {
+		long end = Math.min(length, start + size);
+		while (end < length && byteAt(end - 1) != '\n') {
+			++end;
+		}
+
+		return end;
+	}
+
+	/**
+	 * @return The number of lines of a chunk (counted like the lexers do)
+	 */
+	private static long countLines(byte[] b, int off, int len) {
+		final int end = off + len;
+		long lines = 0;
+		for (int i = off; i < end; ++i) {
+			final byte c = b[i];
+			if (c == '\n' || (c == '\r' && (i + 1 == end || b[i + 1] != '\n'))) {
+				++lines;
+			}
+		}
+
+		return lines;
+	}
+
+	/**
+	 * Parse the lines of a chunk
+	 */
+	private Chunk parseChunk(long start, long end, JSONParserOptions options) {
+		final int len = (int) (end - start);
+		final byte[] b;
+		final int off;
+		if (data != null) {
+			b = data;
+			off = (int) start;
+		} else {
+			b = new byte[len];
+			file.copy(start, b, 0, len);
+			off = 0;
+		}
+
+		// the byte order mark can only be at the start of the input
+		final JSONUTF8Lexer lexer = start == 0 ? new JSONUTF8Lexer(b, off, len) : new JSONUTF8Lexer(b, off, len, 1);
+		final JSONParser parser = new JSONParser(lexer);
+		parser.copyOptions(options);
+
+		final ArrayList<JSONValue> values = new ArrayList<>();
+		int lastLine = 0;
+		try {
+			while (lexer.nextToken() != JSONLexer.TT_EOF) {
+				final int line = lexer.lineno();
+				if (line == lastLine) {
+					values.remove(values.size() - 1); // the line is invalid
+					throw new JSONSyntaxException("Several values on the same line", "Expected one value per line", line);
+				}
+
+				lexer.pushBack();
+				JSONValue value = null;
+				try {
+					value = parser.parse();
+				} catch (JSONSyntaxException | EOFException e) {
+					// the value may go on in the next chunk, the error depends on the size of the chunks
+					if (lexer.lineno() == line) {
+						throw e;
+					}
+				}
+
+				if (lexer.lineno() != line) {
+					throw new JSONSyntaxException("Value spanning several lines", "Expected one value per line", line);
+				}
+
+				values.add(value);
+				lastLine = line;
+			}
+		} catch (JSONSyntaxException e) {
+			// the lines of the previous chunks are added by the consumer of the stream
+			return new Chunk(values, countLines(b, off, len), e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return new Chunk(values, lexer.lineno() - 1, null);
+	}
+
+	/**
+	 * The result of the parsing of a chunk
+	 */
+	private static final class Chunk {
+		final List<JSONValue> values;
+
+		/**
+		 * Number of lines of the chunk
+		 */
+		final long lines;
+
+		/**
+		 * The syntax error ending the chunk, at its line in the chunk, null if there is none
+		 */
+		final JSONSyntaxException error;
+
+		Chunk(List<JSONValue> values, long lines, JSONSyntaxException error) {
+			super();
+			this.values = values;
+			this.lines = lines;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * A chunk submitted to the pool
+	 */
+	private static final class Pending {
+		final CompletableFuture<Chunk> chunk;
+
+		/**
+		 * Number of lines before the chunk, known once the previous chunks are parsed
+		 */
+		final CompletableFuture<Long> linesBefore;
+
+		Pending(CompletableFuture<Chunk> chunk, CompletableFuture<Long> linesBefore) {
+			super();
+			this.chunk = chunk;
+			this.linesBefore = linesBefore;
+		}
+	}
+
+	/**
+	 * Iterator over the values, submitting the chunks to the pool as they are consumed
+	 */
+	private final class Chunks implements Iterator<JSONValue> {
+		private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+		/**
+		 * The completed chunks, when the stream is not ordered
+		 */
+		private final LinkedBlockingQueue<Pending> completed = new LinkedBlockingQueue<>();
+		private final int maxPending = maxPendingChunks > 0 ? maxPendingChunks : 2 * parallelism;
+		private final boolean inOrder = ordered;
+		private final ExecutorService executor = pool;
+		private final int size = chunkSize;
+
+		/**
+		 * The options of the reader when the stream was created
+		 */
+		private final JSONParserOptions parserOptions = new JSONParserOptions(options);
+
+		private long next = 0;
+
+		/**
+		 * Number of lines before the next chunk to submit
+		 */
+		private CompletableFuture<Long> linesBefore = CompletableFuture.completedFuture(0L);
+		private List<JSONValue> values = null;
+		private int index = 0;
+
+		/**
+		 * Error to throw once the values before it are consumed (ordered streams only)
+		 */
+		private JSONSyntaxException error = null;
+		private volatile boolean cancelled = false;
+
+		Chunks() {
+			super();
+			submit();
+		}
+
+		/**
+		 * Submit chunks until maxPending chunks are pending
+		 */
+		private void submit() {
+			while (pending.size() < maxPending && next < length && !cancelled) {
+				final long start = next;
+				final long end = chunkEnd(start, size);
+				final CompletableFuture<Chunk> future;
+				if (end - start > Integer.MAX_VALUE) {
+					next = length; // the end of the line cannot be parsed
+					future = CompletableFuture.completedFuture(new Chunk(new ArrayList<>(), 0,
+							new JSONSyntaxException("Line too long", "Lines must be shorter than 2 GiB", 1)));
+				} else {
+					next = end;
+					future = CompletableFuture.supplyAsync(() -> cancelled ? null : parseChunk(start, end, parserOptions), executor);
+				}
+
+				final Pending chunk = new Pending(future, linesBefore);
+				linesBefore = linesBefore.thenCombine(future, (lines, c) -> c != null ? lines + c.lines : lines);
+				if (!inOrder) {
+					future.whenComplete((r, e) -> completed.add(chunk));
+				}
+
+				pending.add(chunk);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (values == null || index == values.size()) {
+				if (error != null) {
+					final JSONSyntaxException e = error;
+					error = null;
+					cancel();
+					throw e;
+				}
+
+				if (pending.isEmpty()) {
+					return false;
+				}
+
+				values = take();
+				index = 0;
+				submit();
+			}
+
+			return true;
+		}
+
+		@Override
+		public JSONValue next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			return values.get(index++);
+		}
+
+		private List<JSONValue> take() {
+			Pending chunk;
+			if (inOrder) {
+				chunk = pending.poll();
+			} else {
+				try {
+					chunk = completed.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					cancel();
+					throw new CompletionException(e);
+				}
+
+				pending.remove(chunk);
+			}
+
+			final Chunk result = join(chunk.chunk);
+			if (result.error != null) {
+				// only the errors wait for the previous chunks
+				final JSONSyntaxException e = result.error.shifted(join(chunk.linesBefore));
+				if (!inOrder || result.values.isEmpty()) {
+					cancel();
+					throw e;
+				}
+
+				// the values of the lines before the error come first
+				error = e;
+				cancel();
+			}
+
+			return result.values;
+		}
+
+		private <T> T join(CompletableFuture<T> future) {
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				cancel();
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+
+				throw e;
+			}
+		}
+
+		void cancel() {
+			cancelled = true;
+			pending.clear();
+			values = null;
+		}
+	}
+}
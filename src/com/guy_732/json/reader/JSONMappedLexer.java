@@ -0,0 +1,378 @@
+package com.guy_732.json.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * {@link JSONLexer} scanning the UTF-8 encoded bytes of a {@link MappedFile} in place: the windows
+ * of the mapping are read directly, the bytes are never copied to a buffer of the heap. A token may
+ * span two windows, the scan goes on in the next window.
+ * <p>
+ * Only the bytes of the Strings are copied, when they are decoded. When the file fits in a single
+ * window, the whole input is in memory: lazy parsing can be used, the deferred values keep the
+ * mapping reachable (it is never released explicitly, see {@link MappedFile}).
+ *
+ * @author Guy_732
+ */
+final class JSONMappedLexer extends JSONLexer {
+	private final MappedFile file;
+
+	/**
+	 * Position in the file after the last byte to read
+	 */
+	private final long end;
+
+	/**
+	 * true for the lexer over the whole file (the one closing it), false for the regions
+	 */
+	private final boolean owner;
+
+	private ByteBuffer window;
+
+	/**
+	 * Position in the file of the first byte of {@link #window}
+	 */
+	private long base;
+	private int pos;
+	private int limit;
+
+	private long strStart;
+	private int strLen;
+	private boolean strEscaped;
+	private boolean strAscii;
+	private byte[] bytes = new byte[64];
+	private char[] scratch = new char[64];
+
+	/**
+	 * Construct a lexer over a whole file, skipping its byte order mark
+	 *
+	 * @param file The file to read, closed with the lexer
+	 */
+	JSONMappedLexer(MappedFile file) {
+		this(file, byteOrderMarkLength(file), file.size(), 1, true);
+	}
+
+	private JSONMappedLexer(MappedFile file, long start, long end, int line, boolean owner) {
+		super();
+		this.file = file;
+		this.end = end;
+		this.owner = owner;
+		this.word = new char[64];
+		this.lineno = line;
+		this.base = start;
+		if (start < end)
+			load(start);
+	}
+
+	private static int byteOrderMarkLength(MappedFile file) {
+		if (file.size() >= 3 && file.get(0) == (byte) 0xEF && file.get(1) == (byte) 0xBB && file.get(2) == (byte) 0xBF)
+			return 3;
+		return 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		if (owner)
+			file.close();
+	}
+
+	/**
+	 * Make the window holding a position the current one
+	 */
+	private void load(long position) {
+		final int bits = file.windowBits();
+		final int index = (int) (position >>> bits);
+		window = file.window(index);
+		base = (long) index << bits;
+		pos = (int) (position - base);
+		limit = (int) Math.min(window.limit(), end - base);
+	}
+
+	/**
+	 * Called when the current window is exhausted
+	 *
+	 * @return false if the end of the input is reached
+	 */
+	private boolean nextWindow() {
+		final long next = base + limit;
+		if (next >= end)
+			return false;
+
+		load(next);
+		return true;
+	}
+
+	@Override
+	boolean inMemory() {
+		return file.size() <= 1L << file.windowBits();
+	}
+
+	@Override
+	int position() {
+		if (!inMemory())
+			throw new IllegalStateException("The positions of a file larger than a window do not fit in an int");
+		return (int) (base + pos);
+	}
+
+	@Override
+	JSONLexer region(int start, int end, int line) {
+		return new JSONMappedLexer(file, start, end, line, false);
+	}
+
+	@Override
+	boolean skipContainer() throws IOException, JSONSyntaxException {
+		if (cStyleComments)
+			return super.skipContainer();
+
+		int depth = 1;
+		boolean inString = false;
+		boolean escape = false;
+		while (pos < limit || nextWindow()) {
+			final byte c = window.get(pos++);
+			if (inString) {
+				if (escape)
+					escape = false;
+				else if (c == '\\')
+					escape = true;
+				else if (c == '"')
+					inString = false;
+				else if (c == '\n' || c == '\r')
+					throw unterminatedString();
+				continue;
+			}
+
+			switch (c) {
+				case '"':
+					inString = true;
+					break;
+				case '{':
+				case '[':
+					++depth;
+					break;
+				case '}':
+				case ']':
+					if (--depth == 0) {
+						ttype = c;
+						return true;
+					}
+					break;
+				case '\n':
+					++lineno;
+					break;
+				case '\r':
+					++lineno;
+					if ((pos < limit || nextWindow()) && window.get(pos) == '\n')
+						++pos;
+					break;
+				default:
+					break;
+			}
+		}
+
+		if (inString)
+			throw unterminatedString();
+		return false;
+	}
+
+	@Override
+	int readToken() throws IOException, JSONSyntaxException {
+		int c;
+		while (true) {
+			if (pos == limit && !nextWindow())
+				return TT_EOF;
+
+			c = window.get(pos++) & 0xFF;
+			switch (c) {
+				case ' ':
+				case '\t':
+					continue;
+				case '\n':
+					++lineno;
+					continue;
+				case '\r':
+					++lineno;
+					if ((pos < limit || nextWindow()) && window.get(pos) == '\n')
+						++pos;
+					continue;
+				case '/':
+					if (cStyleComments && skipComment())
+						continue;
+					return c;
+				case '"':
+					scanString();
+					return TT_STRING;
+				default:
+					if (isWordChar(c)) {
+						scanWord(c);
+						return TT_WORD;
+					}
+
+					return c;
+			}
+		}
+	}
+
+	/**
+	 * Called after reading a '/', skip the comment if there is one.
+	 *
+	 * @return false if the '/' does not start a comment
+	 */
+	private boolean skipComment() {
+		if (pos == limit && !nextWindow())
+			return false;
+
+		byte c = window.get(pos);
+		if (c == '/') {
+			while (true) {
+				if (pos == limit && !nextWindow())
+					return true;
+
+				c = window.get(pos);
+				if (c == '\n' || c == '\r')
+					return true;
+				++pos;
+			}
+		}
+
+		if (c != '*')
+			return false;
+
+		++pos;
+		byte prev = 0;
+		while (true) {
+			if (pos == limit && !nextWindow())
+				return true;
+
+			c = window.get(pos++);
+			if (c == '/' && prev == '*')
+				return true;
+
+			if (c == '\n' || (c == '\r' && (pos == limit && !nextWindow() || window.get(pos) != '\n')))
+				++lineno;
+			prev = c;
+		}
+	}
+
+	private void scanWord(int first) {
+		// words are ASCII, widen them for the number decoder
+		word[0] = (char) first;
+		int len = 1;
+		while (pos < limit || nextWindow()) {
+			final byte c = window.get(pos);
+			if (!isWordChar(c))
+				break;
+
+			if (len == word.length)
+				word = Arrays.copyOf(word, len * 2);
+			word[len++] = (char) c;
+			++pos;
+		}
+
+		wordOff = 0;
+		wordLen = len;
+	}
+
+	private void scanString() throws JSONSyntaxException {
+		final long start = base + pos;
+		boolean escaped = false;
+		int bits = 0;
+		while (true) {
+			if (pos == limit && !nextWindow())
+				throw unterminatedString();
+
+			final byte c = window.get(pos);
+			if (c == '"')
+				break;
+			if (c == '\n' || c == '\r')
+				throw unterminatedString();
+
+			++pos;
+			bits |= c;
+			if (c == '\\') {
+				escaped = true;
+				if (pos == limit && !nextWindow())
+					throw unterminatedString();
+				bits |= window.get(pos++);
+			}
+		}
+
+		final long len = base + pos - start;
+		if (len > Integer.MAX_VALUE - 8)
+			throw new JSONSyntaxException("String too long", null, lineno);
+
+		strStart = start;
+		strLen = (int) len;
+		strEscaped = escaped;
+		strAscii = bits >= 0;
+		++pos;
+	}
+
+	/**
+	 * Copy the bytes of the current String token to {@link #bytes}
+	 */
+	private void copyString() {
+		if (bytes.length < strLen)
+			bytes = new byte[Math.max(strLen, bytes.length * 2)];
+		file.copy(strStart, bytes, 0, strLen);
+	}
+
+	/**
+	 * Decode the bytes of the current String token (copied to {@link #bytes}) into {@link #scratch}
+	 *
+	 * @return the number of chars decoded
+	 */
+	private int decodeString() throws JSONSyntaxException {
+		if (scratch.length < strLen)
+			scratch = new char[Math.max(strLen, scratch.length * 2)];
+
+		int n;
+		if (strAscii) {
+			for (int i = 0; i < strLen; ++i)
+				scratch[i] = (char) bytes[i];
+			n = strLen;
+		} else {
+			n = JSONUTF8Lexer.decodeUTF8(bytes, 0, strLen, scratch);
+		}
+
+		if (strEscaped)
+			n = unescape(scratch, 0, n, scratch);
+		return n;
+	}
+
+	@Override
+	String stringValue() throws JSONSyntaxException {
+		copyString();
+		if (!strEscaped)
+			return new String(bytes, 0, strLen, strAscii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+
+		return new String(scratch, 0, decodeString());
+	}
+
+	@Override
+	String stringValue(JSONKeyCache cache) throws JSONSyntaxException {
+		copyString();
+		if (!strEscaped && strAscii)
+			return cache.getAscii(bytes, 0, strLen);
+
+		return cache.get(scratch, 0, decodeString());
+	}
+
+	@Override
+	boolean stringIs(String s) throws JSONSyntaxException {
+		if (strEscaped || !strAscii)
+			return stringValue().equals(s);
+
+		if (s.length() != strLen)
+			return false;
+
+		for (int i = 0; i < strLen; ++i) {
+			if (file.get(strStart + i) != s.charAt(i))
+				return false;
+		}
+
+		return true;
+	}
+}
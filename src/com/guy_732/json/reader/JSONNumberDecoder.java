@@ -0,0 +1,193 @@
+package com.guy_732.json.reader;
+
+/**
+ * Decode the numbers of the JSON grammar (RFC 8259) directly from characters.
+ * <p>
+ * Integers fitting in a long are decoded as longs, everything else as a correctly rounded double:
+ * short decimals are computed exactly from their digits, the rest is delegated to
+ * {@link Double#parseDouble(String)}. As with {@link Double#parseDouble(String)}, the numbers beyond
+ * the range of a double are decoded as infinities ({@code 1e400}) and zeros ({@code 1e-400}): they are
+ * valid JSON numbers, an infinity is then rejected by {@link com.guy_732.json.writer.JSONWriter} unless
+ * its {@link com.guy_732.json.writer.JSONNonFinitePolicy} allows it.
+ * <p>
+ * The result of the last successful call to {@link #decode(char[], int, int)} is stored in the
+ * fields of the decoder, which can be reused for any number of calls.
+ *
+ * @author Guy_732
+ */
+final class JSONNumberDecoder {
+	/**
+	 * Powers of ten exactly representable as doubles
+	 */
+	private static final double[] powersOfTen = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Above this number of significant digits, the mantissa may not be exact as a double
+	 */
+	private static final int maxExactDigits = 15;
+
+	/**
+	 * true if the last number decoded is an integer fitting in a long ({@link #longValue} is set),
+	 * false if it is a double ({@link #doubleValue} is set)
+	 */
+	boolean integer;
+	long longValue;
+	double doubleValue;
+
+	/**
+	 * Decode a number
+	 *
+	 * @param b   Buffer containing the number
+	 * @param off Index of the first character of the number
+	 * @param len Number of characters
+	 * @return false if the characters are not a valid JSON number
+	 */
+	boolean decode(char[] b, int off, int len) {
+		final int end = off + len;
+		int i = off;
+		if (i == end)
+			return false;
+
+		final boolean negative = b[i] == '-';
+		if (negative && ++i == end)
+			return false;
+
+		// integer part
+		final int intStart = i;
+		char c = b[i];
+		if (c == '0') {
+			++i;
+		} else if (c >= '1' && c <= '9') {
+			do {
+				++i;
+			} while (i < end && isDigit(b[i]));
+		} else {
+			return false;
+		}
+
+		final int intEnd = i;
+		if (i == end)
+			return decodeInteger(b, off, len, negative, intStart, intEnd);
+
+		// fraction
+		int fracStart = i, fracEnd = i;
+		if (b[i] == '.') {
+			fracStart = ++i;
+			while (i < end && isDigit(b[i]))
+				++i;
+			fracEnd = i;
+			if (fracStart == fracEnd)
+				return false;
+		}
+
+		// exponent
+		int exponent = 0;
+		if (i < end) {
+			c = b[i];
+			if (c != 'e' && c != 'E')
+				return false;
+			if (++i == end)
+				return false;
+
+			boolean negativeExponent = false;
+			c = b[i];
+			if (c == '-' || c == '+') {
+				negativeExponent = c == '-';
+				if (++i == end)
+					return false;
+			}
+
+			final int expStart = i;
+			while (i < end && isDigit(b[i])) {
+				// larger exponents only matter for the fallback
+				if (exponent < 100000)
+					exponent = exponent * 10 + (b[i] - '0');
+				++i;
+			}
+
+			if (i != end || expStart == i)
+				return false;
+			if (negativeExponent)
+				exponent = -exponent;
+		}
+
+		decodeDouble(b, off, len, negative, intStart, intEnd, fracStart, fracEnd, exponent);
+		return true;
+	}
+
+	private boolean decodeInteger(char[] b, int off, int len, boolean negative, int start, int end) {
+		// accumulate negatively to reach Long.MIN_VALUE (as Long.parseLong does)
+		final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		final long multMin = limit / 10;
+		long result = 0;
+		for (int i = start; i < end; ++i) {
+			int digit = b[i] - '0';
+			if (result < multMin || (result *= 10) < limit + digit) {
+				// does not fit in a long
+				decodeDouble(b, off, len, negative, start, end, end, end, 0);
+				return true;
+			}
+
+			result -= digit;
+		}
+
+		integer = true;
+		longValue = negative ? result : -result;
+		return true;
+	}
+
+	private void decodeDouble(char[] b, int off, int len, boolean negative, int intStart, int intEnd,
+							  int fracStart, int fracEnd, int exponent) {
+		integer = false;
+
+		long mantissa = 0;
+		int digits = 0;
+		int exp10 = exponent;
+		boolean exact = true;
+		for (int i = intStart; i < intEnd; ++i) {
+			int digit = b[i] - '0';
+			if (digits < maxExactDigits) {
+				mantissa = mantissa * 10 + digit;
+				if (mantissa != 0)
+					++digits;
+			} else {
+				++exp10;
+				exact &= digit == 0;
+			}
+		}
+
+		for (int i = fracStart; i < fracEnd; ++i) {
+			int digit = b[i] - '0';
+			if (digits < maxExactDigits) {
+				mantissa = mantissa * 10 + digit;
+				if (mantissa != 0)
+					++digits;
+				--exp10;
+			} else {
+				exact &= digit == 0;
+			}
+		}
+
+		if (mantissa == 0) {
+			doubleValue = negative ? -0.0 : 0.0;
+			return;
+		}
+
+		if (exact && exp10 >= -22 && exp10 <= 22) {
+			// both operands are exact doubles, the single rounding is correct
+			double value = (double) mantissa;
+			value = exp10 < 0 ? value / powersOfTen[-exp10] : value * powersOfTen[exp10];
+			doubleValue = negative ? -value : value;
+			return;
+		}
+
+		doubleValue = Double.parseDouble(new String(b, off, len));
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+}
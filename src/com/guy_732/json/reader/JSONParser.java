@@ -3,22 +3,46 @@ package com.guy_732.json.reader;
 import com.guy_732.json.*;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
-import java.util.Scanner;
 
 /**
  * This class parse JSON data with the method {@link JSONParser#parse()
  * JSONParser::parse()} and returns a {@link JSONValue}
+ * <p>
+ * The integers fitting in a long are {@link JSONInteger JSONIntegers}, the other numbers are
+ * {@link JSONNumber JSONNumbers} holding the nearest double (an infinity for the numbers too large
+ * for a double, such as {@code 1e400}).
  *
  * @author Guy_732
  */
 public class JSONParser implements Closeable {
 	private static final String expectedTokens = "expected tokens: `null', `false', `true', `\"', `[', `{' or number";
 
-	private final StreamTokenizer tokenizer;
-	private final Reader underlyingReader;
+	private final JSONLexer lexer;
+	private final JSONNumberDecoder numbers = new JSONNumberDecoder();
 
 	private boolean closed = false;
+	private boolean packArrays = true;
+	private boolean lazy = false;
+	private JSONKeyCache keyCache = null;
+	private JSONKeyCache valueCache = null;
+	private boolean mutableNumbers = false;
+	private JSONFieldFilter fieldFilter = null;
+
+	/**
+	 * Snapshot of the options above, null when one of them was changed since it was taken
+	 */
+	private JSONParserOptions options = null;
+
+	/**
+	 * Number of containers around the value being parsed
+	 */
+	private int depth = 0;
 
 	/**
 	 * Construct a new {@link JSONParser}
@@ -27,19 +51,35 @@ public class JSONParser implements Closeable {
 	 * @throws NullPointerException If the given {@link Reader} is null
 	 */
 	public JSONParser(Reader reader) throws NullPointerException {
-		this.underlyingReader = Objects.requireNonNull(reader);
-		this.tokenizer = new StreamTokenizer(reader);
-		initializeTokenizer();
+		this(new JSONCharLexer(Objects.requireNonNull(reader)));
 	}
 
 	/**
-	 * Construct a new {@link JSONParser}
+	 * Construct a new {@link JSONParser} reading UTF-8 encoded data (the encoding of RFC 8259, and the one
+	 * written by {@link com.guy_732.json.writer.JSONWriter#JSONWriter(java.io.OutputStream)}), regardless of the platform's default
+	 * charset. The bytes are scanned directly and only the content of the Strings is decoded.
 	 *
 	 * @param stream The stream to read from
 	 * @throws NullPointerException if stream is null
+	 * @see #JSONParser(InputStream, Charset)
 	 */
 	public JSONParser(InputStream stream) throws NullPointerException {
-		this(new InputStreamReader(stream));
+		this(new JSONUTF8Lexer(Objects.requireNonNull(stream)));
+	}
+
+	/**
+	 * Construct a new {@link JSONParser} decoding the stream with a given {@link Charset}
+	 * <p>
+	 * With {@link StandardCharsets#UTF_8 UTF-8}, the bytes are scanned directly and only the content of
+	 * the Strings is decoded.
+	 *
+	 * @param stream  The stream to read from
+	 * @param charset The encoding of the stream
+	 * @throws NullPointerException if stream or charset is null
+	 */
+	public JSONParser(InputStream stream, Charset charset) throws NullPointerException {
+		this(StandardCharsets.UTF_8.equals(charset) ? new JSONUTF8Lexer(Objects.requireNonNull(stream))
+				: new JSONCharLexer(new InputStreamReader(stream, charset)));
 	}
 
 	/**
@@ -49,7 +89,7 @@ public class JSONParser implements Closeable {
 	 * @throws NullPointerException If 's' is null
 	 */
 	public JSONParser(String s) throws NullPointerException {
-		this(new StringReader(s));
+		this(new JSONCharLexer(s.toCharArray(), 0, s.length())); // already a fresh copy
 	}
 
 	/**
@@ -59,27 +99,47 @@ public class JSONParser implements Closeable {
 	 * @throws NullPointerException If 'value' is null
 	 */
 	public JSONParser(char[] value) throws NullPointerException {
-		this(String.copyValueOf(value));
+		this(new JSONCharLexer(value.clone(), 0, value.length));
 	}
 
-	private void initializeTokenizer() {
-		final char[] allWhitespace = new char[]{' ', '\t', '\n', '\r'};
-		final char[] extraWordChars = new char[]{'+', '-', '.', 'E'};
-		StreamTokenizer t = tokenizer;
-		t.resetSyntax();
-		t.eolIsSignificant(false);
-
-		for (char c : allWhitespace)
-			t.whitespaceChars(c, c);
-
-		t.wordChars('a', 'z');
-		t.wordChars('0', '9');
-		for (char c : extraWordChars)
-			t.wordChars(c, c);
+	/**
+	 * Creates a new {@link JSONParser} over UTF-8 encoded data
+	 *
+	 * @param utf8 The byte[] storing the JSON data (encoded in UTF-8)
+	 * @throws NullPointerException If 'utf8' is null
+	 */
+	public JSONParser(byte[] utf8) throws NullPointerException {
+		this(new JSONTapeLexer(utf8.clone(), 0, utf8.length));
+	}
 
-		t.quoteChar('"');
+	/**
+	 * Creates a new {@link JSONParser} reading a UTF-8 encoded file through memory
+	 * mappings (of at most 1 GiB each, so files of any size can be read).
+	 * <p>
+	 * The bytes are scanned in place in the mappings, they are not copied to a
+	 * buffer (only the bytes of the Strings are, when they are decoded). When the
+	 * file fits in a single mapping, {@link #setLazy(boolean) lazy parsing} can be
+	 * used.
+	 * <p>
+	 * Closing the parser closes the file, the mappings are released by the garbage
+	 * collector once neither the parser nor the deferred values are reachable.
+	 *
+	 * @param file The file to read
+	 * @return The parser, to close after use
+	 * @throws NullPointerException If 'file' is null
+	 * @throws IOException          If the file cannot be opened
+	 */
+	public static JSONParser open(Path file) throws NullPointerException, IOException {
+		return new JSONParser(new JSONMappedLexer(new MappedFile(Objects.requireNonNull(file))));
+	}
 
-		supportCStyleComment(false);
+	/**
+	 * Creates a new {@link JSONParser} reading the tokens of a given {@link JSONLexer}
+	 *
+	 * @param lexer The lexer to read from
+	 */
+	JSONParser(JSONLexer lexer) {
+		this.lexer = lexer;
 	}
 
 	@Override
@@ -88,7 +148,7 @@ public class JSONParser implements Closeable {
 			return;
 
 		closed = true;
-		underlyingReader.close();
+		lexer.close();
 	}
 
 	private void ensureOpen() throws IOException {
@@ -103,162 +163,433 @@ public class JSONParser implements Closeable {
 	 * @param flag whether C-Style comments are enabled or not
 	 */
 	public void supportCStyleComment(boolean flag) {
-		tokenizer.slashStarComments(flag);
-		tokenizer.slashSlashComments(flag);
+		lexer.cStyleComments = flag;
+	}
+
+	/**
+	 * Enable/Disable the structural index: the whole input is first scanned 8
+	 * bytes at a time to record the position of every token, the tokens are
+	 * then read from this index. Disabled by default.
+	 * <p>
+	 * Only used with the byte[] constructor, and when C-style comments are
+	 * disabled. Must be set before parsing. The result is the same, but the index
+	 * only pays off when it is read several times (lazy parsing of deeply nested
+	 * data, skipped values): on a single pass it is slower than the direct scan.
+	 *
+	 * @param flag whether the input is indexed first
+	 */
+	public void setStructuralIndex(boolean flag) {
+		lexer.structuralIndex = flag;
+	}
+
+	/**
+	 * Enable/Disable packed arrays: arrays containing only integers (or only
+	 * floating point numbers) are stored in a long[] (or a double[]), see
+	 * {@link JSONArray#ofLongs(long[], int, int)}. Enabled by default.
+	 *
+	 * @param flag whether homogeneous numeric arrays are packed
+	 */
+	public void setPackedArrays(boolean flag) {
+		packArrays = flag;
+		options = null;
+	}
+
+	/**
+	 * Enable/Disable lazy parsing: the JSONObjects and JSONArrays nested in the
+	 * parsed value are only located (by counting the brackets) and parsed the
+	 * first time they are accessed, see {@link JSONObject#deferred(JSONDeferred)}.
+	 * Disabled by default.
+	 * <p>
+	 * Only used when the input is in memory (String, char[] or byte[]
+	 * constructors, {@link #open(Path)} for files of at most 1 GiB), ignored
+	 * otherwise. The deferred values keep a reference to
+	 * the input, and syntax errors inside them are only thrown when they are
+	 * accessed.
+	 *
+	 * @param flag whether nested values are parsed on demand
+	 */
+	public void setLazy(boolean flag) {
+		lazy = flag && lexer.inMemory();
+	}
+
+	/**
+	 * Set the cache the keys of the JSONObjects are looked up in, so that the keys repeated in many
+	 * JSONObjects share one {@link String}. Disabled (null) by default.
+	 *
+	 * @param cache The cache of the keys (may be shared with other parsers), null to create a new
+	 *              String for every key
+	 */
+	public void setKeyCache(JSONKeyCache cache) {
+		keyCache = cache;
+		options = null;
+	}
+
+	/**
+	 * Set the cache the String values are looked up in, for inputs repeating short values (such as
+	 * enumerations). Disabled (null) by default.
+	 *
+	 * @param cache The cache of the String values (may be the key cache), null to create a new String
+	 *              for every value
+	 * @see #setKeyCache(JSONKeyCache)
+	 */
+	public void setValueCache(JSONKeyCache cache) {
+		valueCache = cache;
+		options = null;
+	}
+
+	/**
+	 * Enable/Disable mutable numbers. Disabled by default: the {@link JSONInteger JSONIntegers} and
+	 * {@link JSONNumber JSONNumbers} are immutable and the small values are shared, see
+	 * {@link JSONInteger#valueOf(long)}. When enabled, every number is a new instance that can be
+	 * modified with setValue().
+	 * <p>
+	 * The elements of packed arrays are stored as primitives, they stay immutable: disable packed
+	 * arrays as well to modify them.
+	 *
+	 * @param flag whether every number is a new mutable instance
+	 */
+	public void setMutableNumbers(boolean flag) {
+		mutableNumbers = flag;
+		options = null;
+	}
+
+	/**
+	 * Set the filter of the members of the JSONObjects: the members it rejects are skipped without
+	 * being decoded (their content is only scanned for brackets and quotes) and do not appear in
+	 * the parsed JSONObjects. Disabled (null) by default.
+	 * <p>
+	 * The skipped values are not checked: a syntax error inside them is not reported, and neither
+	 * are the duplicates of skipped keys.
+	 *
+	 * @param filter The allow-list or deny-list of the keys, null to keep every member
+	 */
+	public void setFieldFilter(JSONFieldFilter filter) {
+		fieldFilter = filter;
+		options = null;
 	}
 
 	public JSONValue parse() throws IOException, JSONSyntaxException {
 		ensureOpen();
-		if (tokenizer.nextToken() == StreamTokenizer.TT_EOF)
-			throw new EOFException("The parser is at End Of File, nothing to be parsed");
-		tokenizer.pushBack();
-		return parseNextValue();
+		depth = 0;
+		switch (lexer.nextToken()) {
+			case JSONLexer.TT_EOF:
+				throw new EOFException("The parser is at End Of File, nothing to be parsed");
+			case '{':
+				return parseObject();
+			case '[':
+				return parseArray();
+			default:
+				lexer.pushBack();
+				return parseNextValue();
+		}
+	}
+
+	/**
+	 * Skip the next value of the input without creating it: its Strings are not decoded and its
+	 * containers are passed over by counting the brackets (their content is not checked).
+	 *
+	 * @throws IOException         thrown by the underlying source or on unexpected End Of File
+	 * @throws JSONSyntaxException if the value does not start with a valid token or a String is not
+	 *                             terminated
+	 */
+	public void skipValue() throws IOException, JSONSyntaxException {
+		ensureOpen();
+		if (lexer.nextToken() == JSONLexer.TT_EOF)
+			throw new EOFException("The parser is at End Of File, nothing to be skipped");
+
+		lexer.pushBack();
+		skipNextValue();
 	}
 
 	private JSONValue parseNextValue() throws IOException, JSONSyntaxException {
-		switch (tokenizer.nextToken()) {
-			case StreamTokenizer.TT_EOF:
+		switch (lexer.nextToken()) {
+			case JSONLexer.TT_EOF:
 				throw new EOFException("The parser reached End Of File while parsing values");
-			case StreamTokenizer.TT_WORD:
+			case JSONLexer.TT_WORD:
 				return parseWord();
 			case '[':
-				return parseArray();
+				if (lazy)
+					return JSONArray.deferred(defer("JSONArray"));
+				++depth;
+				try {
+					return parseArray();
+				} finally {
+					--depth;
+				}
 			case '{':
-				return parseObject();
+				if (lazy)
+					return JSONObject.deferred(defer("JSONObject"));
+				++depth;
+				try {
+					return parseObject();
+				} finally {
+					--depth;
+				}
 			case '"':
-				return JSONValue.valueOf(tokenizer.sval);
+				return JSONValue.valueOf(valueCache != null ? lexer.stringValue(valueCache) : lexer.stringValue());
 			default:
 				break;
 		}
 
-		String err = String.format("Unknown token `%c'", tokenizer.ttype);
+		String err = String.format("Unknown token `%c'", lexer.ttype);
 		throw new JSONSyntaxException(err,
 				expectedTokens,
-				tokenizer
+				lexer.lineno()
 		);
 	}
 
-	private JSONObject parseObject() throws IOException, JSONSyntaxException {
+	/**
+	 * Skip the content of a JSONObject or a JSONArray, the `{' or `[' token must
+	 * already be read
+	 *
+	 * @param type "JSONObject" or "JSONArray" (for error messages)
+	 * @return The location of the content
+	 */
+	private JSONDeferredRegion defer(String type) throws IOException, JSONSyntaxException {
+		final int line = lexer.lineno();
+		final int start = lexer.position();
+		if (!lexer.skipContainer())
+			throw new JSONSyntaxException(String.format("EOF reached while parsing a %s", type), null, lexer.lineno());
+
+		return new JSONDeferredRegion(lexer, start, lexer.position(), line, depth + 1, options());
+	}
+
+	/**
+	 * Skip the next value without creating it
+	 */
+	private void skipNextValue() throws IOException, JSONSyntaxException {
+		switch (lexer.nextToken()) {
+			case JSONLexer.TT_EOF:
+				throw new EOFException("The parser reached End Of File while parsing values");
+			case JSONLexer.TT_WORD:
+			case '"':
+				return;
+			case '[':
+				if (!lexer.skipContainer())
+					throw new JSONSyntaxException("EOF reached while parsing a JSONArray", null, lexer.lineno());
+				return;
+			case '{':
+				if (!lexer.skipContainer())
+					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
+				return;
+			default:
+				throw new JSONSyntaxException(String.format("Unknown token `%c'", lexer.ttype),
+						expectedTokens,
+						lexer.lineno());
+		}
+	}
+
+	/**
+	 * Parse the content of a JSONObject, the `{' token must already be read
+	 */
+	JSONObject parseObject() throws IOException, JSONSyntaxException {
 		JSONObject ob = new JSONObject();
+		final JSONFieldFilter filter = fieldFilter != null && fieldFilter.appliesAt(depth) ? fieldFilter : null;
 		boolean firstVal = true;
 		while (true) {
 			String key;
-			switch (tokenizer.nextToken()) {
-				case StreamTokenizer.TT_EOF:
-					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, tokenizer);
+			switch (lexer.nextToken()) {
+				case JSONLexer.TT_EOF:
+					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
 				case '}':
 					if (firstVal)
 						return ob;
 					throw new JSONSyntaxException("Unexpected token `}'",
 							"String expected after `,' token",
-							tokenizer);
+							lexer.lineno());
 				case '"':
-					key = tokenizer.sval;
+					if (filter != null)
+						key = filter.keep(lexer, keyCache);
+					else
+						key = keyCache != null ? lexer.stringValue(keyCache) : lexer.stringValue();
 					break;
 
-				case StreamTokenizer.TT_WORD:
-					throw new JSONSyntaxException(String.format("Unexpected `%s' token", tokenizer.sval),
-							"Awaiting `\"' (or `}' for empty objects)", tokenizer);
+				case JSONLexer.TT_WORD:
+					throw new JSONSyntaxException(String.format("Unexpected `%s' token", lexer.wordValue()),
+							"Awaiting `\"' (or `}' for empty objects)", lexer.lineno());
 
 				default:
-					throw new JSONSyntaxException(String.format("Unexpected token `%c'", tokenizer.ttype),
-							"Awaiting `\"' (or `}' for empty objects)", tokenizer);
+					throw new JSONSyntaxException(String.format("Unexpected token `%c'", lexer.ttype),
+							"Awaiting `\"' (or `}' for empty objects)", lexer.lineno());
 			}
 
 			firstVal = false;
-			if (ob.getJSONValue(key) != null)
+			if (key != null && ob.getJSONValue(key) != null)
 				throw new JSONSyntaxException(String.format("Duplicate key \"%s\" in JSONObject", key),
-						null, tokenizer);
+						null, lexer.lineno());
 
-			if (tokenizer.nextToken() != ':') {
-				if (tokenizer.ttype == StreamTokenizer.TT_EOF)
-					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, tokenizer);
+			if (lexer.nextToken() != ':') {
+				if (lexer.ttype == JSONLexer.TT_EOF)
+					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
 				throw new JSONSyntaxException(String.format("Unexpected token `%s'", getCurrentToken()),
-						"Expected token `:' after key in JSONObject", tokenizer);
+						"Expected token `:' after key in JSONObject", lexer.lineno());
 			}
 
-			ob.addValue(key, parseNextValue());
-			switch (tokenizer.nextToken()) {
-				case StreamTokenizer.TT_EOF:
-					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, tokenizer);
+			if (key != null)
+				ob.addValue(key, parseNextValue());
+			else
+				skipNextValue(); // rejected by the filter
+			switch (lexer.nextToken()) {
+				case JSONLexer.TT_EOF:
+					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
 				case '}':
 					return ob;
 				case ',':
 					continue;
 				default:
 					throw new JSONSyntaxException(String.format("Unexpected token `%s'", getCurrentToken()),
-							"Expected `,' or `}'", tokenizer);
+							"Expected `,' or `}'", lexer.lineno());
 			}
 		}
 	}
 
-	private JSONArray parseArray() throws IOException, JSONSyntaxException {
-		JSONArray ob = new JSONArray();
+	/**
+	 * Parse the content of a JSONArray, the `[' token must already be read
+	 */
+	JSONArray parseArray() throws IOException, JSONSyntaxException {
+		JSONArray ob = null; // generic form, once a value cannot be packed
+		long[] longs = null;
+		double[] doubles = null;
+		int n = 0;
 		boolean firstVal = true;
 		while (true) {
-			switch (tokenizer.nextToken()) {
-				case StreamTokenizer.TT_EOF:
-					throw new JSONSyntaxException("EOF reached while parsing a JSONArray", null, tokenizer);
+			switch (lexer.nextToken()) {
+				case JSONLexer.TT_EOF:
+					throw new JSONSyntaxException("EOF reached while parsing a JSONArray", null, lexer.lineno());
 				case ']':
 					if (firstVal)
-						return ob;
+						return new JSONArray();
 					throw new JSONSyntaxException("Unexpected token `]'",
-							"Expected a value after token `,'", tokenizer);
+							"Expected a value after token `,'", lexer.lineno());
 			}
-			tokenizer.pushBack();
-			ob.getArray().add(parseNextValue());
+
 			firstVal = false;
-			switch (tokenizer.nextToken()) {
-				case StreamTokenizer.TT_EOF:
-					throw new JSONSyntaxException("EOF reached while parsing a JSONArray", null, tokenizer);
+			if (ob == null && packArrays && lexer.ttype == JSONLexer.TT_WORD
+					&& numbers.decode(lexer.word, lexer.wordOff, lexer.wordLen)) {
+				if (numbers.integer && doubles == null) {
+					if (longs == null)
+						longs = new long[8];
+					else if (n == longs.length)
+						longs = Arrays.copyOf(longs, n * 2);
+					longs[n++] = numbers.longValue;
+				} else if (!numbers.integer && longs == null) {
+					if (doubles == null)
+						doubles = new double[8];
+					else if (n == doubles.length)
+						doubles = Arrays.copyOf(doubles, n * 2);
+					doubles[n++] = numbers.doubleValue;
+				} else {
+					ob = unpack(longs, doubles, n);
+					ob.add(numbers.integer ? integer(numbers.longValue) : number(numbers.doubleValue));
+				}
+			} else {
+				if (ob == null)
+					ob = unpack(longs, doubles, n);
+				lexer.pushBack();
+				ob.add(parseNextValue());
+			}
+
+			switch (lexer.nextToken()) {
+				case JSONLexer.TT_EOF:
+					throw new JSONSyntaxException("EOF reached while parsing a JSONArray", null, lexer.lineno());
 				case ']':
-					return ob;
+					if (ob != null)
+						return ob;
+					return longs != null ? JSONArray.ofLongs(longs, 0, n) : JSONArray.ofDoubles(doubles, 0, n);
 				case ',':
 					continue;
 				default:
 					throw new JSONSyntaxException(String.format("Unexpected token `%s' in JSONArray", getCurrentToken()),
-							"Expected `,' or `]'", tokenizer);
+							"Expected `,' or `]'", lexer.lineno());
 			}
 		}
 	}
 
+	/**
+	 * Create a generic JSONArray holding the numbers read so far
+	 */
+	private JSONArray unpack(long[] longs, double[] doubles, int n) {
+		JSONArray ob = new JSONArray();
+		ArrayList<JSONValue> list = ob.getArray();
+		list.ensureCapacity(n);
+		for (int i = 0; i < n; ++i)
+			list.add(longs != null ? integer(longs[i]) : number(doubles[i]));
+		return ob;
+	}
+
+	private JSONInteger integer(long value) {
+		return mutableNumbers ? new JSONInteger(value) : JSONInteger.valueOf(value);
+	}
+
+	private JSONNumber number(double value) {
+		return mutableNumbers ? new JSONNumber(value) : JSONNumber.valueOf(value);
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The current options of this parser (except the ones of its lexer), as a snapshot that
+	 * is not affected by later changes
+	 */
+	JSONParserOptions options() {
+		if (options == null)
+			options = new JSONParserOptions(packArrays, keyCache, valueCache, mutableNumbers, fieldFilter);
+		return options;
+	}
+
+	/**
+	 * Use the given options (except the ones of the lexer)
+	 *
+	 * @param other The options to copy
+	 */
+	void copyOptions(JSONParserOptions other) {
+		packArrays = other.packArrays;
+		keyCache = other.keyCache;
+		valueCache = other.valueCache;
+		mutableNumbers = other.mutableNumbers;
+		fieldFilter = other.fieldFilter;
+		options = null;
+	}
+
+	/**
+	 * Setter
+	 *
+	 * @param depth Number of containers around the next value parsed (for the field filter)
+	 */
+	void setDepth(int depth) {
+		this.depth = depth;
+	}
+
 	private JSONValue parseWord() throws JSONSyntaxException {
-		switch (tokenizer.sval) {
-			case "null":
-				return JSONNull.Null;
-			case "true":
-				return JSONBoolean.True;
-			case "false":
-				return JSONBoolean.False;
-			default:
-				break;
+		if (lexer.wordIs("null"))
+			return JSONNull.Null;
+		if (lexer.wordIs("true"))
+			return JSONBoolean.True;
+		if (lexer.wordIs("false"))
+			return JSONBoolean.False;
+
+		if (numbers.decode(lexer.word, lexer.wordOff, lexer.wordLen)) {
+			if (numbers.integer)
+				return integer(numbers.longValue);
+			return number(numbers.doubleValue);
 		}
 
-		JSONValue val = null;
-		Scanner scan = new Scanner(tokenizer.sval);
-		if (scan.hasNextLong())
-			val = JSONValue.valueOf(scan.nextLong());
-		else if (scan.hasNextDouble())
-			val = JSONValue.valueOf(scan.nextDouble());
-
-		if (val != null && !scan.hasNext())
-			return val;
-		String err = String.format("Unknown token `%s'", tokenizer.sval);
+		String err = String.format("Unknown token `%s'", lexer.wordValue());
 		throw new JSONSyntaxException(err,
 				expectedTokens,
-				tokenizer);
+				lexer.lineno());
 	}
 
-	private String getCurrentToken() {
-		switch (tokenizer.ttype) {
-			case StreamTokenizer.TT_EOF:
+	private String getCurrentToken() throws JSONSyntaxException {
+		switch (lexer.ttype) {
+			case JSONLexer.TT_EOF:
 				return null;
-			case StreamTokenizer.TT_WORD:
-				return tokenizer.sval;
+			case JSONLexer.TT_WORD:
+				return lexer.wordValue();
 			case '"':
-				return String.format("\"%s\"", tokenizer.sval);
+				return String.format("\"%s\"", lexer.stringValue());
 			default:
-				return String.format("%c", tokenizer.ttype);
+				return String.format("%c", lexer.ttype);
 		}
 	}
 }
@@ -0,0 +1,56 @@
+package com.guy_732.json.reader;
+
+/**
+ * The options a {@link JSONParser} passes on to the parsers it creates (the parsers of the
+ * deferred values, the parsers of the values of a {@link JSONFeedParser}, the parsers of the chunks
+ * of a {@link JSONLinesReader}).
+ * <p>
+ * The instances returned by {@link JSONParser#options()} are snapshots: they are never modified,
+ * so the options set on a parser after a value was deferred do not change how it is parsed. A
+ * {@link JSONFeedParser} and a {@link JSONLinesReader} hold their own instance, modified by their
+ * setters (a {@link JSONLinesReader} gives a copy to each stream).
+ *
+ * @author Guy_732
+ */
+final class JSONParserOptions {
+	boolean packArrays = true;
+	JSONKeyCache keyCache = null;
+	JSONKeyCache valueCache = null;
+	boolean mutableNumbers = false;
+	JSONFieldFilter fieldFilter = null;
+
+	/**
+	 * Construct a new {@link JSONParserOptions} holding the default options
+	 */
+	JSONParserOptions() {
+		super();
+	}
+
+	/**
+	 * Construct a new {@link JSONParserOptions}
+	 *
+	 * @param packArrays     whether homogeneous numeric arrays are packed
+	 * @param keyCache       The cache of the keys, may be null
+	 * @param valueCache     The cache of the String values, may be null
+	 * @param mutableNumbers whether every number is a new mutable instance
+	 * @param fieldFilter    The filter of the members of the JSONObjects, may be null
+	 */
+	JSONParserOptions(boolean packArrays, JSONKeyCache keyCache, JSONKeyCache valueCache,
+	                  boolean mutableNumbers, JSONFieldFilter fieldFilter) {
+		super();
+		this.packArrays = packArrays;
+		this.keyCache = keyCache;
+		this.valueCache = valueCache;
+		this.mutableNumbers = mutableNumbers;
+		this.fieldFilter = fieldFilter;
+	}
+
+	/**
+	 * Construct a new {@link JSONParserOptions}, copy of another one
+	 *
+	 * @param other The options to copy
+	 */
+	JSONParserOptions(JSONParserOptions other) {
+		this(other.packArrays, other.keyCache, other.valueCache, other.mutableNumbers, other.fieldFilter);
+	}
+}
@@ -0,0 +1,548 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * This class reads JSON data one {@link JSONToken token} at a time with the method
+ * {@link JSONPullParser#nextToken() JSONPullParser::nextToken()}, without building a
+ * {@link JSONValue} tree.
+ * <p>
+ * The memory used only depends on the nesting depth of the data, not on its size. Subtrees can
+ * be ignored with {@link JSONPullParser#skipChildren() JSONPullParser::skipChildren()} or
+ * read as a tree with {@link JSONPullParser#readValueAsTree() JSONPullParser::readValueAsTree()}.
+ *
+ * @author Guy_732
+ */
+public class JSONPullParser implements Closeable {
+	private static final String expectedTokens = "expected tokens: `null', `false', `true', `\"', `[', `{' or number";
+	private static final boolean inObject = true;
+
+	private final JSONLexer lexer;
+	private final JSONNumberDecoder numbers = new JSONNumberDecoder();
+	private JSONParser treeParser = null;
+	private JSONKeyCache keyCache = null;
+	private JSONKeyCache valueCache = null;
+	private boolean mutableNumbers = false;
+
+	/**
+	 * Kind of the open containers ({@link #inObject} or not)
+	 */
+	private boolean[] stack = new boolean[16];
+	private int depth = 0;
+
+	private JSONToken current = null;
+	private String text = null;
+	private boolean closed = false;
+
+	/**
+	 * Construct a new {@link JSONPullParser}
+	 *
+	 * @param reader The {@link Reader} to read from.
+	 * @throws NullPointerException If the given {@link Reader} is null
+	 */
+	public JSONPullParser(Reader reader) throws NullPointerException {
+		this(new JSONCharLexer(Objects.requireNonNull(reader)));
+	}
+
+	/**
+	 * Construct a new {@link JSONPullParser} reading UTF-8 encoded data (the encoding of RFC 8259, and the one
+	 * written by {@link com.guy_732.json.writer.JSONWriter#JSONWriter(java.io.OutputStream)}), regardless of the platform's default
+	 * charset. The bytes are scanned directly and only the content of the Strings is decoded.
+	 *
+	 * @param stream The stream to read from
+	 * @throws NullPointerException if stream is null
+	 * @see #JSONPullParser(InputStream, Charset)
+	 */
+	public JSONPullParser(InputStream stream) throws NullPointerException {
+		this(new JSONUTF8Lexer(Objects.requireNonNull(stream)));
+	}
+
+	/**
+	 * Construct a new {@link JSONPullParser} decoding the stream with a given {@link Charset}
+	 *
+	 * @param stream  The stream to read from
+	 * @param charset The encoding of the stream
+	 * @throws NullPointerException if stream or charset is null
+	 * @see JSONParser#JSONParser(InputStream, Charset)
+	 */
+	public JSONPullParser(InputStream stream, Charset charset) throws NullPointerException {
+		this(StandardCharsets.UTF_8.equals(charset) ? new JSONUTF8Lexer(Objects.requireNonNull(stream))
+				: new JSONCharLexer(new InputStreamReader(stream, charset)));
+	}
+
+	/**
+	 * Creates a new {@link JSONPullParser}
+	 *
+	 * @param s The {@link String} storing the JSON data.
+	 * @throws NullPointerException If 's' is null
+	 */
+	public JSONPullParser(String s) throws NullPointerException {
+		this(new JSONCharLexer(s.toCharArray(), 0, s.length())); // already a fresh copy
+	}
+
+	/**
+	 * Creates a new {@link JSONPullParser}
+	 *
+	 * @param value The char[] storing the JSON data
+	 * @throws NullPointerException If 'value' is null
+	 */
+	public JSONPullParser(char[] value) throws NullPointerException {
+		this(new JSONCharLexer(value.clone(), 0, value.length));
+	}
+
+	/**
+	 * Creates a new {@link JSONPullParser} over UTF-8 encoded data
+	 *
+	 * @param utf8 The byte[] storing the JSON data (encoded in UTF-8)
+	 * @throws NullPointerException If 'utf8' is null
+	 */
+	public JSONPullParser(byte[] utf8) throws NullPointerException {
+		this(new JSONTapeLexer(utf8.clone(), 0, utf8.length));
+	}
+
+	/**
+	 * Creates a new {@link JSONPullParser} reading a UTF-8 encoded file through memory
+	 * mappings (of at most 1 GiB each, so files of any size can be read).
+	 * <p>
+	 * The bytes are scanned in place in the mappings, they are not copied to a
+	 * buffer (only the bytes of the Strings are, when they are decoded). Closing the
+	 * parser closes the file, the mappings are released by the garbage collector once
+	 * the parser is not reachable.
+	 *
+	 * @param file The file to read
+	 * @return The parser, to close after use
+	 * @throws NullPointerException If 'file' is null
+	 * @throws IOException          If the file cannot be opened
+	 */
+	public static JSONPullParser open(Path file) throws NullPointerException, IOException {
+		return new JSONPullParser(new JSONMappedLexer(new MappedFile(Objects.requireNonNull(file))));
+	}
+
+	/**
+	 * Creates a new {@link JSONPullParser} reading the tokens of a given {@link JSONLexer}
+	 *
+	 * @param lexer The lexer to read from
+	 */
+	JSONPullParser(JSONLexer lexer) {
+		this.lexer = lexer;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+
+		closed = true;
+		lexer.close();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed)
+			throw new IOException("The parser is closed");
+	}
+
+	/**
+	 * Enable/Disable support for C/C++ style comments
+	 *
+	 * @param flag whether C-Style comments are enabled or not
+	 * @see JSONParser#supportCStyleComment(boolean)
+	 */
+	public void supportCStyleComment(boolean flag) {
+		lexer.cStyleComments = flag;
+	}
+
+	/**
+	 * Enable/Disable the structural index
+	 *
+	 * @param flag whether the input is indexed first
+	 * @see JSONParser#setStructuralIndex(boolean)
+	 */
+	public void setStructuralIndex(boolean flag) {
+		lexer.structuralIndex = flag;
+	}
+
+	/**
+	 * Set the cache the field names are looked up in
+	 *
+	 * @param cache The cache of the field names, null to create a new String for every field name
+	 * @see JSONParser#setKeyCache(JSONKeyCache)
+	 */
+	public void setKeyCache(JSONKeyCache cache) {
+		keyCache = cache;
+		if (treeParser != null)
+			treeParser.setKeyCache(cache);
+	}
+
+	/**
+	 * Set the cache the String values are looked up in
+	 *
+	 * @param cache The cache of the String values, null to create a new String for every value
+	 * @see JSONParser#setValueCache(JSONKeyCache)
+	 */
+	public void setValueCache(JSONKeyCache cache) {
+		valueCache = cache;
+		if (treeParser != null)
+			treeParser.setValueCache(cache);
+	}
+
+	/**
+	 * Enable/Disable mutable numbers in the values read as trees
+	 *
+	 * @param flag whether every number is a new mutable instance
+	 * @see JSONParser#setMutableNumbers(boolean)
+	 */
+	public void setMutableNumbers(boolean flag) {
+		mutableNumbers = flag;
+		if (treeParser != null)
+			treeParser.setMutableNumbers(flag);
+	}
+
+	/**
+	 * Read the next token
+	 * <p>
+	 * Several values can follow each other at the root level, null is returned once the input is
+	 * exhausted between two values.
+	 *
+	 * @return The token read, null at the end of the input
+	 * @throws IOException         thrown by the underlying source or on unexpected End Of File
+	 * @throws JSONSyntaxException if the data is not valid JSON
+	 */
+	public JSONToken nextToken() throws IOException, JSONSyntaxException {
+		ensureOpen();
+		text = null;
+		if (depth == 0) {
+			if (lexer.nextToken() == JSONLexer.TT_EOF)
+				return current = null;
+			return current = startValue();
+		}
+
+		int t;
+		if (stack[depth - 1] == inObject) {
+			if (current == JSONToken.FIELD_NAME) {
+				if (lexer.nextToken() != ':') {
+					if (lexer.ttype == JSONLexer.TT_EOF)
+						throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
+					throw new JSONSyntaxException(String.format("Unexpected token `%s'", getCurrentToken()),
+							"Expected token `:' after key in JSONObject", lexer.lineno());
+				}
+
+				lexer.nextToken();
+				return current = startValue();
+			}
+
+			t = lexer.nextToken();
+			if (t == JSONLexer.TT_EOF)
+				throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
+			if (current != JSONToken.START_OBJECT) {
+				if (t == '}')
+					return endContainer(JSONToken.END_OBJECT);
+				if (t != ',')
+					throw new JSONSyntaxException(String.format("Unexpected token `%s'", getCurrentToken()),
+							"Expected `,' or `}'", lexer.lineno());
+
+				t = lexer.nextToken();
+				if (t == '}')
+					throw new JSONSyntaxException("Unexpected token `}'",
+							"String expected after `,' token",
+							lexer.lineno());
+			} else if (t == '}') {
+				return endContainer(JSONToken.END_OBJECT);
+			}
+
+			switch (t) {
+				case JSONLexer.TT_EOF:
+					throw new JSONSyntaxException("EOF reached while parsing a JSONObject", null, lexer.lineno());
+				case '"':
+					return current = JSONToken.FIELD_NAME;
+				case JSONLexer.TT_WORD:
+					throw new JSONSyntaxException(String.format("Unexpected `%s' token", lexer.wordValue()),
+							"Awaiting `\"' (or `}' for empty objects)", lexer.lineno());
+				default:
+					throw new JSONSyntaxException(String.format("Unexpected token `%c'", lexer.ttype),
+							"Awaiting `\"' (or `}' for empty objects)", lexer.lineno());
+			}
+		}
+
+		t = lexer.nextToken();
+		if (t == JSONLexer.TT_EOF)
+			throw new JSONSyntaxException("EOF reached while parsing a JSONArray", null, lexer.lineno());
+		if (current != JSONToken.START_ARRAY) {
+			if (t == ']')
+				return endContainer(JSONToken.END_ARRAY);
+			if (t != ',')
+				throw new JSONSyntaxException(String.format("Unexpected token `%s' in JSONArray", getCurrentToken()),
+						"Expected `,' or `]'", lexer.lineno());
+
+			t = lexer.nextToken();
+			if (t == ']')
+				throw new JSONSyntaxException("Unexpected token `]'",
+						"Expected a value after token `,'", lexer.lineno());
+		} else if (t == ']') {
+			return endContainer(JSONToken.END_ARRAY);
+		}
+
+		return current = startValue();
+	}
+
+	/**
+	 * Interpret the token the lexer just read as the start of a value
+	 */
+	private JSONToken startValue() throws IOException, JSONSyntaxException {
+		switch (lexer.ttype) {
+			case JSONLexer.TT_EOF:
+				throw new EOFException("The parser reached End Of File while parsing values");
+			case '{':
+				push(inObject);
+				return JSONToken.START_OBJECT;
+			case '[':
+				push(!inObject);
+				return JSONToken.START_ARRAY;
+			case '"':
+				return JSONToken.VALUE_STRING;
+			case JSONLexer.TT_WORD:
+				if (lexer.wordIs("null"))
+					return JSONToken.VALUE_NULL;
+				if (lexer.wordIs("true"))
+					return JSONToken.VALUE_TRUE;
+				if (lexer.wordIs("false"))
+					return JSONToken.VALUE_FALSE;
+				if (numbers.decode(lexer.word, lexer.wordOff, lexer.wordLen))
+					return numbers.integer ? JSONToken.VALUE_INTEGER : JSONToken.VALUE_NUMBER;
+
+				throw new JSONSyntaxException(String.format("Unknown token `%s'", lexer.wordValue()),
+						expectedTokens, lexer.lineno());
+			default:
+				throw new JSONSyntaxException(String.format("Unknown token `%c'", lexer.ttype),
+						expectedTokens, lexer.lineno());
+		}
+	}
+
+	private void push(boolean kind) {
+		if (depth == stack.length) {
+			boolean[] bigger = new boolean[stack.length * 2];
+			System.arraycopy(stack, 0, bigger, 0, depth);
+			stack = bigger;
+		}
+
+		stack[depth++] = kind;
+	}
+
+	private JSONToken endContainer(JSONToken token) {
+		--depth;
+		return current = token;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The last token returned by {@link #nextToken()}
+	 */
+	public JSONToken currentToken() {
+		return current;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The number of containers currently open (the container started by
+	 * {@link JSONToken#START_OBJECT} or {@link JSONToken#START_ARRAY} is counted)
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The line of the current token
+	 */
+	public int getLine() {
+		return lexer.lineno();
+	}
+
+	/**
+	 * Get the text of the current token: the decoded String for {@link JSONToken#FIELD_NAME} and
+	 * {@link JSONToken#VALUE_STRING}, the token as written in the input otherwise
+	 *
+	 * @return The text of the current token, null if there is none
+	 * @throws JSONSyntaxException if the String contains an invalid escape sequence
+	 */
+	public String getText() throws JSONSyntaxException {
+		if (current == null)
+			return null;
+
+		if (text != null)
+			return text;
+
+		switch (current) {
+			case FIELD_NAME:
+				text = keyCache != null ? lexer.stringValue(keyCache) : lexer.stringValue();
+				break;
+			case VALUE_STRING:
+				text = valueCache != null ? lexer.stringValue(valueCache) : lexer.stringValue();
+				break;
+			case VALUE_INTEGER:
+			case VALUE_NUMBER:
+			case VALUE_TRUE:
+			case VALUE_FALSE:
+			case VALUE_NULL:
+				text = lexer.wordValue();
+				break;
+			default:
+				text = String.valueOf((char) lexer.ttype);
+				break;
+		}
+
+		return text;
+	}
+
+	/**
+	 * Compare the text of the current token to a given String. For {@link JSONToken#FIELD_NAME} and
+	 * {@link JSONToken#VALUE_STRING}, no String is created when the token has no escape sequence.
+	 *
+	 * @param s The String to compare to
+	 * @return true if {@link #getText()} would return a String equal to s
+	 * @throws JSONSyntaxException if the String contains an invalid escape sequence
+	 */
+	public boolean textEquals(String s) throws JSONSyntaxException {
+		if (text == null && (current == JSONToken.FIELD_NAME || current == JSONToken.VALUE_STRING))
+			return s != null && lexer.stringIs(s);
+
+		return Objects.equals(getText(), s);
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The value of the current {@link JSONToken#VALUE_INTEGER}
+	 * @throws IllegalStateException if the current token is not a {@link JSONToken#VALUE_INTEGER}
+	 */
+	public long getLong() throws IllegalStateException {
+		if (current != JSONToken.VALUE_INTEGER)
+			throw new IllegalStateException(String.valueOf(current).concat(" is not VALUE_INTEGER"));
+		return numbers.longValue;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The value of the current {@link JSONToken#VALUE_NUMBER} or
+	 * {@link JSONToken#VALUE_INTEGER}
+	 * @throws IllegalStateException if the current token is not a number
+	 */
+	public double getDouble() throws IllegalStateException {
+		if (current == JSONToken.VALUE_INTEGER)
+			return numbers.longValue;
+		if (current != JSONToken.VALUE_NUMBER)
+			throw new IllegalStateException(String.valueOf(current).concat(" is neither VALUE_INTEGER nor VALUE_NUMBER"));
+		return numbers.doubleValue;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The value of the current {@link JSONToken#VALUE_TRUE} or {@link JSONToken#VALUE_FALSE}
+	 * @throws IllegalStateException if the current token is not a boolean
+	 */
+	public boolean getBoolean() throws IllegalStateException {
+		if (current == JSONToken.VALUE_TRUE)
+			return true;
+		if (current != JSONToken.VALUE_FALSE)
+			throw new IllegalStateException(String.valueOf(current).concat(" is neither VALUE_TRUE nor VALUE_FALSE"));
+		return false;
+	}
+
+	/**
+	 * If the current token is {@link JSONToken#START_OBJECT} or {@link JSONToken#START_ARRAY}, skip
+	 * everything until the matching {@link JSONToken#END_OBJECT} or {@link JSONToken#END_ARRAY} which
+	 * becomes the current token. Do nothing otherwise.
+	 * <p>
+	 * Skipped Strings are not decoded.
+	 *
+	 * @throws IOException         thrown by the underlying source or on unexpected End Of File
+	 * @throws JSONSyntaxException if the data is not valid JSON
+	 */
+	public void skipChildren() throws IOException, JSONSyntaxException {
+		if (current != JSONToken.START_OBJECT && current != JSONToken.START_ARRAY)
+			return;
+
+		final int target = depth - 1;
+		while (depth != target)
+			nextToken();
+	}
+
+	/**
+	 * Read the current value as a {@link JSONValue} tree. If the current token is a
+	 * {@link JSONToken#FIELD_NAME}, its value is read.
+	 * <p>
+	 * Once the tree is read, the current token is the last token of the value ({@link JSONToken#END_OBJECT}
+	 * or {@link JSONToken#END_ARRAY} for containers).
+	 *
+	 * @return The value read
+	 * @throws IOException           thrown by the underlying source or on unexpected End Of File
+	 * @throws JSONSyntaxException   if the data is not valid JSON
+	 * @throws IllegalStateException if the current token does not start a value
+	 */
+	public JSONValue readValueAsTree() throws IOException, JSONSyntaxException, IllegalStateException {
+		if (current == JSONToken.FIELD_NAME)
+			nextToken();
+
+		if (current == null)
+			throw new IllegalStateException("No value to read");
+
+		switch (current) {
+			case START_OBJECT:
+				JSONObject ob = treeParser().parseObject();
+				endContainer(JSONToken.END_OBJECT);
+				return ob;
+			case START_ARRAY:
+				JSONArray arr = treeParser().parseArray();
+				endContainer(JSONToken.END_ARRAY);
+				return arr;
+			case VALUE_STRING:
+				return JSONValue.valueOf(getText());
+			case VALUE_INTEGER:
+				return mutableNumbers ? new JSONInteger(numbers.longValue) : JSONInteger.valueOf(numbers.longValue);
+			case VALUE_NUMBER:
+				return mutableNumbers ? new JSONNumber(numbers.doubleValue) : JSONNumber.valueOf(numbers.doubleValue);
+			case VALUE_TRUE:
+				return JSONBoolean.True;
+			case VALUE_FALSE:
+				return JSONBoolean.False;
+			case VALUE_NULL:
+				return JSONNull.Null;
+			default:
+				throw new IllegalStateException(current.name().concat(" does not start a value"));
+		}
+	}
+
+	private JSONParser treeParser() {
+		if (treeParser == null) {
+			treeParser = new JSONParser(lexer);
+			treeParser.setKeyCache(keyCache);
+			treeParser.setValueCache(valueCache);
+			treeParser.setMutableNumbers(mutableNumbers);
+		}
+
+		return treeParser;
+	}
+
+	private String getCurrentToken() throws JSONSyntaxException {
+		switch (lexer.ttype) {
+			case JSONLexer.TT_EOF:
+				return null;
+			case JSONLexer.TT_WORD:
+				return lexer.wordValue();
+			case '"':
+				return String.format("\"%s\"", lexer.stringValue());
+			default:
+				return String.format("%c", lexer.ttype);
+		}
+	}
+}
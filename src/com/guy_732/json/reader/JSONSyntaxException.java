@@ -41,6 +41,19 @@ public class JSONSyntaxException extends JSONException {
 		this.line = errorLine;
 	}
 
+	/**
+	 * Move the error further in the input, for errors found in a part of the input parsed alone
+	 *
+	 * @param lines Number of lines before the part that was parsed
+	 * @return The same error, at its line in the whole input
+	 */
+	JSONSyntaxException shifted(long lines) {
+		final int shiftedLine = (int) Math.min(Integer.MAX_VALUE, line + lines);
+		JSONSyntaxException e = new JSONSyntaxException(super.getMessage(), expected, shiftedLine);
+		e.setStackTrace(getStackTrace());
+		return e;
+	}
+
 	@Override
 	public String getMessage() {
 		StringBuilder builder = new StringBuilder(super.getMessage());
@@ -0,0 +1,452 @@
+package com.guy_732.json.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * {@link JSONUTF8Lexer} for inputs already in memory, working in 2 stages when
+ * {@link JSONLexer#structuralIndex} is set.
+ * <p>
+ * The first stage scans the input 8 bytes at a time, testing the bytes packed in a long with
+ * bitwise operations, and records in a tape the position of every token start, quote and line
+ * break outside the Strings (quotes and line breaks only inside them). The second stage,
+ * {@link #readToken()}, jumps from one recorded position to the next instead of testing every byte,
+ * and finds the end of a String without scanning it.
+ * <p>
+ * The first stage runs block by block, as the tokens are read: the tape only holds the entries of
+ * the last block (at most {@link #maxBlockSize} bytes) not read yet.
+ * <p>
+ * The tokens (and the errors) are the same as the ones of the {@link JSONUTF8Lexer}. The first
+ * stage does not know about comments, so when C-style comments are enabled by the first call to
+ * readToken() (or when the index is not enabled, or the input is larger than 1 GiB), no tape is
+ * used and the input is scanned directly.
+ *
+ * @author Guy_732
+ */
+class JSONTapeLexer extends JSONUTF8Lexer {
+	/**
+	 * Set on the entry of the opening quote of a String containing a `\'
+	 */
+	private static final int escapedFlag = 1 << 31;
+
+	/**
+	 * Set on the entry of the opening quote of a String containing non-ASCII bytes
+	 */
+	private static final int nonAsciiFlag = 1 << 30;
+	private static final int positionMask = nonAsciiFlag - 1;
+
+	private static final long ones = 0x0101010101010101L;
+	private static final long highs = 0x8080808080808080L;
+	private static final long lows = 0x7F7F7F7F7F7F7F7FL;
+
+	/**
+	 * Number of bytes of the first block, and of the first block after a `\' token (the size doubles
+	 * from one block to the next)
+	 */
+	private static final int minBlockSize = 64;
+	private static final int maxBlockSize = 1 << 16;
+
+	/**
+	 * Positions (and String flags) recorded by the first stage, null when it is not used
+	 */
+	private int[] tape = null;
+
+	/**
+	 * Index in the tape of the next entry to read
+	 */
+	private int next = 0;
+
+	/**
+	 * Index in the tape after the last entry recorded
+	 */
+	private int tapeEnd = 0;
+
+	private boolean started = false;
+
+	private ByteBuffer data;
+
+	/**
+	 * State of the first stage between two blocks
+	 */
+	private int scanned; // position of the first byte not scanned
+	private int blockSize = minBlockSize;
+	private long escapeCarry = 0; // high bit of the first byte set if it is escaped
+	private long stringCarry = 0; // all the high bits set if the word starts inside a String
+	private long wordCarry = 0; // high bit of the first byte set if the previous byte is a word character
+	private int openEntry = -1; // entry of the opening quote of the String being scanned
+	private int stringFlags = 0;
+	private int segmentStart = 0; // first bit of the current String in the word
+
+	/**
+	 * Construct a lexer over bytes already in memory (the array is not copied)
+	 *
+	 * @param data   The bytes to read
+	 * @param offset Index of the first byte
+	 * @param length Number of bytes
+	 */
+	JSONTapeLexer(byte[] data, int offset, int length) {
+		super(data, offset, length);
+	}
+
+	/**
+	 * Construct a lexer over a region, with its own tape
+	 */
+	private JSONTapeLexer(byte[] data, int start, int end, int line) {
+		super(data, start, end - start, line);
+		this.structuralIndex = true;
+	}
+
+	@Override
+	JSONLexer region(int start, int end, int line) {
+		if (tape == null)
+			return super.region(start, end, line);
+		return new JSONTapeLexer(buf, start, end, line);
+	}
+
+	@Override
+	int readToken() throws IOException, JSONSyntaxException {
+		if (!started)
+			start();
+		if (tape == null)
+			return super.readToken();
+
+		final byte[] b = buf;
+		while (true) {
+			if (!available()) {
+				pos = limit;
+				return TT_EOF;
+			}
+
+			final int p = tape[next++] & positionMask;
+			final int c = b[p] & 0xFF;
+			switch (c) {
+				case '\n':
+					++lineno;
+					continue;
+				case '\r':
+					++lineno;
+					skipLineFeed(p);
+					continue;
+				case '"':
+					final int q = closingQuote();
+					final int e = tape[next - 2]; // flags complete once the closing quote is scanned
+					strOff = p + 1;
+					strLen = q - p - 1;
+					strEscaped = (e & escapedFlag) != 0;
+					strAscii = (e & nonAsciiFlag) == 0;
+					pos = q + 1;
+					return TT_STRING;
+				default:
+					if (isWordChar(c)) {
+						int end = p + 1;
+						while (end < limit && isWordChar(b[end]))
+							++end;
+
+						final int len = end - p;
+						if (word.length < len)
+							word = new char[Math.max(len, word.length * 2)];
+						for (int i = 0; i < len; ++i)
+							word[i] = (char) b[p + i];
+
+						wordOff = 0;
+						wordLen = len;
+						pos = end;
+						return TT_WORD;
+					}
+
+					pos = p + 1;
+					if (c == '\\')
+						resume(pos);
+					return c;
+			}
+		}
+	}
+
+	@Override
+	boolean skipContainer() throws IOException, JSONSyntaxException {
+		if (tape == null)
+			return super.skipContainer();
+
+		int depth = 1;
+		final byte[] b = buf;
+		while (available()) {
+			final int p = tape[next++] & positionMask;
+			switch (b[p]) {
+				case '"':
+					pos = closingQuote() + 1;
+					break;
+				case '{':
+				case '[':
+					++depth;
+					break;
+				case '}':
+				case ']':
+					if (--depth == 0) {
+						ttype = b[p];
+						pos = p + 1;
+						return true;
+					}
+					break;
+				case '\n':
+					++lineno;
+					break;
+				case '\r':
+					++lineno;
+					skipLineFeed(p);
+					break;
+				case '\\':
+					resume(p + 1);
+					break;
+				default:
+					break;
+			}
+		}
+
+		pos = limit;
+		return false;
+	}
+
+	/**
+	 * Consume the entry of the `\n' following a `\r' at p, if there is one
+	 */
+	private void skipLineFeed(int p) {
+		if (p + 1 < limit && buf[p + 1] == '\n' && available())
+			++next;
+	}
+
+	/**
+	 * Consume the entry following an opening quote
+	 *
+	 * @return The position of the closing quote
+	 * @throws JSONSyntaxException if the String is not terminated on its line
+	 */
+	private int closingQuote() throws JSONSyntaxException {
+		if (!available()) {
+			pos = limit;
+			throw unterminatedString();
+		}
+
+		final int q = tape[next] & positionMask;
+		if (buf[q] != '"') {
+			// line break in the String
+			pos = q;
+			throw unterminatedString();
+		}
+
+		++next;
+		return q;
+	}
+
+	private void start() {
+		started = true;
+		if (structuralIndex && !cStyleComments && limit <= positionMask) {
+			tape = new int[2 * minBlockSize];
+			data = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+			scanned = pos;
+		}
+	}
+
+	/**
+	 * Run the first stage until there is an entry to read
+	 *
+	 * @return false if the end of the input is reached
+	 */
+	private boolean available() {
+		while (next == tapeEnd) {
+			if (scanned >= limit)
+				return false;
+
+			final int to = (int) Math.min(limit, (long) scanned + blockSize);
+			reserve(to - scanned);
+			scan(scanned, to);
+			scanned = to;
+			blockSize = Math.min(maxBlockSize, blockSize * 2);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Restart the first stage after a `\' token: the first stage considered it to be in a String,
+	 * escaping the next byte. The entries after it are dropped, the bytes after it are scanned again.
+	 *
+	 * @param from Position of the byte following the `\'
+	 */
+	private void resume(int from) {
+		tapeEnd = next;
+		scanned = from;
+		blockSize = minBlockSize;
+		escapeCarry = 0;
+		stringCarry = 0;
+		wordCarry = 0;
+		openEntry = -1;
+		stringFlags = 0;
+		segmentStart = 0;
+	}
+
+	/**
+	 * Drop the entries already read (except the one of the String being scanned) and make room for
+	 * the entries of count bytes (at most one entry per byte)
+	 */
+	private void reserve(int count) {
+		final int keep = openEntry >= 0 ? Math.min(openEntry, next) : next;
+		final int n = tapeEnd - keep;
+		if (keep > 0) {
+			System.arraycopy(tape, keep, tape, 0, n);
+			next -= keep;
+			tapeEnd = n;
+			if (openEntry >= 0)
+				openEntry -= keep;
+		}
+
+		if (tape.length < n + count)
+			tape = Arrays.copyOf(tape, Math.max(n + count, tape.length * 2));
+	}
+
+	/**
+	 * First stage: record the positions of the tokens of a block in the tape.
+	 * <p>
+	 * The input is read 8 bytes at a time, every mask has the high bit of the bytes it selects set.
+	 * Every `\' is considered to be in a String (a `\' token is invalid JSON anyway), the second
+	 * stage calls {@link #resume(int)} when it finds one outside a String.
+	 *
+	 * @param from Index of the first byte to scan
+	 * @param to   Index after the last byte to scan ({@code to - from} is a multiple of 8, or to is
+	 *             the end of the input)
+	 */
+	private void scan(int from, int to) {
+		final byte[] b = buf;
+		final int[] t = tape;
+		int n = tapeEnd;
+		long escapeCarry = this.escapeCarry;
+		long stringCarry = this.stringCarry;
+		long wordCarry = this.wordCarry;
+		int openEntry = this.openEntry;
+		int stringFlags = this.stringFlags;
+		int segmentStart = this.segmentStart;
+
+		for (int index = from; index < to; index += 8) {
+			long w;
+			if (to - index >= 8) {
+				w = data.getLong(index);
+			} else {
+				// pad the end of the input with spaces
+				w = 0;
+				for (int i = to - index - 1; i >= 0; --i)
+					w = (w << 8) | (b[index + i] & 0xFF);
+				w |= (ones * ' ') << ((to - index) << 3);
+			}
+
+			final long backslashes = equal(w, '\\');
+
+			// a `\' escapes the next byte, unless it is escaped itself
+			long escaped = escapeCarry;
+			escapeCarry = 0;
+			for (long m = backslashes; m != 0; m &= m - 1) {
+				final long bit = m & -m;
+				if ((escaped & bit) == 0) {
+					if (bit < 0)
+						escapeCarry = 0x80;
+					else
+						escaped |= bit << 8;
+				}
+			}
+
+			final long ascii = w & lows;
+			final long quotes = equal(w, '"') & ~escaped;
+			final long controls = ~ge(ascii, ' ' + 1) & ~w & highs;
+			final long lines = controls == 0 ? 0 : (equal(w, '\n') | equal(w, '\r')) & ~escaped;
+			if (quotes == 0 && stringCarry != 0) {
+				// inside a String, only the line breaks are recorded
+				stringFlags |= flags(backslashes, w & highs);
+				wordCarry = 0;
+				for (long m = lines; m != 0; m &= m - 1)
+					t[n++] = index + (Long.numberOfTrailingZeros(m) >>> 3);
+
+				continue;
+			}
+
+			final long inString = prefixXor(quotes) ^ stringCarry; // opening quotes included
+			stringCarry = (inString >> 63) & highs;
+
+			final long whitespace = controls == 0 ? 0 : equal(w, ' ') | equal(w, '\t') | lines;
+			final long word = ((ge(ascii, 'a') ^ ge(ascii, 'z' + 1)) | (ge(ascii, '-') ^ ge(ascii, '9' + 1))
+					& ~equal(w, '/') | equal(w, '+') | equal(w, 'E')) & ~w;
+			final long starts = ~whitespace & ~(word & (word << 8 | wordCarry)) & highs;
+			wordCarry = (word >>> 56) & 0x80;
+
+			// escaped line breaks are not in the tape, like inside Strings for the JSONUTF8Lexer
+			long s = (starts & ~inString) | quotes | lines;
+			if (s == 0 && openEntry < 0)
+				continue;
+
+			final long escapes = backslashes & inString;
+			final long nonAscii = w & highs & inString;
+			for (; s != 0; s &= s - 1) {
+				final int i = Long.numberOfTrailingZeros(s);
+				final long bit = 1L << i;
+				if ((quotes & bit) != 0) {
+					if ((inString & bit) != 0) {
+						openEntry = n;
+						stringFlags = 0;
+						segmentStart = i;
+					} else if (openEntry >= 0) {
+						final long range = (bit - 1) & (-1L << segmentStart);
+						t[openEntry] |= stringFlags | flags(escapes & range, nonAscii & range);
+						openEntry = -1;
+					}
+				}
+
+				t[n++] = index + (i >>> 3);
+			}
+
+			if (openEntry >= 0) {
+				final long range = -1L << segmentStart;
+				stringFlags |= flags(escapes & range, nonAscii & range);
+				segmentStart = 0;
+			}
+		}
+
+		tapeEnd = n;
+		this.escapeCarry = escapeCarry;
+		this.stringCarry = stringCarry;
+		this.wordCarry = wordCarry;
+		this.openEntry = openEntry;
+		this.stringFlags = stringFlags;
+		this.segmentStart = segmentStart;
+	}
+
+	private static int flags(long escapes, long nonAscii) {
+		return (escapes != 0 ? escapedFlag : 0) | (nonAscii != 0 ? nonAsciiFlag : 0);
+	}
+
+	/**
+	 * @return The high bit of each byte of w equal to c set, the other bits cleared
+	 */
+	private static long equal(long w, int c) {
+		final long x = w ^ (ones * c);
+		return ~(((x & lows) + lows) | x) & highs;
+	}
+
+	/**
+	 * @param ascii 8 bytes lower than 128
+	 * @param c     A value between 1 and 128
+	 * @return The high bit of each byte greater than or equal to c set, the other bits cleared
+	 */
+	private static long ge(long ascii, int c) {
+		return (ascii + ones * (128 - c)) & highs;
+	}
+
+	/**
+	 * @param x A mask with only the high bit of some bytes set
+	 * @return The high bit of byte i set if an odd number of bytes up to i (included) are selected by x
+	 */
+	private static long prefixXor(long x) {
+		x ^= x << 8;
+		x ^= x << 16;
+		x ^= x << 32;
+		return x;
+	}
+}
@@ -0,0 +1,71 @@
+package com.guy_732.json.reader;
+
+/**
+ * Returned by {@link JSONPullParser#nextToken() JSONPullParser::nextToken()} to describe the event
+ * read.
+ *
+ * @author Guy_732
+ */
+public enum JSONToken {
+	/**
+	 * `{' read, a JSONObject starts
+	 */
+	START_OBJECT,
+
+	/**
+	 * `}' read, the current JSONObject ends
+	 */
+	END_OBJECT,
+
+	/**
+	 * `[' read, a JSONArray starts
+	 */
+	START_ARRAY,
+
+	/**
+	 * `]' read, the current JSONArray ends
+	 */
+	END_ARRAY,
+
+	/**
+	 * A key of a JSONObject was read, the next token is its value
+	 */
+	FIELD_NAME,
+
+	/**
+	 * A String value was read
+	 */
+	VALUE_STRING,
+
+	/**
+	 * A number without fraction nor exponent fitting in a long was read
+	 */
+	VALUE_INTEGER,
+
+	/**
+	 * Any other number was read
+	 */
+	VALUE_NUMBER,
+
+	/**
+	 * `true' was read
+	 */
+	VALUE_TRUE,
+
+	/**
+	 * `false' was read
+	 */
+	VALUE_FALSE,
+
+	/**
+	 * `null' was read
+	 */
+	VALUE_NULL;
+
+	/**
+	 * @return true for the tokens holding a whole value (everything but containers and field names)
+	 */
+	public boolean isScalarValue() {
+		return ordinal() >= VALUE_STRING.ordinal();
+	}
+}
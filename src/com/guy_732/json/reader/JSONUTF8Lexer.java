@@ -0,0 +1,455 @@
+package com.guy_732.json.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link JSONLexer} scanning UTF-8 encoded bytes directly, without decoding them to chars first.
+ * <p>
+ * All the structural characters of JSON are ASCII, so only the content of Strings needs to be
+ * decoded, ASCII-only Strings are created with the Latin-1 {@link String} constructor (a plain copy).
+ *
+ * @author Guy_732
+ */
+class JSONUTF8Lexer extends JSONLexer {
+	private static final int defaultBufferSize = 1 << 16;
+
+	private final InputStream stream;
+	byte[] buf;
+	int pos;
+	int limit;
+
+	/**
+	 * Start of the current token in buf (kept when the buffer is refilled), -1 if none
+	 */
+	private int mark = -1;
+
+	/**
+	 * true until the first bytes are read from the stream (to skip the byte order mark)
+	 */
+	private boolean atStart;
+
+	int strOff;
+	int strLen;
+	boolean strEscaped;
+	boolean strAscii;
+	private char[] scratch = new char[64];
+
+	/**
+	 * Construct a lexer reading from an {@link InputStream}
+	 *
+	 * @param stream The stream to read from
+	 */
+	JSONUTF8Lexer(InputStream stream) {
+		this.stream = stream;
+		this.atStart = true;
+		this.buf = new byte[defaultBufferSize];
+		this.word = new char[64];
+	}
+
+	/**
+	 * Construct a lexer over bytes already in memory (the array is not copied)
+	 *
+	 * @param data   The bytes to read
+	 * @param offset Index of the first byte
+	 * @param length Number of bytes
+	 */
+	JSONUTF8Lexer(byte[] data, int offset, int length) {
+		this(data, offset, length, 1);
+		skipByteOrderMark();
+	}
+
+	/**
+	 * Construct a lexer over a part of bytes already in memory, without skipping a byte order mark
+	 *
+	 * @param data   The bytes to read
+	 * @param offset Index of the first byte
+	 * @param length Number of bytes
+	 * @param line   Line number at offset
+	 */
+	JSONUTF8Lexer(byte[] data, int offset, int length, int line) {
+		this.stream = null;
+		this.buf = data;
+		this.pos = offset;
+		this.limit = offset + length;
+		this.word = new char[64];
+		this.lineno = line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (stream != null)
+			stream.close();
+	}
+
+	private void skipByteOrderMark() {
+		if (limit - pos >= 3 && buf[pos] == (byte) 0xEF && buf[pos + 1] == (byte) 0xBB && buf[pos + 2] == (byte) 0xBF)
+			pos += 3;
+	}
+
+	/**
+	 * Read more bytes in the buffer, keeping everything after {@link #mark} (or pos)
+	 *
+	 * @return false if the end of the input is reached
+	 */
+	private boolean fill() throws IOException {
+		if (stream == null)
+			return false;
+
+		int keep = mark >= 0 ? mark : pos;
+		if (keep > 0) {
+			System.arraycopy(buf, keep, buf, 0, limit - keep);
+			limit -= keep;
+			pos -= keep;
+			if (mark >= 0)
+				mark -= keep;
+		} else if (limit == buf.length) {
+			byte[] bigger = new byte[buf.length * 2];
+			System.arraycopy(buf, 0, bigger, 0, limit);
+			buf = bigger;
+		}
+
+		int read = stream.read(buf, limit, buf.length - limit);
+		if (read <= 0)
+			return false;
+
+		limit += read;
+		if (atStart) {
+			atStart = false;
+			// the BOM may arrive in several reads
+			while (limit < 3 && buf[0] == (byte) 0xEF) {
+				read = stream.read(buf, limit, buf.length - limit);
+				if (read <= 0)
+					break;
+				limit += read;
+			}
+
+			skipByteOrderMark();
+			if (pos == limit)
+				return fill();
+		}
+
+		return true;
+	}
+
+	@Override
+	boolean inMemory() {
+		return stream == null;
+	}
+
+	@Override
+	int position() {
+		return pos;
+	}
+
+	@Override
+	JSONLexer region(int start, int end, int line) {
+		return new JSONUTF8Lexer(buf, start, end - start, line);
+	}
+
+	@Override
+	boolean skipContainer() throws IOException, JSONSyntaxException {
+		if (stream != null || cStyleComments)
+			return super.skipContainer();
+
+		// the whole input is in buf, scan it directly
+		final byte[] b = buf;
+		final int l = limit;
+		int p = pos;
+		int depth = 1;
+		try {
+			while (p < l) {
+				switch (b[p++]) {
+					case '"':
+						while (true) {
+							if (p >= l)
+								throw unterminatedString();
+							byte c = b[p++];
+							if (c == '"')
+								break;
+							if (c == '\\')
+								++p;
+							else if (c == '\n' || c == '\r')
+								throw unterminatedString();
+						}
+						break;
+					case '{':
+					case '[':
+						++depth;
+						break;
+					case '}':
+					case ']':
+						if (--depth == 0) {
+							ttype = b[p - 1];
+							return true;
+						}
+						break;
+					case '\n':
+						++lineno;
+						break;
+					case '\r':
+						++lineno;
+						if (p < l && b[p] == '\n')
+							++p;
+						break;
+					default:
+						break;
+				}
+			}
+
+			return false;
+		} finally {
+			pos = Math.min(p, l);
+		}
+	}
+
+	@Override
+	int readToken() throws IOException, JSONSyntaxException {
+		mark = -1;
+		int c;
+		while (true) {
+			if (pos == limit && !fill())
+				return TT_EOF;
+
+			c = buf[pos++] & 0xFF;
+			switch (c) {
+				case ' ':
+				case '\t':
+					continue;
+				case '\n':
+					++lineno;
+					continue;
+				case '\r':
+					++lineno;
+					if ((pos < limit || fill()) && buf[pos] == '\n')
+						++pos;
+					continue;
+				case '/':
+					if (cStyleComments && skipComment())
+						continue;
+					return c;
+				case '"':
+					scanString();
+					return TT_STRING;
+				default:
+					if (isWordChar(c)) {
+						scanWord();
+						return TT_WORD;
+					}
+
+					return c;
+			}
+		}
+	}
+
+	/**
+	 * Called after reading a '/', skip the comment if there is one.
+	 *
+	 * @return false if the '/' does not start a comment
+	 */
+	private boolean skipComment() throws IOException {
+		if (pos == limit && !fill())
+			return false;
+
+		byte c = buf[pos];
+		if (c == '/') {
+			while (true) {
+				if (pos == limit && !fill())
+					return true;
+
+				c = buf[pos];
+				if (c == '\n' || c == '\r')
+					return true;
+				++pos;
+			}
+		}
+
+		if (c != '*')
+			return false;
+
+		++pos;
+		byte prev = 0;
+		while (true) {
+			if (pos == limit && !fill())
+				return true;
+
+			c = buf[pos++];
+			if (c == '/' && prev == '*')
+				return true;
+
+			if (c == '\n' || (c == '\r' && (pos == limit && !fill() || buf[pos] != '\n')))
+				++lineno;
+			prev = c;
+		}
+	}
+
+	private void scanWord() throws IOException {
+		mark = pos - 1;
+		while (true) {
+			int p = pos;
+			final int l = limit;
+			final byte[] b = buf;
+			while (p < l && isWordChar(b[p]))
+				++p;
+
+			pos = p;
+			if (p < l || !fill())
+				break;
+		}
+
+		// words are ASCII, widen them for the number decoder
+		int len = pos - mark;
+		if (word.length < len)
+			word = new char[Math.max(len, word.length * 2)];
+		for (int i = 0; i < len; ++i)
+			word[i] = (char) buf[mark + i];
+
+		wordOff = 0;
+		wordLen = len;
+	}
+
+	private void scanString() throws IOException, JSONSyntaxException {
+		mark = pos;
+		boolean escaped = false;
+		int bits = 0;
+		while (true) {
+			int p = pos;
+			final int l = limit;
+			final byte[] b = buf;
+			byte c = 0;
+			while (p < l) {
+				c = b[p];
+				if (c == '"' || c == '\\' || c == '\n' || c == '\r')
+					break;
+				bits |= c;
+				++p;
+			}
+
+			pos = p;
+			if (p == l) {
+				if (!fill())
+					throw unterminatedString();
+				continue;
+			}
+
+			if (c == '"')
+				break;
+			if (c != '\\')
+				throw unterminatedString();
+
+			escaped = true;
+			++pos;
+			if (pos == limit && !fill())
+				throw unterminatedString();
+			bits |= buf[pos++];
+		}
+
+		strOff = mark;
+		strLen = pos - mark;
+		strEscaped = escaped;
+		strAscii = bits >= 0;
+		++pos;
+	}
+
+	@Override
+	String stringValue() throws JSONSyntaxException {
+		if (!strEscaped) {
+			if (strAscii)
+				return new String(buf, strOff, strLen, StandardCharsets.ISO_8859_1);
+			return new String(buf, strOff, strLen, StandardCharsets.UTF_8);
+		}
+
+		// decode UTF-8 into chars first, escapes are ASCII so they are left untouched
+		if (scratch.length < strLen)
+			scratch = new char[Math.max(strLen, scratch.length * 2)];
+		int n = strAscii ? widen(buf, strOff, strLen, scratch) : decodeUTF8(buf, strOff, strLen, scratch);
+		n = unescape(scratch, 0, n, scratch);
+		return new String(scratch, 0, n);
+	}
+
+	@Override
+	boolean stringIs(String s) throws JSONSyntaxException {
+		if (strEscaped || !strAscii)
+			return stringValue().equals(s);
+
+		if (s.length() != strLen)
+			return false;
+
+		for (int i = 0; i < strLen; ++i) {
+			if (buf[strOff + i] != s.charAt(i))
+				return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	String stringValue(JSONKeyCache cache) throws JSONSyntaxException {
+		if (!strEscaped && strAscii)
+			return cache.getAscii(buf, strOff, strLen);
+
+		if (scratch.length < strLen)
+			scratch = new char[Math.max(strLen, scratch.length * 2)];
+		int n = strAscii ? widen(buf, strOff, strLen, scratch) : decodeUTF8(buf, strOff, strLen, scratch);
+		if (strEscaped)
+			n = unescape(scratch, 0, n, scratch);
+		return cache.get(scratch, 0, n);
+	}
+
+	private static int widen(byte[] src, int off, int len, char[] dst) {
+		for (int i = 0; i < len; ++i)
+			dst[i] = (char) src[off + i];
+		return len;
+	}
+
+	/**
+	 * Decode UTF-8 bytes, malformed sequences are replaced by U+FFFD
+	 *
+	 * @return the number of chars written (never more than len)
+	 */
+	static int decodeUTF8(byte[] src, int off, int len, char[] dst) {
+		int n = 0;
+		for (int i = off, end = off + len; i < end; ) {
+			int b0 = src[i++];
+			if (b0 >= 0) {
+				dst[n++] = (char) b0;
+				continue;
+			}
+
+			int count, cp;
+			if ((b0 & 0xE0) == 0xC0) {
+				count = 1;
+				cp = b0 & 0x1F;
+			} else if ((b0 & 0xF0) == 0xE0) {
+				count = 2;
+				cp = b0 & 0x0F;
+			} else if ((b0 & 0xF8) == 0xF0) {
+				count = 3;
+				cp = b0 & 0x07;
+			} else {
+				dst[n++] = '\uFFFD';
+				continue;
+			}
+
+			int j = 0;
+			while (j < count && i < end && (src[i] & 0xC0) == 0x80) {
+				cp = (cp << 6) | (src[i++] & 0x3F);
+				++j;
+			}
+
+			final int min = count == 1 ? 0x80 : count == 2 ? 0x800 : 0x10000;
+			if (j != count || cp < min || cp > Character.MAX_CODE_POINT
+					|| (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+				dst[n++] = '\uFFFD';
+			} else if (cp >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				dst[n++] = Character.highSurrogate(cp);
+				dst[n++] = Character.lowSurrogate(cp);
+			} else {
+				dst[n++] = (char) cp;
+			}
+		}
+
+		return n;
+	}
+}
@@ -0,0 +1,109 @@
+package com.guy_732.json.reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A whole file mapped in memory, in windows of 1 GiB (a single mapping cannot exceed 2 GiB), readable
+ * from several threads at once.
+ * <p>
+ * The mappings stay valid once the file is closed, they are released by the garbage collector
+ * when the windows are not reachable anymore (never explicitly: a read of a released mapping would
+ * crash the VM).
+ *
+ * @author Guy_732
+ */
+final class MappedFile implements Closeable {
+	static final int defaultWindowBits = 30;
+
+	private final int windowBits;
+	private final long windowMask;
+
+	private final FileChannel channel;
+	private final long size;
+	private final MappedByteBuffer[] windows;
+
+	MappedFile(Path file) throws IOException {
+		this(file, defaultWindowBits);
+	}
+
+	/**
+	 * @param file       The file to map
+	 * @param windowBits log<sub>2</sub> of the size of the windows (at most 30)
+	 */
+	MappedFile(Path file, int windowBits) throws IOException {
+		super();
+		this.windowBits = windowBits;
+		this.windowMask = (1L << windowBits) - 1;
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			this.size = channel.size();
+			this.windows = new MappedByteBuffer[(int) ((size + windowMask) >>> windowBits)];
+			for (int i = 0; i < windows.length; ++i) {
+				final long start = (long) i << windowBits;
+				windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << windowBits, size - start));
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return log<sub>2</sub> of the size of the windows
+	 */
+	int windowBits() {
+		return windowBits;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @param index Index of the window (its first byte is at {@code index << windowBits()})
+	 * @return The window, read with absolute gets only (its position is shared)
+	 */
+	ByteBuffer window(int index) {
+		return windows[index];
+	}
+
+	byte get(long position) {
+		return windows[(int) (position >>> windowBits)].get((int) (position & windowMask));
+	}
+
+	/**
+	 * Copy a part of the file
+	 *
+	 * @param position Position of the first byte to copy
+	 * @param dst      Where the bytes are copied
+	 * @param offset   Index of the first byte in dst
+	 * @param length   Number of bytes to copy
+	 */
+	void copy(long position, byte[] dst, int offset, int length) {
+		while (length > 0) {
+			// the position of a duplicate is independent from the other threads
+			ByteBuffer window = windows[(int) (position >>> windowBits)].duplicate();
+			window.position((int) (position & windowMask));
+			final int n = Math.min(length, window.remaining());
+			window.get(dst, offset, n);
+			position += n;
+			offset += n;
+			length -= n;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,36 @@
+package com.guy_732.json.writer;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link FilterWriter} counting the characters written through it
+ *
+ * @author Guy_732
+ */
+class CountingWriter extends FilterWriter {
+	long count = 0;
+
+	CountingWriter(Writer out) {
+		super(out);
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		out.write(c);
+		++count;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		out.write(cbuf, off, len);
+		count += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		out.write(str, off, len);
+		count += len;
+	}
+}
@@ -0,0 +1,381 @@
+package com.guy_732.json.writer;
+
+import com.guy_732.json.*;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * With this class, you can write JSON data in a compact binary form by calling the method
+ * {@link JSONBinaryWriter#writeJSONValue(JSONValue) JSONBinaryWriter::writeJSONValue(JSONValue)},
+ * to be read back by {@link com.guy_732.json.reader.JSONBinaryParser JSONBinaryParser} as the same
+ * tree (packed arrays stay packed, doubles keep all their bits, Strings keep their lone surrogates).
+ * <p>
+ * Each value starts with a tag byte:
+ * <ul>
+ * <li>{@code 0x00}, {@code 0x01}, {@code 0x02}: null, false, true</li>
+ * <li>{@code 0x03}: JSONInteger, followed by its value as a zigzag varint</li>
+ * <li>{@code 0x04}: JSONNumber, followed by the 8 bytes of its IEEE 754 representation (big-endian)</li>
+ * <li>{@code 0x05}: JSONString, followed by its length in bytes (varint) and its UTF-8 bytes</li>
+ * <li>{@code 0x06}: JSONArray, followed by the number of elements (varint) and the elements</li>
+ * <li>{@code 0x07}: JSONObject, followed by the number of entries (varint) and the entries</li>
+ * <li>{@code 0x08}: JSONArray of longs, followed by the number of elements (varint) and the
+ * elements as zigzag varints</li>
+ * <li>{@code 0x09}: JSONArray of doubles, followed by the number of elements (varint) and the 8
+ * bytes of each element</li>
+ * </ul>
+ * The varints are unsigned LEB128 (7 bits per byte, low bits first). The key of an entry is a varint
+ * {@code n}: when {@code n} is even, the key is new, its length in bytes is {@code n / 2} and its
+ * UTF-8 bytes follow; when {@code n} is odd, the key is the {@code (n / 2)}th new key of the root
+ * value (the first 65536 new keys can be referenced). Lone surrogates are encoded like the other
+ * characters (3 bytes).
+ * <p>
+ * Each root value is independent: the keys are not referenced across root values.
+ *
+ * @author Guy_732
+ */
+public class JSONBinaryWriter implements Closeable, Flushable {
+	private static final byte tagNull = 0x00;
+	private static final byte tagFalse = 0x01;
+	private static final byte tagTrue = 0x02;
+	private static final byte tagInteger = 0x03;
+	private static final byte tagNumber = 0x04;
+	private static final byte tagString = 0x05;
+	private static final byte tagArray = 0x06;
+	private static final byte tagObject = 0x07;
+	private static final byte tagLongArray = 0x08;
+	private static final byte tagDoubleArray = 0x09;
+
+	/**
+	 * Number of keys of a root value that can be referenced
+	 */
+	private static final int maxKeys = 1 << 16;
+
+	private final OutputStream stream;
+	private final byte[] buf = new byte[8192];
+	private int count = 0;
+
+	/**
+	 * Index of the new keys of the current root value
+	 */
+	private final HashMap<String, Integer> keys = new HashMap<>();
+
+	/**
+	 * The JSONObjects and JSONArrays being written, to detect values containing themselves
+	 */
+	private final Set<JSONValue> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean trustedTrees = false;
+
+	/**
+	 * Construct a new {@link JSONBinaryWriter}
+	 *
+	 * @param stream The {@link OutputStream} to write to (the writer has its own buffer)
+	 * @throws NullPointerException if stream is null
+	 */
+	public JSONBinaryWriter(OutputStream stream) throws NullPointerException {
+		super();
+		if (stream == null) {
+			throw new NullPointerException("'stream' cannot be null");
+		}
+
+		this.stream = stream;
+	}
+
+	/**
+	 * Encode a JSONValue
+	 *
+	 * @param val The value to encode
+	 * @return The binary form of the value
+	 * @throws NullPointerException if val is null OR a JSONValue's type() method returned null
+	 * @throws JSONRecursiveObject  if a value contains itself
+	 */
+	public static byte[] toByteArray(JSONValue val) throws NullPointerException, JSONRecursiveObject {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JSONBinaryWriter writer = new JSONBinaryWriter(out)) {
+			writer.writeJSONValue(val);
+		} catch (IOException e) {
+			throw new AssertionError(e); // ByteArrayOutputStream does not throw
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write the JSONValue to the connected {@link OutputStream}
+	 *
+	 * @param val The value to write
+	 * @throws NullPointerException if val is null OR a JSONValue's type() method returned null
+	 * @throws IOException          thrown by the {@link OutputStream}
+	 * @throws JSONRecursiveObject  if a value contains itself
+	 */
+	public void writeJSONValue(JSONValue val) throws NullPointerException, IOException, JSONRecursiveObject {
+		if (val == null) {
+			throw new NullPointerException("'val' cannot be null");
+		}
+
+		keys.clear();
+		if (!ancestors.isEmpty()) {
+			ancestors.clear();
+		}
+
+		writeValue(val);
+	}
+
+	/**
+	 * Enable/Disable the detection of values containing themselves
+	 *
+	 * @param flag true to skip the detection
+	 * @see JSONWriter#setTrustedTrees(boolean)
+	 */
+	public void setTrustedTrees(boolean flag) {
+		trustedTrees = flag;
+		ancestors.clear();
+	}
+
+	/**
+	 * Flush the buffer and the underlying stream
+	 *
+	 * @throws IOException thrown by the {@link OutputStream}
+	 */
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		stream.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			stream.close();
+		}
+	}
+
+	private void writeValue(JSONValue v) throws NullPointerException, IOException, JSONRecursiveObject {
+		JSONType t = v.type();
+		switch (t) {
+			case JSONNull:
+				write(tagNull);
+				break;
+
+			case JSONBoolean:
+				write(((JSONBoolean) v).getValue() ? tagTrue : tagFalse);
+				break;
+
+			case JSONInteger:
+				write(tagInteger);
+				writeLong(((JSONInteger) v).getValue());
+				break;
+
+			case JSONNumber:
+				write(tagNumber);
+				writeDouble(((JSONNumber) v).getValue());
+				break;
+
+			case JSONString:
+				write(tagString);
+				writeString(((JSONString) v).getString());
+				break;
+
+			case JSONArray:
+				writeArray((JSONArray) v);
+				break;
+
+			case JSONObject:
+				writeObject((JSONObject) v);
+				break;
+
+			default:
+				throw new JSONUnknownType(t);
+		}
+	}
+
+	private void writeObject(JSONObject ob) throws IOException, JSONRecursiveObject {
+		if (!trustedTrees && !ancestors.add(ob)) {
+			throw new JSONRecursiveObject("A JSONObject contains itself");
+		}
+
+		write(tagObject);
+		writeVarint(ob.size());
+		for (Entry<String, JSONValue> v : ob.getMap().entrySet()) {
+			final String key = v.getKey();
+			final Integer index = keys.get(key);
+			if (index != null) {
+				writeVarint(((long) index << 1) | 1);
+			} else {
+				if (keys.size() < maxKeys) {
+					keys.put(key, keys.size());
+				}
+
+				final int len = utf8Length(key);
+				writeVarint((long) len << 1);
+				writeUTF8(key, len);
+			}
+
+			writeValue(v.getValue());
+		}
+
+		if (!trustedTrees) {
+			ancestors.remove(ob);
+		}
+	}
+
+	private void writeArray(JSONArray arr) throws IOException, JSONRecursiveObject {
+		final int size = arr.size();
+		if (arr.isLongArray()) {
+			write(tagLongArray);
+			writeVarint(size);
+			for (int i = 0; i < size; ++i) {
+				writeLong(arr.getLong(i));
+			}
+
+			return;
+		}
+
+		if (arr.isDoubleArray()) {
+			write(tagDoubleArray);
+			writeVarint(size);
+			for (int i = 0; i < size; ++i) {
+				writeDouble(arr.getDouble(i));
+			}
+
+			return;
+		}
+
+		if (!trustedTrees && !ancestors.add(arr)) {
+			throw new JSONRecursiveObject("A JSONArray contains itself");
+		}
+
+		write(tagArray);
+		writeVarint(size);
+		for (JSONValue v : arr.getArray()) {
+			writeValue(v);
+		}
+
+		if (!trustedTrees) {
+			ancestors.remove(arr);
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (count > 0) {
+			stream.write(buf, 0, count);
+			count = 0;
+		}
+	}
+
+	/**
+	 * Make room for n bytes in the buffer (n is at most 10)
+	 */
+	private void ensure(int n) throws IOException {
+		if (buf.length - count < n) {
+			flushBuffer();
+		}
+	}
+
+	private void write(byte b) throws IOException {
+		ensure(1);
+		buf[count++] = b;
+	}
+
+	private void writeVarint(long value) throws IOException {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			buf[count++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+
+		buf[count++] = (byte) value;
+	}
+
+	private void writeLong(long value) throws IOException {
+		writeVarint((value << 1) ^ (value >> 63));
+	}
+
+	private void writeDouble(double value) throws IOException {
+		ensure(8);
+		final long bits = Double.doubleToRawLongBits(value);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			buf[count++] = (byte) (bits >>> shift);
+		}
+	}
+
+	private void writeString(String s) throws IOException {
+		final int len = utf8Length(s);
+		writeVarint(len);
+		writeUTF8(s, len);
+	}
+
+	/**
+	 * @return The number of bytes of s encoded in UTF-8 (lone surrogates included)
+	 */
+	private static int utf8Length(String s) {
+		final int max = s.length();
+		long len = max;
+		for (int i = 0; i < max; ++i) {
+			final char c = s.charAt(i);
+			if (c < 0x80) {
+				continue;
+			}
+
+			if (c < 0x800) {
+				len += 1;
+			} else if (Character.isHighSurrogate(c) && i + 1 < max && Character.isLowSurrogate(s.charAt(i + 1))) {
+				len += 2; // 4 bytes for 2 chars
+				++i;
+			} else {
+				len += 2;
+			}
+		}
+
+		if (len > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("String too long to be encoded");
+		}
+
+		return (int) len;
+	}
+
+	private void writeUTF8(String s, int utf8Length) throws IOException {
+		final int max = s.length();
+		if (utf8Length == max && utf8Length <= buf.length - count) {
+			// ASCII, fits in the buffer
+			for (int i = 0; i < max; ++i) {
+				buf[count++] = (byte) s.charAt(i);
+			}
+
+			return;
+		}
+
+		int i = 0;
+		while (i < max) {
+			ensure(4);
+
+			// every char takes at most 3 bytes, and a surrogate pair 4 bytes
+			final int end = Math.min(max, i + (buf.length - count - 1) / 3);
+			for (; i < end; ++i) {
+				final char c = s.charAt(i);
+				if (c < 0x80) {
+					buf[count++] = (byte) c;
+				} else if (c < 0x800) {
+					buf[count++] = (byte) (0xC0 | (c >> 6));
+					buf[count++] = (byte) (0x80 | (c & 0x3F));
+				} else if (Character.isHighSurrogate(c) && i + 1 < max && Character.isLowSurrogate(s.charAt(i + 1))) {
+					final int cp = Character.toCodePoint(c, s.charAt(++i));
+					buf[count++] = (byte) (0xF0 | (cp >> 18));
+					buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+					buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+					buf[count++] = (byte) (0x80 | (cp & 0x3F));
+				} else {
+					buf[count++] = (byte) (0xE0 | (c >> 12));
+					buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+					buf[count++] = (byte) (0x80 | (c & 0x3F));
+				}
+			}
+		}
+	}
+}
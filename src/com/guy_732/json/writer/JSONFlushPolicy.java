@@ -0,0 +1,85 @@
+package com.guy_732.json.writer;
+
+/**
+ * Decide when a {@link JSONWriter} flushes its underlying writer after a root value has been written.
+ * <p>
+ * {@link JSONFlushPolicy#Explicit JSONFlushPolicy::Explicit} is the default: the writes reaching the
+ * underlying stream are limited by the size of the buffers, not by the number of values. Use a
+ * batched policy to make complete values visible to the reader of the stream regularly, or
+ * {@link JSONFlushPolicy#EachValue JSONFlushPolicy::EachValue} to flush after each of them.
+ *
+ * @author Guy_732
+ */
+public final class JSONFlushPolicy {
+	/**
+	 * Flush after each root value
+	 */
+	public static final JSONFlushPolicy EachValue = new JSONFlushPolicy(1, 0);
+
+	/**
+	 * Only flush when {@link JSONWriter#flush() JSONWriter::flush()} or
+	 * {@link JSONWriter#close() JSONWriter::close()} is called (default)
+	 */
+	public static final JSONFlushPolicy Explicit = new JSONFlushPolicy(0, 0);
+
+	private final int values;
+	private final long chars;
+
+	private JSONFlushPolicy(int values, long chars) {
+		this.values = values;
+		this.chars = chars;
+	}
+
+	/**
+	 * Flush after every {@code count} root values
+	 *
+	 * @param count Number of root values between flushes
+	 * @return The policy
+	 * @throws IllegalArgumentException if {@code count <= 0}
+	 */
+	public static JSONFlushPolicy everyNValues(int count) throws IllegalArgumentException {
+		if (count <= 0) {
+			throw new IllegalArgumentException("'count' must be positive");
+		}
+
+		return count == 1 ? EachValue : new JSONFlushPolicy(count, 0);
+	}
+
+	/**
+	 * Flush after the root value making the number of characters written since the last flush reach
+	 * {@code count} (bytes for ASCII output)
+	 *
+	 * @param count Number of characters between flushes
+	 * @return The policy
+	 * @throws IllegalArgumentException if {@code count <= 0}
+	 */
+	public static JSONFlushPolicy everyNChars(long count) throws IllegalArgumentException {
+		if (count <= 0) {
+			throw new IllegalArgumentException("'count' must be positive");
+		}
+
+		return new JSONFlushPolicy(0, count);
+	}
+
+	/**
+	 * @return true if the characters written must be counted
+	 */
+	boolean countsChars() {
+		return chars != 0;
+	}
+
+	/**
+	 * Check
+	 *
+	 * @param valuesWritten Root values written since the last flush
+	 * @param charsWritten  Characters written since the last flush (0 if not counted)
+	 * @return true if the writer should be flushed
+	 */
+	boolean shouldFlush(int valuesWritten, long charsWritten) {
+		if (values != 0) {
+			return valuesWritten >= values;
+		}
+
+		return chars != 0 && charsWritten >= chars;
+	}
+}
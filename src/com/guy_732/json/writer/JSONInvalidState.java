@@ -0,0 +1,33 @@
+package com.guy_732.json.writer;
+
+import com.guy_732.json.exception.JSONException;
+
+/**
+ * Thrown when the streaming methods of {@link JSONWriter} are called in an order that would not
+ * produce valid JSON (a value without field name inside a JSONObject, unbalanced ends...)
+ *
+ * @author Guy_732
+ */
+public class JSONInvalidState extends JSONException {
+	private static final long serialVersionUID = 3398518563196426807L;
+
+	public JSONInvalidState() {
+		super();
+	}
+
+	public JSONInvalidState(String message) {
+		super(message);
+	}
+
+	public JSONInvalidState(Throwable cause) {
+		super(cause);
+	}
+
+	public JSONInvalidState(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public JSONInvalidState(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+}
@@ -0,0 +1,33 @@
+package com.guy_732.json.writer;
+
+import com.guy_732.json.exception.JSONException;
+
+/**
+ * Thrown when trying to write NaN or an infinity, which have no JSON representation (see
+ * {@link JSONWriter#setNonFinitePolicy(JSONNonFinitePolicy)})
+ *
+ * @author Guy_732
+ */
+public class JSONNonFiniteNumber extends JSONException {
+	private static final long serialVersionUID = -4610588413286385370L;
+
+	public JSONNonFiniteNumber() {
+		super();
+	}
+
+	public JSONNonFiniteNumber(String message) {
+		super(message);
+	}
+
+	public JSONNonFiniteNumber(Throwable cause) {
+		super(cause);
+	}
+
+	public JSONNonFiniteNumber(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public JSONNonFiniteNumber(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+		super(message, cause, enableSuppression, writableStackTrace);
+	}
+}
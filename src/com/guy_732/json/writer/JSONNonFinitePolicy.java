@@ -0,0 +1,25 @@
+package com.guy_732.json.writer;
+
+/**
+ * Decide what a {@link JSONWriter} writes instead of NaN and the infinities, which have no JSON
+ * representation (see {@link JSONWriter#setNonFinitePolicy(JSONNonFinitePolicy)}).
+ *
+ * @author Guy_732
+ */
+public enum JSONNonFinitePolicy {
+	/**
+	 * Throw a {@link JSONNonFiniteNumber} (default)
+	 */
+	Reject,
+
+	/**
+	 * Write `null'
+	 */
+	WriteNull,
+
+	/**
+	 * Write a String: "NaN", "Infinity" or "-Infinity" (as accepted by
+	 * {@link Double#parseDouble(String)}), used by {@link com.guy_732.json.JSONValue#toString()}
+	 */
+	WriteString
+}
@@ -0,0 +1,359 @@
+package com.guy_732.json.writer;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encode the numbers of the JSON grammar (RFC 8259) directly into bytes, without creating a String.
+ * <p>
+ * The longs are written digit pair by digit pair. The finite doubles are written with the shortest
+ * decimal that parses back to the same double (the closest one to the double if there are several),
+ * computed by the Schubfach algorithm of Raffaello Giulietti. The layout is the one of
+ * {@link Double#toString(double)}: plain notation with at least one fractional digit between
+ * 10<sup>-3</sup> (included) and 10<sup>7</sup> (excluded), {@code d.dddE+/-n} otherwise
+ * ({@code 100.0}, {@code 0.001}, {@code 1.0E7}, {@code 4.9E-324}), so a double is never read back as
+ * an integer.
+ *
+ * @author Guy_732
+ */
+final class JSONNumberEncoder {
+	/**
+	 * Maximum number of bytes written for a number ({@code -2.2250738585072014E-308} is 24 bytes
+	 * long, {@code -9223372036854775808} 20)
+	 */
+	static final int maxLength = 24;
+
+	private static final byte[] minLong = "-9223372036854775808".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * The 100 pairs of decimal digits, from {@code 00} to {@code 99}
+	 */
+	private static final byte[] pairs = new byte[200];
+
+	/**
+	 * The powers of ten fitting in a long
+	 */
+	private static final long[] powersOfTen = new long[19];
+
+	// binary64 parameters
+	private static final int precision = 53;
+	private static final long significandMask = (1L << precision - 1) - 1;
+	private static final int qMin = -1074;
+	private static final long cMin = 1L << precision - 1;
+
+	/**
+	 * Below this significand, the subnormal doubles need one more digit to be computed
+	 */
+	private static final long cTiny = 3;
+
+	/**
+	 * Range of the decimal exponents of the scaling factors
+	 */
+	private static final int kMin = -324;
+	private static final int kMax = 292;
+
+	/**
+	 * The 126 bits of floor(10<sup>-k</sup> 2<sup>-r</sup>) + 1 for each k in [{@link #kMin},
+	 * {@link #kMax}], with r = floor(-k log<sub>2</sub>(10)) - 125: the 63 high bits, then the 63
+	 * low bits
+	 */
+	private static final long[] scales = new long[2 * (kMax - kMin + 1)];
+
+	private static final long mask63 = (1L << 63) - 1;
+
+	static {
+		for (int i = 0; i < 100; ++i) {
+			pairs[2 * i] = (byte) ('0' + i / 10);
+			pairs[2 * i + 1] = (byte) ('0' + i % 10);
+		}
+
+		long p = 1;
+		for (int i = 0; i < powersOfTen.length; ++i) {
+			powersOfTen[i] = p;
+			p *= 10;
+		}
+
+		final BigInteger ten = BigInteger.TEN;
+		for (int k = kMin; k <= kMax; ++k) {
+			final int r = flog2pow10(-k) - 125;
+			final BigInteger num = ten.pow(Math.max(-k, 0)).shiftLeft(Math.max(-r, 0));
+			final BigInteger den = ten.pow(Math.max(k, 0)).shiftLeft(Math.max(r, 0));
+			final BigInteger g = num.divide(den).add(BigInteger.ONE);
+			final int i = 2 * (k - kMin);
+			scales[i] = g.shiftRight(63).longValue();
+			scales[i + 1] = g.longValue() & mask63;
+		}
+	}
+
+	private JSONNumberEncoder() {
+		super();
+	}
+
+	/**
+	 * Encode a long
+	 *
+	 * @param value The value
+	 * @param b     Where the bytes are written, with room for at least {@link #maxLength} bytes
+	 * @param p     Index of the first byte
+	 * @return Index after the last byte written
+	 */
+	static int encodeLong(long value, byte[] b, int p) {
+		if (value < 0) {
+			if (value == Long.MIN_VALUE) {
+				System.arraycopy(minLong, 0, b, p, minLong.length);
+				return p + minLong.length;
+			}
+
+			b[p++] = '-';
+			value = -value;
+		}
+
+		final int len = length(value);
+		writeDigits(value, b, p + len, len);
+		return p + len;
+	}
+
+	/**
+	 * Encode a finite double
+	 *
+	 * @param value The value, neither NaN nor infinite
+	 * @param b     Where the bytes are written, with room for at least {@link #maxLength} bytes
+	 * @param p     Index of the first byte
+	 * @return Index after the last byte written
+	 */
+	static int encodeDouble(double value, byte[] b, int p) {
+		assert Double.isFinite(value) : "non-finite values have no JSON representation";
+		final long bits = Double.doubleToRawLongBits(value);
+		final long t = bits & significandMask;
+		final int bq = (int) (bits >>> precision - 1) & 0x7FF;
+		if (bits < 0) {
+			b[p++] = '-';
+		}
+
+		if (bq != 0) {
+			// normal
+			final int mq = -qMin + 1 - bq;
+			final long c = cMin | t;
+			if (0 < mq && mq < precision) {
+				// integer values are written as they are
+				final long f = c >> mq;
+				if (f << mq == c)
+					return format(f, 0, b, p);
+			}
+
+			return shortest(-mq, c, 0, b, p);
+		}
+
+		if (t != 0) {
+			// subnormal
+			return t < cTiny ? shortest(qMin, 10 * t, -1, b, p) : shortest(qMin, t, 0, b, p);
+		}
+
+		b[p] = '0';
+		b[p + 1] = '.';
+		b[p + 2] = '0';
+		return p + 3;
+	}
+
+	/**
+	 * Find the shortest decimal in the rounding interval of c 2<sup>q</sup>, and write it
+	 */
+	private static int shortest(int q, long c, int dk, byte[] b, int p) {
+		final int out = (int) c & 1;
+		final long cb = c << 2;
+		final long cbr = cb + 2;
+		final long cbl;
+		final int k;
+		if (c != cMin || q == qMin) {
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		} else {
+			// the interval is narrower below powers of 2
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+
+		final int h = q + flog2pow10(-k) + 2;
+		final int i = 2 * (k - kMin);
+		final long g1 = scales[i];
+		final long g0 = scales[i + 1];
+
+		final long vb = roundOdd(g1, g0, cb << h);
+		final long vbl = roundOdd(g1, g0, cbl << h);
+		final long vbr = roundOdd(g1, g0, cbr << h);
+
+		final long s = vb >> 2;
+		if (s >= 100) {
+			// one digit less, if a multiple of 10 is in the interval
+			final long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+			final long tp10 = sp10 + 10;
+			final boolean upin = vbl + out <= sp10 << 2;
+			final boolean wpin = (tp10 << 2) + out <= vbr;
+			if (upin != wpin)
+				return format(upin ? sp10 : tp10, k, b, p);
+		}
+
+		final long t = s + 1;
+		final boolean uin = vbl + out <= s << 2;
+		final boolean win = (t << 2) + out <= vbr;
+		if (uin != win)
+			return format(uin ? s : t, k + dk, b, p);
+
+		// both are in the interval, the closest one wins (the even one on a tie)
+		final long cmp = vb - (s + t << 1);
+		return format(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, b, p);
+	}
+
+	/**
+	 * @return The 2 bits above the binary point of (g1 2<sup>63</sup> + g0) cp 2<sup>-127</sup>
+	 * rounded to odd
+	 */
+	private static long roundOdd(long g1, long g0, long cp) {
+		final long x1 = multiplyHigh(g0, cp);
+		final long y0 = g1 * cp;
+		final long y1 = multiplyHigh(g1, cp);
+		final long z = (y0 >>> 1) + x1;
+		final long vbp = y1 + (z >>> 63);
+		return vbp | (z & mask63) + mask63 >>> 63;
+	}
+
+	/**
+	 * @return The 64 high bits of the 128 bits product of x and y (Math.multiplyHigh is not in Java 8)
+	 */
+	private static long multiplyHigh(long x, long y) {
+		final long x1 = x >> 32;
+		final long x2 = x & 0xFFFFFFFFL;
+		final long y1 = y >> 32;
+		final long y2 = y & 0xFFFFFFFFL;
+		final long z2 = x2 * y2;
+		final long t = x1 * y2 + (z2 >>> 32);
+		long z1 = t & 0xFFFFFFFFL;
+		final long z0 = t >> 32;
+		z1 += x2 * y1;
+		return x1 * y1 + z0 + (z1 >> 32);
+	}
+
+	/**
+	 * @return floor(e log<sub>10</sub>(2))
+	 */
+	private static int flog10pow2(int e) {
+		return (int) (e * 661_971_961_083L >> 41);
+	}
+
+	/**
+	 * @return floor(e log<sub>10</sub>(2) + log<sub>10</sub>(3/4))
+	 */
+	private static int flog10threeQuartersPow2(int e) {
+		return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+	}
+
+	/**
+	 * @return floor(e log<sub>2</sub>(10))
+	 */
+	private static int flog2pow10(int e) {
+		return (int) (e * 913_124_641_741L >> 38);
+	}
+
+	/**
+	 * Write the decimal f 10<sup>e</sup> (f positive)
+	 */
+	private static int format(long f, int e, byte[] b, int p) {
+		while (f % 10 == 0) {
+			f /= 10;
+			++e;
+		}
+
+		final int len = length(f);
+		// exponent of the first digit
+		final int exp = len + e - 1;
+		if (exp >= 0 && exp < 7) {
+			final int intLen = exp + 1;
+			if (len <= intLen) {
+				writeDigits(f, b, p + len, len);
+				p += len;
+				for (int i = len; i < intLen; ++i) {
+					b[p++] = '0';
+				}
+
+				b[p] = '.';
+				b[p + 1] = '0';
+				return p + 2;
+			}
+
+			final long scale = powersOfTen[len - intLen];
+			writeDigits(f / scale, b, p + intLen, intLen);
+			p += intLen;
+			b[p++] = '.';
+			writeDigits(f % scale, b, p + len - intLen, len - intLen);
+			return p + len - intLen;
+		}
+
+		if (exp < 0 && exp >= -3) {
+			b[p++] = '0';
+			b[p++] = '.';
+			for (int i = -1; i > exp; --i) {
+				b[p++] = '0';
+			}
+
+			writeDigits(f, b, p + len, len);
+			return p + len;
+		}
+
+		final long scale = powersOfTen[len - 1];
+		b[p++] = (byte) ('0' + f / scale);
+		b[p++] = '.';
+		if (len == 1) {
+			b[p++] = '0';
+		} else {
+			writeDigits(f % scale, b, p + len - 1, len - 1);
+			p += len - 1;
+		}
+
+		b[p++] = 'E';
+		int x = exp;
+		if (x < 0) {
+			b[p++] = '-';
+			x = -x;
+		}
+
+		final int xLen = x < 10 ? 1 : x < 100 ? 2 : 3;
+		writeDigits(x, b, p + xLen, xLen);
+		return p + xLen;
+	}
+
+	/**
+	 * @return Number of decimal digits of value (positive or 0)
+	 */
+	private static int length(long value) {
+		final int t = (64 - Long.numberOfLeadingZeros(value)) * 1233 >>> 12;
+		return value >= powersOfTen[t] ? t + 1 : Math.max(t, 1);
+	}
+
+	/**
+	 * Write the len last decimal digits of value (with leading zeros), ending before index end
+	 */
+	private static void writeDigits(long value, byte[] b, int end, int len) {
+		final int start = end - len;
+		int i = end;
+		while (value > Integer.MAX_VALUE) {
+			final long q = value / 100;
+			final int r = (int) (value - q * 100);
+			b[--i] = pairs[2 * r + 1];
+			b[--i] = pairs[2 * r];
+			value = q;
+		}
+
+		int v = (int) value;
+		while (i - start >= 2) {
+			final int q = v / 100;
+			final int r = v - q * 100;
+			b[--i] = pairs[2 * r + 1];
+			b[--i] = pairs[2 * r];
+			v = q;
+		}
+
+		if (i > start) {
+			b[--i] = (byte) ('0' + v);
+		}
+	}
+}
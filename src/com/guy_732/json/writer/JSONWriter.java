@@ -3,19 +3,137 @@ package com.guy_732.json.writer;
 import com.guy_732.json.*;
 
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * With this class, you can write JSON data to a writer by calling the method
  * {@link JSONWriter#writeJSONValue(JSONValue)
  * JSONWriter::writeJSONValue(JSONValue)}
+ * <p>
+ * Values can also be written incrementally, without building a {@link JSONValue} tree, with
+ * {@link JSONWriter#writeStartArray()}, {@link JSONWriter#writeStartObject()},
+ * {@link JSONWriter#writeFieldName(String)}, {@link JSONWriter#writeNumber(long)}... (a
+ * {@link JSONValue} can be written anywhere a value is expected).
+ * <p>
+ * The underlying writer is only flushed by {@link JSONWriter#flush()} and {@link JSONWriter#close()}
+ * by default, see {@link JSONWriter#setFlushPolicy(JSONFlushPolicy)} to flush after some root values.
+ * <p>
+ * Large JSONArrays and JSONObjects can be written by several threads, see
+ * {@link JSONWriter#setParallelPool(ForkJoinPool)}.
+ * <p>
+ * The writers of an {@link OutputStream} or a {@link WritableByteChannel} (and
+ * {@link JSONWriter#toUTF8(JSONValue)}) encode the JSON data in UTF-8 straight into bytes: no
+ * {@link OutputStreamWriter} and no intermediate char[] buffer, the runs of ASCII characters are
+ * copied by a fast path and the numbers are formatted directly as bytes.
+ * <p>
+ * The numbers are written without creating Strings: the doubles with the shortest decimal parsed
+ * back to the same double, in the layout of {@link Double#toString(double)} ({@code 0.1},
+ * {@code 1.0E10}). NaN and the infinities have no JSON representation, they are rejected by default
+ * ({@link com.guy_732.json.JSONValue#toString()} writes them as Strings),
+ * see {@link JSONWriter#setNonFinitePolicy(JSONNonFinitePolicy)}.
  *
  * @author Guy_732
  */
-public class JSONWriter implements Closeable {
-	private final BufferedWriter writer;
-	private final ArrayDeque<JSONValue> stack = new ArrayDeque<>();
+public class JSONWriter implements Closeable, Flushable {
+	private static final byte arrayStart = 0;
+	private static final byte arrayNext = 1;
+	private static final byte objectStart = 2;
+	private static final byte objectKey = 3;
+	private static final byte objectValue = 4;
+
+	private static final int defaultParallelThreshold = 1 << 14;
+	private static final int minChunkElements = 1 << 8;
+	private static final int maxChunkElements = 1 << 16;
+
+	/**
+	 * Escape sequence of each character needing one (ISO control characters, `"' and `\'), null for
+	 * the others
+	 */
+	private static final String[] escapes = new String[0xA0];
+
+	static {
+		final char[] hex = "0123456789abcdef".toCharArray();
+		for (char c = 0; c < escapes.length; ++c) {
+			if (Character.isISOControl(c)) {
+				escapes[c] = new String(new char[]{'\\', 'u', '0', '0', hex[c >> 4], hex[c & 0xF]});
+			}
+		}
+
+		escapes['"'] = "\\\""; // >> \"
+		escapes['\\'] = "\\\\"; // >> \\
+		escapes['\n'] = "\\n";
+		escapes['\r'] = "\\r";
+		escapes['\b'] = "\\b";
+		escapes['\f'] = "\\f";
+		escapes['\t'] = "\\t";
+	}
+
+	/**
+	 * Reusable writers appending to a {@link StringBuilder}, see {@link #appendTo(StringBuilder, JSONValue)}
+	 */
+	private static final ThreadLocal<JSONWriter> builderWriters = ThreadLocal
+			.withInitial(() -> new JSONWriter(new StringBuilderWriter()));
+
+	/**
+	 * Reusable writers encoding to a byte[], see {@link #toUTF8(JSONValue)}
+	 */
+	private static final ThreadLocal<JSONWriter> byteWriters = ThreadLocal
+			.withInitial(() -> new JSONWriter(new UTF8Writer()));
+
+	/**
+	 * Size above which the byte[] of a reusable writer is not kept
+	 */
+	private static final int maxReusedBytes = 1 << 20;
+
+	/**
+	 * The {@link BufferedWriter} given to the constructor, a {@link StringBuilderWriter} or a
+	 * {@link UTF8Writer}
+	 */
+	private final Writer writer;
+
+	/**
+	 * Where the JSON data is written: {@link #writer} or a {@link CountingWriter} around it
+	 */
+	private Writer out;
+
+	/**
+	 * The JSONObjects and JSONArrays being written, to detect values containing themselves
+	 */
+	private final Set<JSONValue> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean trustedTrees = false;
+
+	/**
+	 * Where the chunks of large containers are written, null to write everything in the calling thread
+	 */
+	private ForkJoinPool parallelPool = null;
+	private int parallelThreshold = defaultParallelThreshold;
+
+	private JSONFlushPolicy flushPolicy = JSONFlushPolicy.Explicit;
+	private int valuesSinceFlush = 0;
+
+	private JSONNonFinitePolicy nonFinitePolicy = JSONNonFinitePolicy.Reject;
+
+	/**
+	 * The numbers written to a writer other than a {@link UTF8Writer} are formatted in these buffers
+	 */
+	private final byte[] numberBytes = new byte[JSONNumberEncoder.maxLength];
+	private final char[] numberChars = new char[JSONNumberEncoder.maxLength];
+
+	/**
+	 * State of each container opened by the streaming methods
+	 */
+	private byte[] states = new byte[16];
+	private int depth = 0;
 
 	/**
 	 * Construct a new {@link JSONWriter}
@@ -40,16 +158,149 @@ public class JSONWriter implements Closeable {
 		}
 
 		this.writer = writer;
+		this.out = writer;
+	}
+
+	private JSONWriter(StringBuilderWriter writer) {
+		super();
+		this.writer = writer;
+		this.out = writer;
+	}
+
+	private JSONWriter(UTF8Writer writer) {
+		super();
+		this.writer = writer;
+		this.out = writer;
 	}
 
 	/**
-	 * Construct a new {@link JSONWriter}
+	 * Construct a new {@link JSONWriter} encoding the JSON data in UTF-8
 	 *
-	 * @param stream The {@link OutputStream} to write to
+	 * @param stream The {@link OutputStream} to write to (the writer has its own buffer)
 	 * @throws NullPointerException if stream is null
 	 */
 	public JSONWriter(OutputStream stream) throws NullPointerException {
-		this(new BufferedWriter(new OutputStreamWriter(stream)));
+		super();
+		if (stream == null) {
+			throw new NullPointerException("'stream' cannot be null");
+		}
+
+		this.writer = new UTF8Writer(stream);
+		this.out = writer;
+	}
+
+	/**
+	 * Construct a new {@link JSONWriter} encoding the JSON data in UTF-8.
+	 * <p>
+	 * The bytes are kept in a few direct {@link java.nio.ByteBuffer ByteBuffers} (64 KiB, reused from
+	 * one write to the next) until they are full or until the writer is flushed (see
+	 * {@link #setFlushPolicy(JSONFlushPolicy)}), they are then written by gathering writes if the
+	 * channel is a {@link java.nio.channels.GatheringByteChannel GatheringByteChannel}. The writes
+	 * return once every byte is written: the channel should be in blocking mode.
+	 *
+	 * @param channel The channel to write to
+	 * @throws NullPointerException if channel is null
+	 */
+	public JSONWriter(WritableByteChannel channel) throws NullPointerException {
+		super();
+		if (channel == null) {
+			throw new NullPointerException("'channel' cannot be null");
+		}
+
+		this.writer = new UTF8Writer(channel);
+		this.out = writer;
+	}
+
+	/**
+	 * Encode a JSONValue in UTF-8.
+	 * <p>
+	 * The bytes are written by a {@link JSONWriter} reused by the calling thread, to a byte[] kept
+	 * from one call to the next.
+	 *
+	 * @param val The value to write
+	 * @return The JSON data of the value
+	 * @throws NullPointerException if val is null OR a JSONValue's type() method returned null
+	 * @throws JSONRecursiveObject  if a value contains itself
+	 * @throws JSONNonFiniteNumber  if a value is NaN or infinite
+	 */
+	public static byte[] toUTF8(JSONValue val) throws NullPointerException, JSONRecursiveObject, JSONNonFiniteNumber {
+		JSONWriter w = byteWriters.get();
+		UTF8Writer target = (UTF8Writer) w.writer;
+		if (target.inUse) {
+			// already in use higher in the stack of this thread
+			target = new UTF8Writer();
+			w = new JSONWriter(target);
+		}
+
+		target.inUse = true;
+		try {
+			w.writeJSONValue(val);
+			return target.toByteArray();
+		} catch (IOException e) {
+			throw new AssertionError(e); // UTF8Writer without target does not throw
+		} finally {
+			target.reset(maxReusedBytes);
+			target.inUse = false;
+		}
+	}
+
+	/**
+	 * Append a JSONValue to a {@link StringBuilder}.
+	 * <p>
+	 * No {@link BufferedWriter} is involved, the characters are appended directly by a
+	 * {@link JSONWriter} reused by the calling thread.
+	 *
+	 * @param builder Where the value is appended
+	 * @param val     The value to write
+	 * @throws NullPointerException if builder or val is null OR a JSONValue's type() method
+	 *                              returned null
+	 * @throws JSONRecursiveObject  if a value contains itself
+	 * @throws JSONNonFiniteNumber  if a value is NaN or infinite
+	 */
+	public static void appendTo(StringBuilder builder, JSONValue val)
+			throws NullPointerException, JSONRecursiveObject, JSONNonFiniteNumber {
+		appendTo(builder, val, JSONNonFinitePolicy.Reject);
+	}
+
+	/**
+	 * Append a JSONValue to a {@link StringBuilder}, see {@link #appendTo(StringBuilder, JSONValue)}.
+	 *
+	 * @param builder Where the value is appended
+	 * @param val     The value to write
+	 * @param policy  What to write instead of NaN and the infinities
+	 * @throws NullPointerException if builder, val or policy is null OR a JSONValue's type() method
+	 *                              returned null
+	 * @throws JSONRecursiveObject  if a value contains itself
+	 * @throws JSONNonFiniteNumber  if a value is NaN or infinite and the policy rejects them
+	 */
+	public static void appendTo(StringBuilder builder, JSONValue val, JSONNonFinitePolicy policy)
+			throws NullPointerException, JSONRecursiveObject, JSONNonFiniteNumber {
+		if (builder == null) {
+			throw new NullPointerException("'builder' cannot be null");
+		}
+
+		if (policy == null) {
+			throw new NullPointerException("'policy' cannot be null");
+		}
+
+		JSONWriter w = builderWriters.get();
+		StringBuilderWriter target = (StringBuilderWriter) w.writer;
+		if (target.builder != null) {
+			// already in use higher in the stack of this thread
+			target = new StringBuilderWriter();
+			w = new JSONWriter(target);
+		}
+
+		target.builder = builder;
+		w.nonFinitePolicy = policy;
+		try {
+			w.writeJSONValue(val);
+		} catch (IOException e) {
+			throw new AssertionError(e); // StringBuilderWriter does not throw
+		} finally {
+			target.builder = null;
+			w.nonFinitePolicy = JSONNonFinitePolicy.Reject;
+		}
 	}
 
 	/**
@@ -60,14 +311,405 @@ public class JSONWriter implements Closeable {
 	 *                              returned null
 	 * @throws IOException          thrown by {@link BufferedWriter}
 	 * @throws JSONRecursiveObject  if a value contains itself
+	 * @throws JSONInvalidState     if a value cannot be written here (see {@link #writeFieldName(String)})
+	 * @throws JSONNonFiniteNumber  if a value is NaN or infinite and the policy rejects them
 	 */
-	public void writeJSONValue(JSONValue val) throws NullPointerException, IOException, JSONRecursiveObject {
+	public void writeJSONValue(JSONValue val)
+			throws NullPointerException, IOException, JSONRecursiveObject, JSONInvalidState, JSONNonFiniteNumber {
 		if (val == null) {
 			throw new NullPointerException("'val' cannot be null");
 		}
 
+		beforeValue();
+		resetAncestors();
 		writeValue(val);
+		afterValue();
+	}
+
+	/**
+	 * Start a JSONObject, to be closed with {@link #writeEndObject()}
+	 *
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if a value cannot be written here
+	 */
+	public void writeStartObject() throws IOException, JSONInvalidState {
+		beforeValue();
+		push(objectStart);
+		out.write('{');
+	}
+
+	/**
+	 * End the JSONObject started by {@link #writeStartObject()}
+	 *
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if the innermost container is not a JSONObject or a field is missing
+	 *                          its value
+	 */
+	public void writeEndObject() throws IOException, JSONInvalidState {
+		if (depth == 0 || (states[depth - 1] != objectStart && states[depth - 1] != objectKey)) {
+			throw new JSONInvalidState(depth != 0 && states[depth - 1] == objectValue
+					? "Cannot end a JSONObject after a field name without value"
+					: "No JSONObject to end");
+		}
+
+		out.write('}');
+		--depth;
+		afterValue();
+	}
+
+	/**
+	 * Start a JSONArray, to be closed with {@link #writeEndArray()}
+	 *
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if a value cannot be written here
+	 */
+	public void writeStartArray() throws IOException, JSONInvalidState {
+		beforeValue();
+		push(arrayStart);
+		out.write('[');
+	}
+
+	/**
+	 * End the JSONArray started by {@link #writeStartArray()}
+	 *
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if the innermost container is not a JSONArray
+	 */
+	public void writeEndArray() throws IOException, JSONInvalidState {
+		if (depth == 0 || (states[depth - 1] != arrayStart && states[depth - 1] != arrayNext)) {
+			throw new JSONInvalidState("No JSONArray to end");
+		}
+
+		out.write(']');
+		--depth;
+		afterValue();
+	}
+
+	/**
+	 * Write the key of the next value of the current JSONObject
+	 *
+	 * @param name The key
+	 * @throws NullPointerException if name is null
+	 * @throws IOException          thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState     if the innermost container is not a JSONObject or the previous
+	 *                              field is missing its value
+	 */
+	public void writeFieldName(String name) throws NullPointerException, IOException, JSONInvalidState {
+		if (name == null) {
+			throw new NullPointerException("'name' cannot be null");
+		}
+
+		if (depth == 0 || (states[depth - 1] != objectStart && states[depth - 1] != objectKey)) {
+			throw new JSONInvalidState(depth != 0 && states[depth - 1] == objectValue
+					? "Two field names without value in between"
+					: "Field names can only be written inside a JSONObject");
+		}
+
+		if (states[depth - 1] == objectKey) {
+			out.write(',');
+		}
+
+		writeQuoted(name);
+		out.write(':');
+		states[depth - 1] = objectValue;
+	}
+
+	/**
+	 * Write a String value
+	 *
+	 * @param value The value to write, null writes {@code null}
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if a value cannot be written here
+	 */
+	public void writeString(String value) throws IOException, JSONInvalidState {
+		beforeValue();
+		if (value == null) {
+			out.write("null");
+		} else {
+			writeQuoted(value);
+		}
+
+		afterValue();
+	}
+
+	/**
+	 * Write an integer value
+	 *
+	 * @param value The value to write
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if a value cannot be written here
+	 */
+	public void writeNumber(long value) throws IOException, JSONInvalidState {
+		beforeValue();
+		writeLong(value);
+		afterValue();
+	}
+
+	/**
+	 * Write a floating point value
+	 *
+	 * @param value The value to write
+	 * @throws IOException         thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState    if a value cannot be written here
+	 * @throws JSONNonFiniteNumber if value is NaN or infinite and the policy rejects them
+	 */
+	public void writeNumber(double value) throws IOException, JSONInvalidState, JSONNonFiniteNumber {
+		beforeValue();
+		writeDouble(value);
+		afterValue();
+	}
+
+	/**
+	 * Write a boolean value
+	 *
+	 * @param value The value to write
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if a value cannot be written here
+	 */
+	public void writeBoolean(boolean value) throws IOException, JSONInvalidState {
+		beforeValue();
+		out.write(value ? "true" : "false");
+		afterValue();
+	}
+
+	/**
+	 * Write {@code null}
+	 *
+	 * @throws IOException      thrown by {@link BufferedWriter}
+	 * @throws JSONInvalidState if a value cannot be written here
+	 */
+	public void writeNull() throws IOException, JSONInvalidState {
+		beforeValue();
+		out.write("null");
+		afterValue();
+	}
+
+	private void push(byte state) {
+		if (depth == states.length) {
+			byte[] bigger = new byte[depth * 2];
+			System.arraycopy(states, 0, bigger, 0, depth);
+			states = bigger;
+		}
+
+		states[depth++] = state;
+	}
+
+	/**
+	 * Write the separator needed before a value and update the state of the current container
+	 */
+	private void beforeValue() throws IOException, JSONInvalidState {
+		if (depth == 0) {
+			return;
+		}
+
+		switch (states[depth - 1]) {
+			case arrayStart:
+				states[depth - 1] = arrayNext;
+				break;
+
+			case arrayNext:
+				out.write(',');
+				break;
+
+			case objectValue:
+				states[depth - 1] = objectKey;
+				break;
+
+			default:
+				throw new JSONInvalidState("A field name must be written before a value inside a JSONObject");
+		}
+	}
+
+	/**
+	 * Forget the values left by a write interrupted by an exception
+	 */
+	private void resetAncestors() {
+		if (!ancestors.isEmpty()) {
+			ancestors.clear();
+		}
+	}
+
+	/**
+	 * Apply the flush policy once a root value is completely written
+	 */
+	private void afterValue() throws IOException {
+		if (depth != 0) {
+			return;
+		}
+
+		++valuesSinceFlush;
+		long chars = (out instanceof CountingWriter) ? ((CountingWriter) out).count : 0;
+		if (flushPolicy.shouldFlush(valuesSinceFlush, chars)) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write several root values, each followed by a separator.
+	 * <p>
+	 * The flush policy is applied after each value, except for
+	 * {@link JSONFlushPolicy#EachValue JSONFlushPolicy::EachValue} which only flushes once all the values
+	 * are written.
+	 *
+	 * @param values    The values to write
+	 * @param separator Written after each value (for instance {@code "\n"} for newline-delimited JSON),
+	 *                  may be null or empty
+	 * @throws NullPointerException if values is null or contains null
+	 * @throws IOException          thrown by {@link BufferedWriter}
+	 * @throws JSONRecursiveObject  if a value contains itself
+	 * @throws JSONInvalidState     if a JSONObject or JSONArray started by the streaming methods is not
+	 *                              ended
+	 * @throws JSONNonFiniteNumber  if a value is NaN or infinite and the policy rejects them
+	 */
+	public void writeAll(Iterable<? extends JSONValue> values, String separator)
+			throws NullPointerException, IOException, JSONRecursiveObject, JSONInvalidState, JSONNonFiniteNumber {
+		if (values == null) {
+			throw new NullPointerException("'values' cannot be null");
+		}
+
+		if (depth != 0) {
+			throw new JSONInvalidState("writeAll can only write root values");
+		}
+
+		resetAncestors();
+		final JSONFlushPolicy policy = flushPolicy;
+		final boolean batch = policy == JSONFlushPolicy.EachValue;
+		if (batch) {
+			flushPolicy = JSONFlushPolicy.Explicit;
+		}
+
+		try {
+			for (JSONValue v : values) {
+				if (v == null) {
+					throw new NullPointerException("'values' cannot contain null");
+				}
+
+				writeValue(v);
+				if (separator != null) {
+					out.write(separator);
+				}
+
+				afterValue();
+			}
+		} finally {
+			flushPolicy = policy;
+		}
+
+		if (batch) {
+			flush();
+		}
+	}
+
+	/**
+	 * Setter
+	 *
+	 * @param policy When to flush after writing root values
+	 *               ({@link JSONFlushPolicy#Explicit JSONFlushPolicy::Explicit} by default)
+	 * @throws NullPointerException if policy is null
+	 */
+	public void setFlushPolicy(JSONFlushPolicy policy) throws NullPointerException {
+		if (policy == null) {
+			throw new NullPointerException("'policy' cannot be null");
+		}
+
+		if (policy.countsChars() && !(out instanceof CountingWriter)) {
+			out = new CountingWriter(writer);
+		} else if (!policy.countsChars()) {
+			out = writer;
+		}
+
+		flushPolicy = policy;
+	}
+
+	/**
+	 * Enable/Disable the detection of values containing themselves.
+	 * <p>
+	 * Only disable it for trees known to be acyclic (freshly parsed ones for instance): a
+	 * {@link JSONValue} containing itself will then cause a {@link StackOverflowError} instead of a
+	 * {@link JSONRecursiveObject}.
+	 *
+	 * @param flag true to skip the detection
+	 */
+	public void setTrustedTrees(boolean flag) {
+		trustedTrees = flag;
+		ancestors.clear();
+	}
+
+	/**
+	 * Enable/Disable the parallel writing of large containers.
+	 * <p>
+	 * The JSONArrays and JSONObjects of at least {@link #setParallelThreshold(int) parallelThreshold}
+	 * elements are split in chunks written to independent buffers by the tasks of the pool, then
+	 * copied in order to the underlying writer: the output is identical to the one written by the
+	 * calling thread alone. The values inside a chunk are written sequentially, and the values being
+	 * written must not be modified by other threads.
+	 *
+	 * @param pool The pool writing the chunks, null (the default) to write everything in the calling
+	 *             thread
+	 */
+	public void setParallelPool(ForkJoinPool pool) {
+		parallelPool = pool;
+	}
+
+	/**
+	 * Setter
+	 *
+	 * @param elements Minimum number of elements of the JSONArrays and JSONObjects written in
+	 *                 parallel (16384 by default)
+	 * @throws IllegalArgumentException if elements is not positive
+	 */
+	public void setParallelThreshold(int elements) throws IllegalArgumentException {
+		if (elements <= 0) {
+			throw new IllegalArgumentException("'elements' must be positive");
+		}
+
+		parallelThreshold = elements;
+	}
+
+	/**
+	 * Setter
+	 *
+	 * @param policy What is written instead of NaN and the infinities
+	 *               ({@link JSONNonFinitePolicy#Reject JSONNonFinitePolicy::Reject} by default)
+	 * @throws NullPointerException if policy is null
+	 */
+	public void setNonFinitePolicy(JSONNonFinitePolicy policy) throws NullPointerException {
+		if (policy == null) {
+			throw new NullPointerException("'policy' cannot be null");
+		}
+
+		nonFinitePolicy = policy;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The current policy for NaN and the infinities
+	 */
+	public JSONNonFinitePolicy getNonFinitePolicy() {
+		return nonFinitePolicy;
+	}
+
+	/**
+	 * Getter
+	 *
+	 * @return The current flush policy
+	 */
+	public JSONFlushPolicy getFlushPolicy() {
+		return flushPolicy;
+	}
+
+	/**
+	 * Flush the underlying writer
+	 *
+	 * @throws IOException thrown by {@link BufferedWriter}
+	 */
+	public void flush() throws IOException {
 		writer.flush();
+		valuesSinceFlush = 0;
+		if (out instanceof CountingWriter) {
+			((CountingWriter) out).count = 0;
+		}
 	}
 
 	private void writeValue(JSONValue v) throws NullPointerException, IOException, JSONRecursiveObject {
@@ -75,16 +717,16 @@ public class JSONWriter implements Closeable {
 		switch (t) {
 			case JSONNull:
 				assert v instanceof JSONNull : "type() returned JSONNull but the value isn't a JSONNull object";
-				writer.write("null");
+				out.write("null");
 				break;
 
 			case JSONBoolean:
 				assert v instanceof JSONBoolean : "type() returned JSONBoolean but the value isn't a JSONBoolean object";
 				JSONBoolean b = (JSONBoolean) v;
 				if (b.getValue()) {
-					writer.write("true");
+					out.write("true");
 				} else {
-					writer.write("false");
+					out.write("false");
 				}
 
 				break;
@@ -92,19 +734,19 @@ public class JSONWriter implements Closeable {
 			case JSONInteger:
 				assert v instanceof JSONInteger : "type() returned JSONInteger but the value isn't a JSONInteger object";
 				JSONInteger i = (JSONInteger) v;
-				writer.write(Long.toString(i.getValue()));
+				writeLong(i.getValue());
 				break;
 
 			case JSONNumber:
 				assert v instanceof JSONNumber : "type() returned JSONNumber but the value isn't a JSONNumber object";
 				JSONNumber d = (JSONNumber) v;
-				writer.write(Double.toString(d.getValue()));
+				writeDouble(d.getValue());
 				break;
 
 			case JSONString:
 				assert v instanceof JSONString : "type() returned JSONString but the value isn't a JSONString object";
 				JSONString s = (JSONString) v;
-				writeString(s.getString());
+				writeQuoted(s.getString());
 				break;
 
 			case JSONArray:
@@ -122,101 +764,121 @@ public class JSONWriter implements Closeable {
 		}
 	}
 
-	private void writeString(String s) throws IOException {
-		writer.write('"');
+	private void writeQuoted(String s) throws IOException {
+		out.write('"');
 
-		for (int i = 0, max = s.length(); i < max; ++i) {
+		// copy the runs of characters needing no escape in one call
+		final int max = s.length();
+		int start = 0;
+		for (int i = 0; i < max; ++i) {
 			char c = s.charAt(i);
-			switch (c) {
-				case '"':
-					writer.write("\\\""); // >> \"
-					break;
-
-				case '\\':
-					writer.write("\\\\"); // >> \\
-					break;
-
-				case '\n':
-					writer.write("\\n");
-					break;
-
-				case '\r':
-					writer.write("\\r");
-					break;
-
-				case '\b':
-					writer.write("\\b");
-					break;
-
-				case '\f':
-					writer.write("\\f");
-					break;
-
-				case '\t':
-					writer.write("\\t");
-					break;
-
-				default:
-					if (!Character.isISOControl(c)) {
-						writer.write(c);
-						break;
-					}
+			if (c >= escapes.length) {
+				continue;
+			}
 
-					writer.write("\\u");
-					String hex = Integer.toHexString(c);
-					while (hex.length() < 4) {
-						hex = '0' + hex;
-					}
+			String escape = escapes[c];
+			if (escape == null) {
+				continue;
+			}
 
-					writer.write(hex);
-					break;
+			if (i > start) {
+				out.write(s, start, i - start);
 			}
+
+			out.write(escape);
+			start = i + 1;
+		}
+
+		if (start < max) {
+			out.write(s, start, max - start);
 		}
 
-		writer.write('"');
+		out.write('"');
 	}
 
 	private void writeObject(JSONObject ob) throws IOException, JSONRecursiveObject {
-		if (stack.contains(ob)) {
+		if (!trustedTrees && !ancestors.add(ob)) {
 			throw new JSONRecursiveObject("A JSONObject contains itself");
 		}
 
-		stack.push(ob);
+		if (parallelPool != null && ob.size() >= parallelThreshold) {
+			final List<Entry<String, JSONValue>> entries = new ArrayList<>(ob.getMap().entrySet());
+			writeChunks('{', entries.size(), (w, from, to) -> {
+				for (int i = from; i < to; ++i) {
+					if (i != 0) {
+						w.out.write(',');
+					}
+
+					final Entry<String, JSONValue> v = entries.get(i);
+					w.writeQuoted(v.getKey());
+					w.out.write(':');
+					w.writeValue(v.getValue());
+				}
+			}, '}');
+
+			if (!trustedTrees) {
+				ancestors.remove(ob);
+			}
 
-		writer.write('{');
+			return;
+		}
+
+		out.write('{');
 		boolean is_first = true;
 		for (Entry<String, JSONValue> v : ob.getMap().entrySet()) {
 			if (!is_first) {
-				writer.write(',');
+				out.write(',');
 			} else {
 				is_first = false;
 			}
 
-			writeString(v.getKey());
-			writer.write(':');
+			writeQuoted(v.getKey());
+			out.write(':');
 			writeValue(v.getValue());
 		}
 
-		writer.write('}');
+		out.write('}');
 
-		if (stack.pop() != ob) {
-			throw new InternalError(
-					"The popped value from the stack AFTER writing the content of the object wasn't the object written");
+		if (!trustedTrees) {
+			ancestors.remove(ob);
 		}
 	}
 
 	private void writeArray(JSONArray arr) throws IOException, JSONRecursiveObject {
-		if (stack.contains(arr)) {
+		if (arr.isLongArray() || arr.isDoubleArray()) {
+			// packed arrays cannot contain themselves
+			writePackedArray(arr);
+			return;
+		}
+
+		if (!trustedTrees && !ancestors.add(arr)) {
 			throw new JSONRecursiveObject("A JSONArray contains itself");
 		}
 
-		stack.push(arr);
+		if (parallelPool != null && arr.size() >= parallelThreshold) {
+			final List<JSONValue> elements = arr.getArray();
+			writeChunks('[', elements.size(), (w, from, to) -> {
+				for (int i = from; i < to; ++i) {
+					if (i != 0) {
+						w.out.write(',');
+					}
+
+					w.writeValue(elements.get(i));
+				}
+			}, ']');
+
+			if (!trustedTrees) {
+				ancestors.remove(arr);
+			}
+
+			return;
+		}
 
-		writer.write('[');
+		out.write('[');
 		boolean is_first = true;
 		for (JSONValue v : arr.getArray()) {
 			if (!is_first) {
-				writer.write(',');
+				out.write(',');
 			} else {
 				is_first = false;
 			}
@@ -224,11 +886,174 @@ public class JSONWriter implements Closeable {
 			writeValue(v);
 		}
 
-		writer.write(']');
+		out.write(']');
+
+		if (!trustedTrees) {
+			ancestors.remove(arr);
+		}
+	}
+
+	private void writePackedArray(JSONArray arr) throws IOException {
+		if (parallelPool != null && arr.size() >= parallelThreshold) {
+			writeChunks('[', arr.size(), (w, from, to) -> w.writePackedElements(arr, from, to), ']');
+			return;
+		}
+
+		out.write('[');
+		writePackedElements(arr, 0, arr.size());
+		out.write(']');
+	}
+
+	private void writePackedElements(JSONArray arr, int from, int to) throws IOException {
+		final boolean longs = arr.isLongArray();
+		for (int i = from; i < to; ++i) {
+			if (i != 0) {
+				out.write(',');
+			}
+
+			if (longs) {
+				writeLong(arr.getLong(i));
+			} else {
+				writeDouble(arr.getDouble(i));
+			}
+		}
+	}
+
+	/**
+	 * Writes the elements (or entries) of a container between index from (included) and index to
+	 * (excluded), preceded by a separator unless from is 0
+	 */
+	@FunctionalInterface
+	private interface Chunk {
+		void write(JSONWriter w, int from, int to) throws IOException, JSONRecursiveObject;
+	}
+
+	/**
+	 * Write a container in chunks, each written by a task of {@link #parallelPool} to its own
+	 * buffer. At most 2 chunks per thread of the pool are pending, so the buffers do not hold the
+	 * whole container.
+	 */
+	private void writeChunks(char open, int size, Chunk chunk, char close) throws IOException, JSONRecursiveObject {
+		final ForkJoinPool pool = parallelPool;
+		final int parallelism = pool.getParallelism();
+		final int chunkSize = Math.max(minChunkElements, Math.min(maxChunkElements, size / (4 * parallelism)));
+		final ArrayDeque<CompletableFuture<StringBuilder>> pending = new ArrayDeque<>();
+		final char[] block = new char[8192];
+
+		out.write(open);
+		int next = 0;
+		try {
+			while (next < size || !pending.isEmpty()) {
+				while (next < size && pending.size() < 2 * parallelism) {
+					final int from = next;
+					final int to = Math.min(size, from + chunkSize);
+					final JSONWriter w = chunkWriter();
+					pending.add(CompletableFuture.supplyAsync(() -> {
+						try {
+							chunk.write(w, from, to);
+						} catch (IOException e) {
+							throw new AssertionError(e); // StringBuilderWriter does not throw
+						}
+
+						return ((StringBuilderWriter) w.writer).builder;
+					}, pool));
+
+					next = to;
+				}
+
+				final StringBuilder builder = join(pending.poll());
+				for (int i = 0, max = builder.length(); i < max; i += block.length) {
+					final int len = Math.min(block.length, max - i);
+					builder.getChars(i, i + len, block, 0);
+					out.write(block, 0, len);
+				}
+			}
+		} finally {
+			for (CompletableFuture<StringBuilder> f : pending) {
+				f.cancel(false);
+			}
+		}
+
+		out.write(close);
+	}
+
+	/**
+	 * @return A writer of a chunk, appending to its own {@link StringBuilder}, knowing the values
+	 * being written by this writer
+	 */
+	private JSONWriter chunkWriter() {
+		final StringBuilderWriter target = new StringBuilderWriter();
+		target.builder = new StringBuilder();
+		final JSONWriter w = new JSONWriter(target);
+		w.trustedTrees = trustedTrees;
+		w.nonFinitePolicy = nonFinitePolicy;
+		if (!trustedTrees) {
+			w.ancestors.addAll(ancestors);
+		}
+
+		return w;
+	}
+
+	private static StringBuilder join(CompletableFuture<StringBuilder> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw e;
+		}
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (out instanceof UTF8Writer) {
+			((UTF8Writer) out).writeLong(value);
+		} else {
+			writeNumberBytes(JSONNumberEncoder.encodeLong(value, numberBytes, 0));
+		}
+	}
 
-		if (stack.pop() != arr) {
-			throw new InternalError(
-					"The popped value from the stack AFTER writing the content of the array wasn't the array written");
+	private void writeDouble(double value) throws IOException, JSONNonFiniteNumber {
+		if (!Double.isFinite(value)) {
+			writeNonFinite(value);
+		} else if (out instanceof UTF8Writer) {
+			((UTF8Writer) out).writeDouble(value);
+		} else {
+			writeNumberBytes(JSONNumberEncoder.encodeDouble(value, numberBytes, 0));
+		}
+	}
+
+	/**
+	 * Write the len first bytes of {@link #numberBytes} (ASCII characters)
+	 */
+	private void writeNumberBytes(int len) throws IOException {
+		final byte[] b = numberBytes;
+		final char[] c = numberChars;
+		for (int i = 0; i < len; ++i) {
+			c[i] = (char) b[i];
+		}
+
+		out.write(c, 0, len);
+	}
+
+	private void writeNonFinite(double value) throws IOException, JSONNonFiniteNumber {
+		switch (nonFinitePolicy) {
+			case WriteNull:
+				out.write("null");
+				break;
+
+			case WriteString:
+				out.write(Double.isNaN(value) ? "\"NaN\"" : value > 0 ? "\"Infinity\"" : "\"-Infinity\"");
+				break;
+
+			default:
+				throw new JSONNonFiniteNumber(String.format("Cannot write `%s' as a JSON number", value));
 		}
 	}
 
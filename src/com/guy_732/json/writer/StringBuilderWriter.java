@@ -0,0 +1,67 @@
+package com.guy_732.json.writer;
+
+import java.io.Writer;
+
+/**
+ * Unsynchronized {@link Writer} appending to a {@link StringBuilder}, no buffering needed.
+ * <p>
+ * The target can be changed so that an instance (and the {@link JSONWriter} using it) can be reused.
+ *
+ * @author Guy_732
+ */
+final class StringBuilderWriter extends Writer {
+	/**
+	 * Where the characters are appended, null while the writer is unused
+	 */
+	StringBuilder builder = null;
+
+	StringBuilderWriter() {
+		super();
+	}
+
+	@Override
+	public void write(int c) {
+		builder.append((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		builder.append(cbuf, off, len);
+	}
+
+	@Override
+	public void write(String str) {
+		builder.append(str);
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		builder.append(str, off, off + len);
+	}
+
+	@Override
+	public Writer append(CharSequence csq) {
+		builder.append(csq);
+		return this;
+	}
+
+	@Override
+	public Writer append(CharSequence csq, int start, int end) {
+		builder.append(csq, start, end);
+		return this;
+	}
+
+	@Override
+	public Writer append(char c) {
+		builder.append(c);
+		return this;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,370 @@
+package com.guy_732.json.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Unsynchronized {@link Writer} encoding the characters in UTF-8 straight into a byte[] (no
+ * {@link java.nio.charset.CharsetEncoder} and no char[] buffer in between), with a fast path for the
+ * runs of ASCII characters.
+ * <p>
+ * The bytes go to an {@link OutputStream} each time the block is full, or to a
+ * {@link WritableByteChannel}: the blocks are then copied to a few direct
+ * {@link ByteBuffer ByteBuffers} (reused from one write to the next), written by a gathering write
+ * once they are all full or on {@link #flush()}.
+ * Without target, the block grows and keeps everything (see {@link #toByteArray()}).
+ * <p>
+ * Unpaired surrogates are encoded as {@code ?}, like {@link java.io.OutputStreamWriter} does.
+ *
+ * @author Guy_732
+ */
+final class UTF8Writer extends Writer {
+	private static final int blockSize = 1 << 13;
+
+	/**
+	 * Number of direct buffers filled before they are written to the channel
+	 */
+	private static final int maxSegments = 8;
+
+	private final OutputStream stream;
+	private final WritableByteChannel channel;
+
+	/**
+	 * true while a reusable writer without target is writing, see {@link JSONWriter#toUTF8}
+	 */
+	boolean inUse = false;
+
+	private byte[] buf = new byte[blockSize];
+	private int count = 0;
+
+	/**
+	 * Direct buffers holding the blocks written to the channel, until they are all full or until the
+	 * next flush
+	 */
+	private final ByteBuffer[] segments;
+	private int segmentsUsed = 0;
+
+	/**
+	 * High surrogate ending the last write, waiting for its low surrogate
+	 */
+	private char pendingHigh = 0;
+
+	UTF8Writer(OutputStream stream) {
+		super();
+		this.stream = stream;
+		this.channel = null;
+		this.segments = null;
+	}
+
+	UTF8Writer(WritableByteChannel channel) {
+		super();
+		this.stream = null;
+		this.channel = channel;
+		this.segments = new ByteBuffer[maxSegments];
+	}
+
+	/**
+	 * Construct a new {@link UTF8Writer} keeping every byte in memory
+	 */
+	UTF8Writer() {
+		super();
+		this.stream = null;
+		this.channel = null;
+		this.segments = null;
+	}
+
+	/**
+	 * @return A copy of the bytes written (only without target)
+	 */
+	byte[] toByteArray() {
+		return Arrays.copyOf(buf, count);
+	}
+
+	/**
+	 * Forget the bytes written (only without target), shrinking the block if it grew beyond max
+	 */
+	void reset(int max) {
+		count = 0;
+		pendingHigh = 0;
+		if (buf.length > max)
+			buf = new byte[blockSize];
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		final char ch = (char) c;
+		if (ch < 0x80 && pendingHigh == 0) {
+			if (count == buf.length)
+				drain(1);
+			buf[count++] = (byte) ch;
+			return;
+		}
+
+		encode(ch);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		final int end = off + len;
+		int i = off;
+		while (i < end) {
+			if (pendingHigh == 0) {
+				// ASCII fast path, as many characters as there is room for
+				if (count == buf.length)
+					drain(1);
+				final byte[] b = buf;
+				final int n = Math.min(end - i, b.length - count);
+				int p = count;
+				final int stop = i + n;
+				while (i < stop) {
+					final char c = cbuf[i];
+					if (c >= 0x80)
+						break;
+					b[p++] = (byte) c;
+					++i;
+				}
+
+				count = p;
+				if (i == end)
+					return;
+				if (i == stop)
+					continue;
+			}
+
+			encode(cbuf[i++]);
+		}
+	}
+
+	@Override
+	public void write(String str) throws IOException {
+		write(str, 0, str.length());
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		final int end = off + len;
+		int i = off;
+		while (i < end) {
+			if (pendingHigh == 0) {
+				if (count == buf.length)
+					drain(1);
+				final byte[] b = buf;
+				final int n = Math.min(end - i, b.length - count);
+				int p = count;
+				final int stop = i + n;
+				while (i < stop) {
+					final char c = str.charAt(i);
+					if (c >= 0x80)
+						break;
+					b[p++] = (byte) c;
+					++i;
+				}
+
+				count = p;
+				if (i == end)
+					return;
+				if (i == stop)
+					continue;
+			}
+
+			encode(str.charAt(i++));
+		}
+	}
+
+	@Override
+	public Writer append(CharSequence csq) throws IOException {
+		final String s = String.valueOf(csq);
+		write(s, 0, s.length());
+		return this;
+	}
+
+	@Override
+	public Writer append(CharSequence csq, int start, int end) throws IOException {
+		final String s = String.valueOf(csq == null ? "null" : csq.subSequence(start, end));
+		write(s, 0, s.length());
+		return this;
+	}
+
+	@Override
+	public Writer append(char c) throws IOException {
+		write(c);
+		return this;
+	}
+
+	/**
+	 * Write the decimal representation of a long, without creating a String
+	 */
+	void writeLong(long value) throws IOException {
+		reserveNumber();
+		count = JSONNumberEncoder.encodeLong(value, buf, count);
+	}
+
+	/**
+	 * Write the shortest decimal representation of a finite double, without creating a String
+	 */
+	void writeDouble(double value) throws IOException {
+		reserveNumber();
+		count = JSONNumberEncoder.encodeDouble(value, buf, count);
+	}
+
+	private void reserveNumber() throws IOException {
+		if (pendingHigh != 0)
+			unpaired();
+		if (buf.length - count < JSONNumberEncoder.maxLength)
+			drain(JSONNumberEncoder.maxLength);
+	}
+
+	/**
+	 * Encode a character that is not ASCII (or follows a high surrogate)
+	 */
+	private void encode(char c) throws IOException {
+		if (buf.length - count < 4)
+			drain(4);
+
+		if (pendingHigh != 0) {
+			if (Character.isLowSurrogate(c)) {
+				final int cp = Character.toCodePoint(pendingHigh, c);
+				pendingHigh = 0;
+				buf[count++] = (byte) (0xF0 | (cp >> 18));
+				buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				buf[count++] = (byte) (0x80 | (cp & 0x3F));
+				return;
+			}
+
+			unpaired();
+		}
+
+		if (c < 0x80) {
+			buf[count++] = (byte) c;
+		} else if (c < 0x800) {
+			buf[count++] = (byte) (0xC0 | (c >> 6));
+			buf[count++] = (byte) (0x80 | (c & 0x3F));
+		} else if (Character.isHighSurrogate(c)) {
+			pendingHigh = c;
+		} else if (Character.isLowSurrogate(c)) {
+			buf[count++] = '?';
+		} else {
+			buf[count++] = (byte) (0xE0 | (c >> 12));
+			buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			buf[count++] = (byte) (0x80 | (c & 0x3F));
+		}
+	}
+
+	/**
+	 * Replace the pending high surrogate, not followed by a low one
+	 */
+	private void unpaired() throws IOException {
+		pendingHigh = 0;
+		if (count == buf.length)
+			drain(1);
+		buf[count++] = '?';
+	}
+
+	/**
+	 * Make room for n bytes in the block: hand the block to the target, or grow it
+	 */
+	private void drain(int n) throws IOException {
+		if (stream != null) {
+			stream.write(buf, 0, count);
+		} else if (channel != null) {
+			toSegments();
+		} else {
+			buf = Arrays.copyOf(buf, Math.max(count + n, buf.length * 2));
+			return;
+		}
+
+		count = 0;
+	}
+
+	/**
+	 * Copy the block to the direct buffers, writing them to the channel when they are all full
+	 */
+	private void toSegments() throws IOException {
+		int off = 0;
+		while (off < count) {
+			if (segmentsUsed == 0 || !segments[segmentsUsed - 1].hasRemaining()) {
+				if (segmentsUsed == segments.length) {
+					writeSegments();
+				}
+
+				if (segments[segmentsUsed] == null) {
+					segments[segmentsUsed] = ByteBuffer.allocateDirect(blockSize);
+				}
+
+				++segmentsUsed;
+			}
+
+			final ByteBuffer segment = segments[segmentsUsed - 1];
+			final int n = Math.min(count - off, segment.remaining());
+			segment.put(buf, off, n);
+			off += n;
+		}
+	}
+
+	/**
+	 * Write the direct buffers to the channel (with gathering writes when the channel supports them)
+	 * and clear them for reuse
+	 */
+	private void writeSegments() throws IOException {
+		for (int i = 0; i < segmentsUsed; ++i) {
+			segments[i].flip();
+		}
+
+		int first = 0;
+		while (first < segmentsUsed) {
+			if (channel instanceof GatheringByteChannel) {
+				((GatheringByteChannel) channel).write(segments, first, segmentsUsed - first);
+			} else {
+				channel.write(segments[first]);
+			}
+
+			while (first < segmentsUsed && !segments[first].hasRemaining()) {
+				++first;
+			}
+		}
+
+		for (int i = 0; i < segmentsUsed; ++i) {
+			segments[i].clear();
+		}
+
+		segmentsUsed = 0;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (stream != null) {
+			if (count > 0) {
+				stream.write(buf, 0, count);
+				count = 0;
+			}
+
+			stream.flush();
+		} else if (channel != null) {
+			toSegments();
+			count = 0;
+			writeSegments();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (pendingHigh != 0)
+			unpaired();
+
+		try {
+			flush();
+		} finally {
+			if (stream != null) {
+				stream.close();
+			} else if (channel != null) {
+				channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.guy_732.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Packed {@link JSONArray JSONArrays}: the elements returned, their conversion to the generic form,
+ * and both read by several threads
+ *
+ * @author Guy_732
+ */
+class JSONArrayTest {
+	private static String document(int size, boolean doubles) {
+		final StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; ++i) {
+			if (i > 0)
+				sb.append(',');
+			sb.append(1000L * i + 1000000).append(doubles ? ".5" : "");
+		}
+
+		return sb.append(']').toString();
+	}
+
+	@Test
+	void sameElements() {
+		final JSONArray arr = (JSONArray) JSONValue.parseString(document(10, false));
+		assertTrue(arr.isLongArray());
+		final JSONValue first = arr.get(3);
+		assertSame(first, arr.get(3));
+		assertTrue(((JSONInteger) first).isImmutable());
+		assertTrue(arr.isLongArray()); // get does not convert the array
+
+		assertSame(first, arr.getArray().get(3));
+		assertFalse(arr.isLongArray());
+		arr.add(5);
+		arr.add(new JSONString("x"));
+		assertEquals(12, arr.size());
+		assertEquals(1003000L, arr.getLong(3));
+		assertEquals("x", ((JSONString) arr.get(11)).getString());
+	}
+
+	@Test
+	void packedAfterAdd() {
+		final JSONArray arr = (JSONArray) JSONValue.parseString(document(3, true));
+		final JSONValue first = arr.get(0);
+		arr.add(2.5);
+		assertTrue(arr.isDoubleArray());
+		assertEquals(4, arr.size());
+		assertEquals(2.5, ((JSONNumber) arr.get(3)).getValue());
+		assertEquals(((JSONNumber) first).getValue(), ((JSONNumber) arr.get(0)).getValue());
+		arr.add(JSONValue.valueOf(7L));
+		assertFalse(arr.isDoubleArray());
+		assertEquals("[1000000.5,1001000.5,1002000.5,2.5,7]", arr.toString());
+	}
+
+	@Test
+	void concurrentReads() throws Exception {
+		final int threads = 8;
+		final int size = 5000;
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 200; ++round) {
+				final JSONArray arr = (JSONArray) JSONValue.parseString(document(size, round % 2 == 0));
+				final CyclicBarrier start = new CyclicBarrier(threads);
+				final List<Future<JSONValue[]>> results = new ArrayList<>();
+				for (int t = 0; t < threads; ++t) {
+					final int kind = t % 4;
+					results.add(pool.submit(() -> {
+						start.await();
+						final JSONValue[] seen = new JSONValue[size];
+						for (int i = 0; i < size; ++i) {
+							switch (kind) {
+								case 0:
+									seen[i] = arr.getArray().get(i);
+									break;
+								case 1:
+									assertEquals(1000.0 * i + 1000000, Math.floor(arr.getDouble(i)));
+									assertEquals(size, arr.size());
+									seen[i] = arr.get(i);
+									break;
+								default:
+									seen[i] = arr.get(i);
+									break;
+							}
+						}
+
+						return seen;
+					}));
+				}
+
+				final ArrayList<JSONValue> elements = arr.getArray();
+				assertEquals(size, elements.size());
+				for (Future<JSONValue[]> result : results) {
+					final JSONValue[] seen = result.get(30, TimeUnit.SECONDS);
+					for (int i = 0; i < size; ++i)
+						assertSame(elements.get(i), seen[i]);
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.guy_732.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The cache of {@link JSONInteger#valueOf(long)} with the bounds set by system properties (read in
+ * a new JVM each time)
+ *
+ * @author Guy_732
+ */
+class JSONIntegerTest {
+	/**
+	 * Print whether 0, 1, 127, -128 and 1000 are cached
+	 */
+	public static void main(String[] args) {
+		for (long value : new long[]{0, 1, 127, -128, 1000})
+			System.out.print(JSONInteger.valueOf(value) == JSONInteger.valueOf(value) ? '1' : '0');
+	}
+
+	private static String cached(String low, String high) throws IOException, InterruptedException {
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final Process process = new ProcessBuilder(java, "-Xmx128m",
+				"-Dcom.guy_732.json.JSONInteger.cacheLow=" + low, "-Dcom.guy_732.json.JSONInteger.cacheHigh=" + high,
+				"-cp", System.getProperty("java.class.path"), JSONIntegerTest.class.getName())
+				.redirectErrorStream(true).start();
+		try (Scanner out = new Scanner(process.getInputStream(), StandardCharsets.US_ASCII.name())) {
+			final String result = out.useDelimiter("\\A").hasNext() ? out.next() : "";
+			assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+			assertEquals(0, process.exitValue(), result);
+			return result;
+		}
+	}
+
+	@Test
+	void defaultBounds() throws IOException, InterruptedException {
+		assertEquals("11110", cached("-128", "127"));
+	}
+
+	@Test
+	void widerBounds() throws IOException, InterruptedException {
+		assertEquals("11111", cached("-128", "1000"));
+	}
+
+	@Test
+	void narrowerBoundsAreIgnored() throws IOException, InterruptedException {
+		assertEquals("11110", cached("5", "-3"));
+	}
+
+	@Test
+	void hugeBoundsAreCapped() throws IOException, InterruptedException {
+		// an uncapped cache of 2^31 values does not fit in 128 MiB
+		assertEquals("11111", cached(String.valueOf(Integer.MIN_VALUE), String.valueOf(Integer.MAX_VALUE)));
+	}
+}
@@ -0,0 +1,83 @@
+package com.guy_732.json;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONObjectMap} against a {@link LinkedHashMap} under random insertions and removals
+ *
+ * @author Guy_732
+ */
+class JSONObjectMapTest {
+	@Test
+	void sameContentAsLinkedHashMap() {
+		final Random random = new Random(9);
+		for (int round = 0; round < 200; ++round) {
+			final JSONObjectMap map = new JSONObjectMap();
+			final LinkedHashMap<String, JSONValue> expected = new LinkedHashMap<>();
+			final int keys = 1 + random.nextInt(round < 100 ? 12 : 200);
+			for (int op = 0; op < 2000; ++op) {
+				final String key = "k" + random.nextInt(keys);
+				final int action = random.nextInt(10);
+				if (action < 5) {
+					final JSONValue value = new JSONInteger(op);
+					assertSame(expected.put(key, value), map.put(key, value));
+				} else if (action < 8) {
+					assertSame(expected.remove(key), map.remove(key));
+				} else if (action == 8) {
+					// remove a few entries through the iterator
+					final Iterator<Map.Entry<String, JSONValue>> it = map.entrySet().iterator();
+					final Iterator<Map.Entry<String, JSONValue>> ex = expected.entrySet().iterator();
+					while (it.hasNext()) {
+						final Map.Entry<String, JSONValue> e = it.next();
+						assertEquals(ex.next().getKey(), e.getKey());
+						if (random.nextInt(3) == 0) {
+							it.remove();
+							ex.remove();
+						}
+					}
+
+					assertFalse(ex.hasNext());
+				} else {
+					assertSame(expected.get(key), map.get(key));
+					assertEquals(expected.containsKey(key), map.containsKey(key));
+				}
+
+				assertEquals(expected.size(), map.size());
+			}
+
+			assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+			for (Map.Entry<String, JSONValue> e : expected.entrySet()) {
+				assertSame(e.getValue(), map.get(e.getKey()));
+			}
+		}
+	}
+
+	@Test
+	void removalsAreLinear() {
+		final int n = 200_000;
+		final JSONObjectMap map = new JSONObjectMap();
+		for (int i = 0; i < n; ++i) {
+			map.put("k" + i, JSONNull.Null);
+		}
+
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			map.values().removeIf(v -> true);
+			assertTrue(map.isEmpty());
+
+			for (int i = 0; i < n; ++i) {
+				map.put("k" + i, JSONNull.Null);
+			}
+
+			for (int i = 0; i < n; ++i) {
+				assertSame(JSONNull.Null, map.remove("k" + i));
+			}
+
+			assertTrue(map.isEmpty());
+		});
+	}
+}
@@ -0,0 +1,129 @@
+package com.guy_732.json;
+
+import com.guy_732.json.writer.JSONRecursiveObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trip of small documents through {@link JSONValue#parseString(String)} and
+ * {@link JSONValue#toString()}, and the builder reused by {@link JSONValue#toString()}
+ *
+ * @author Guy_732
+ */
+class JSONValueTest {
+	@Test
+	void roundTrip() {
+		final String[] documents = {
+				"null", "true", "false", "0", "-12", "1.5", "\"\"", "\"a\\\"b\\\\c\\n\"", "[]", "{}",
+				"[1,2,3]", "[1.5,-2.0E-7]", "[1,\"a\",null,{\"b\":[true]}]", "{\"a\":{\"b\":{\"c\":[]}},\"d\":1}"
+		};
+
+		for (String doc : documents) {
+			assertEquals(doc, JSONValue.parseString(doc).toString());
+		}
+	}
+
+	@Test
+	void appendTo() {
+		final JSONValue val = JSONValue.parseString("{\"a\":[1,\"b\",null]}");
+		final StringBuilder builder = new StringBuilder("prefix ");
+		assertSame(builder, val.appendTo(builder));
+		assertSame(builder, new JSONInteger(2).appendTo(builder));
+		assertEquals("prefix {\"a\":[1,\"b\",null]}2", builder.toString());
+		assertThrows(NullPointerException.class, () -> val.appendTo(null));
+	}
+
+	@Test
+	void reusedBuilder() {
+		final JSONArray large = new JSONArray();
+		for (int i = 0; i < 20000; ++i)
+			large.add(new JSONString("value " + i));
+
+		// the builder of a large value is not kept, the next values are not affected
+		final String s = large.toString();
+		assertEquals(20000, ((JSONArray) JSONValue.parseString(s)).size());
+		assertEquals("[1,2]", JSONValue.parseString("[1,2]").toString());
+		assertEquals(s, large.toString());
+
+		// a failed write leaves nothing behind
+		final JSONArray self = new JSONArray();
+		self.add(new JSONString("x"));
+		self.add(self);
+		assertThrows(JSONRecursiveObject.class, self::toString);
+		assertEquals("\"y\"", new JSONString("y").toString());
+	}
+
+	/**
+	 * A value calling toString() on another value while it is being written
+	 */
+	private static final class Probe extends JSONValue {
+		private final JSONValue inner;
+		String seen = null;
+
+		Probe(JSONValue inner) {
+			this.inner = inner;
+		}
+
+		@Override
+		public JSONType type() {
+			seen = inner.toString();
+			throw new IllegalStateException("probe");
+		}
+	}
+
+	@Test
+	void reentrantToString() {
+		final JSONValue inner = JSONValue.parseString("{\"inner\":[true,1.5]}");
+		final Probe probe = new Probe(inner);
+		final JSONArray outer = new JSONArray();
+		outer.add(new JSONString("outer"));
+		outer.add(probe);
+
+		// called while the builder of the thread holds `["outer",'
+		final IllegalStateException e = assertThrows(IllegalStateException.class, outer::toString);
+		assertEquals("probe", e.getMessage());
+		assertEquals("{\"inner\":[true,1.5]}", probe.seen);
+
+		// called before anything is written
+		probe.seen = null;
+		assertThrows(IllegalStateException.class, probe::toString);
+		assertEquals("{\"inner\":[true,1.5]}", probe.seen);
+
+		probe.seen = null;
+		final StringBuilder builder = new StringBuilder("x");
+		assertThrows(IllegalStateException.class, () -> outer.appendTo(builder));
+		assertEquals("{\"inner\":[true,1.5]}", probe.seen);
+
+		assertEquals("[\"outer\"]", JSONValue.parseString("[\"outer\"]").toString());
+	}
+
+	@Test
+	void concurrentToString() throws InterruptedException, ExecutionException {
+		final ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; ++t) {
+				final int id = t;
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < 2000; ++i) {
+						final String doc = "[" + id + ",{\"i\":" + i + "}]";
+						assertEquals(doc, JSONValue.parseString(doc).toString());
+					}
+				}));
+			}
+
+			for (Future<?> f : futures)
+				f.get();
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.guy_732.json.path;
+
+import com.guy_732.json.JSONValue;
+import com.guy_732.json.reader.JSONParser;
+import com.guy_732.json.reader.JSONPullParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONPath} on a tree, on a tree read by {@link JSONParser} (packed arrays) and streamed from
+ * a {@link JSONPullParser}: same values selected, in document order, and the invalid expressions
+ *
+ * @author Guy_732
+ */
+class JSONPathTest {
+	private static final String doc = "{\"payload\":{\"items\":[{\"price\":1,\"n\":\"a\"},{\"price\":2.5,\"n\":\"b~/\"},"
+			+ "{\"n\":\"c\",\"price\":null},{\"price\":\"x\"}],\"a/b\":{\"m~n\":7},\"0\":\"zero\",\"packed\":[1,2,3]},"
+			+ "\"list\":[[1,2],[3]]}";
+
+	private static void check(String expression, String expected) throws IOException {
+		final JSONPath path = JSONPath.compile(expression);
+		assertEquals(expected, path.select(JSONValue.parseString(doc)).toString(), expression);
+
+		try (JSONParser parser = new JSONParser(new StringReader(doc))) {
+			parser.setPackedArrays(true);
+			assertEquals(expected, path.select(parser.parse()).toString(), expression);
+		}
+
+		try (JSONPullParser parser = new JSONPullParser(doc.getBytes(StandardCharsets.UTF_8))) {
+			assertEquals(expected, path.select(parser).toString(), expression);
+			assertNull(parser.nextToken(), expression); // the whole value is read
+		}
+	}
+
+	@Test
+	void pointers() throws IOException {
+		check("/payload/items/*/price", "[1, 2.5, null, \"x\"]");
+		check("/payload/items/1/n", "[\"b~/\"]");
+		check("/payload/a~1b/m~0n", "[7]");
+		check("/payload/0", "[\"zero\"]");
+		check("/list/0/1", "[2]");
+		check("/list/*/*", "[1, 2, 3]");
+		check("/payload/packed/2", "[3]");
+		check("/nope", "[]");
+		assertNull(JSONPath.compile("/nope").selectFirst(JSONValue.parseString(doc)));
+	}
+
+	@Test
+	void expressions() throws IOException {
+		check("$.payload.items[*].price", "[1, 2.5, null, \"x\"]");
+		check("$['payload'].items[?(@.price > 1)].n", "[\"b~/\"]");
+		check("$.payload.items[?(@.price == null)].n", "[\"c\"]");
+		check("$.payload.items[?(@.price)].n", "[\"a\", \"b~/\", \"c\"]");
+		check("$.payload.items[?(@.n != 'a')].price", "[2.5, null]");
+		check("$.payload.items[?(@.price <= 1.0)]", "[{\"price\":1,\"n\":\"a\"}]");
+		check("$.payload.items[?(@.price >= 'w')]", "[{\"price\":\"x\"}]");
+		check("$.payload.packed[?(@ > 1)]", "[2, 3]");
+		check("$.list[?(@[1])]", "[[1,2]]");
+		check("$.payload.items[0]", "[{\"price\":1,\"n\":\"a\"}]");
+		assertEquals("{\"price\":1,\"n\":\"a\"}",
+				JSONPath.compile("$.payload.items[*]").selectFirst(JSONValue.parseString(doc)).toString());
+	}
+
+	@Test
+	void invalid() {
+		final String[] expressions = {
+				"abc", "/a~2", "$..a", "$.a[-1]", "$.a[1:2]", "$.a[1,2]", "$.a[?(@.b = 1)]", "$.a['b",
+				"$.a[?(@.b == x)]", "$a", "$.a["
+		};
+		for (String expression : expressions)
+			assertThrows(JSONInvalidPath.class, () -> JSONPath.compile(expression), expression);
+	}
+}
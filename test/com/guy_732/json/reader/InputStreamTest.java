@@ -0,0 +1,60 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONObject;
+import com.guy_732.json.JSONString;
+import com.guy_732.json.JSONValue;
+import com.guy_732.json.writer.JSONWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Non-ASCII Strings written by {@link JSONWriter#JSONWriter(java.io.OutputStream)} and read back by
+ * the InputStream constructors of the parsers
+ *
+ * @author Guy_732
+ */
+class InputStreamTest {
+	private static final String text = "caf\u00e9 \u20ac \ud83d\ude00";
+
+	private static byte[] written() throws IOException {
+		final JSONObject ob = new JSONObject();
+		ob.addValue(text, new JSONString(text));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.writeJSONValue(ob);
+		}
+
+		final byte[] bytes = out.toByteArray();
+		final String expected = "{\"" + text + "\":\"" + text + "\"}";
+		assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), bytes);
+		return bytes;
+	}
+
+	@Test
+	void parser() throws IOException {
+		final JSONValue value;
+		try (JSONParser parser = new JSONParser(new ByteArrayInputStream(written()))) {
+			value = parser.parse();
+		}
+
+		assertEquals(text, ((JSONString) ((JSONObject) value).getJSONValue(text)).getString());
+	}
+
+	@Test
+	void pullParser() throws IOException {
+		final JSONValue value;
+		try (JSONPullParser parser = new JSONPullParser(new ByteArrayInputStream(written()))) {
+			parser.nextToken();
+			value = parser.readValueAsTree();
+		}
+
+		assertEquals(text, ((JSONString) ((JSONObject) value).getJSONValue(text)).getString());
+	}
+}
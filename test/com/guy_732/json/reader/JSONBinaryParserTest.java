@@ -0,0 +1,254 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.*;
+import com.guy_732.json.writer.JSONBinaryWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONBinaryParser}: round trip of random trees written by {@link JSONBinaryWriter} (the
+ * exact bits of the doubles, the chars of the Strings, the packed arrays), hostile and fragmented
+ * streams
+ *
+ * @author Guy_732
+ */
+class JSONBinaryParserTest {
+	/**
+	 * A String tag followed by the length 2<sup>31</sup> - 9 (the largest array size), and no content
+	 */
+	private static final byte[] hostileHeader = {0x05, (byte) 0xF7, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+
+	/**
+	 * Parse {@link #hostileHeader} from a stream, print the name of the exception thrown
+	 */
+	public static void main(String[] args) {
+		try (JSONBinaryParser parser = new JSONBinaryParser(new ByteArrayInputStream(hostileHeader))) {
+			parser.parse();
+			System.out.print("parsed");
+		} catch (Throwable e) {
+			System.out.print(e.getClass().getSimpleName());
+		}
+	}
+
+	private final Random random = new Random(20);
+
+	private String string() {
+		final StringBuilder sb = new StringBuilder();
+		final int n = random.nextInt(12);
+		for (int i = 0; i < n; ++i) {
+			switch (random.nextInt(6)) {
+				case 0:
+					sb.append((char) random.nextInt(0x10000)); // lone surrogates included
+					break;
+				case 1:
+					sb.append("\ud83d\ude00");
+					break;
+				case 2:
+					sb.append('\u00e9');
+					break;
+				default:
+					sb.append("abc".charAt(random.nextInt(3)));
+					break;
+			}
+		}
+
+		return sb.toString();
+	}
+
+	private JSONValue generate(int depth) {
+		switch (random.nextInt(depth > 3 ? 6 : 10)) {
+			case 0:
+				return JSONValue.valueOf(random.nextInt(3) == 0 ? random.nextLong() : random.nextInt(300) - 150);
+			case 1:
+				return JSONValue.valueOf(random.nextInt(4) == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextDouble());
+			case 2:
+				return new JSONString(string());
+			case 3:
+				return JSONNull.Null;
+			case 4:
+				return JSONValue.valueOf(random.nextBoolean());
+			case 5: {
+				if (random.nextBoolean())
+					return JSONArray.ofDoubles(new double[]{-0.0, 1.5, Double.NaN}, 0, 3);
+
+				final long[] values = new long[random.nextInt(5)];
+				for (int i = 0; i < values.length; ++i)
+					values[i] = random.nextLong() >> random.nextInt(64);
+				return JSONArray.ofLongs(values, 0, values.length);
+			}
+			case 6:
+			case 7: {
+				final JSONArray arr = new JSONArray();
+				final int n = random.nextInt(8);
+				for (int i = 0; i < n; ++i)
+					arr.add(generate(depth + 1));
+				return arr;
+			}
+			default: {
+				final JSONObject ob = new JSONObject();
+				final int n = random.nextInt(8);
+				for (int i = 0; i < n; ++i)
+					ob.addValue(random.nextBoolean() ? "k" + random.nextInt(5) : string(), generate(depth + 1));
+				return ob;
+			}
+		}
+	}
+
+	/**
+	 * @return A description of a value distinguishing everything the binary form keeps (which
+	 * {@link JSONValue#toString()} does not: the bits of NaN, the packed arrays, lone surrogates)
+	 */
+	private static String signature(JSONValue value) {
+		final StringBuilder sb = new StringBuilder();
+		signature(value, sb);
+		return sb.toString();
+	}
+
+	private static void signature(JSONValue value, StringBuilder sb) {
+		sb.append(value.type()).append(':');
+		switch (value.type()) {
+			case JSONNumber:
+				sb.append(Long.toHexString(Double.doubleToRawLongBits(((JSONNumber) value).getValue())));
+				break;
+			case JSONString:
+				for (char c : ((JSONString) value).getString().toCharArray())
+					sb.append((int) c).append('.');
+				break;
+			case JSONArray: {
+				final JSONArray arr = (JSONArray) value;
+				sb.append(arr.isLongArray() ? 'L' : arr.isDoubleArray() ? 'D' : 'G').append('[');
+				for (int i = 0; i < arr.size(); ++i) {
+					if (arr.isDoubleArray())
+						sb.append(Long.toHexString(Double.doubleToRawLongBits(arr.getDouble(i))));
+					else
+						signature(arr.get(i), sb);
+					sb.append(',');
+				}
+
+				sb.append(']');
+				break;
+			}
+			case JSONObject:
+				sb.append('{');
+				for (Map.Entry<String, JSONValue> e : ((JSONObject) value).getMap().entrySet()) {
+					for (char c : e.getKey().toCharArray())
+						sb.append((int) c).append('.');
+					sb.append('=');
+					signature(e.getValue(), sb);
+					sb.append(',');
+				}
+
+				sb.append('}');
+				break;
+			default:
+				sb.append(value);
+				break;
+		}
+	}
+
+	/**
+	 * An InputStream returning at most 1000 bytes per read
+	 */
+	private static InputStream fragmented(byte[] data) {
+		return new ByteArrayInputStream(data) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1000));
+			}
+		};
+	}
+
+	@Test
+	void hostileLength() throws IOException {
+		try (JSONBinaryParser parser = new JSONBinaryParser(new ByteArrayInputStream(hostileHeader))) {
+			assertThrows(EOFException.class, parser::parse);
+		}
+
+		assertThrows(JSONInvalidBinary.class, () -> JSONBinaryParser.fromByteArray(hostileHeader));
+
+		// a length that cannot fit in an array
+		final byte[] tooLong = {0x05, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+		try (JSONBinaryParser parser = new JSONBinaryParser(new ByteArrayInputStream(tooLong))) {
+			assertThrows(JSONInvalidBinary.class, parser::parse);
+		}
+	}
+
+	@Test
+	void hostileLengthInSmallHeap() throws IOException, InterruptedException {
+		// the buffer of the whole announced length (2 GiB) does not fit in 32 MiB
+		final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		final Process process = new ProcessBuilder(java, "-Xmx32m", "-cp", System.getProperty("java.class.path"),
+				JSONBinaryParserTest.class.getName()).redirectErrorStream(true).start();
+		try (Scanner out = new Scanner(process.getInputStream(), StandardCharsets.US_ASCII.name())) {
+			final String result = out.useDelimiter("\\A").hasNext() ? out.next() : "";
+			assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+			assertEquals("EOFException", result);
+		}
+	}
+
+	@Test
+	void longStringFromFragmentedStream() throws IOException {
+		final char[] chars = new char[300_000];
+		for (int i = 0; i < chars.length; ++i)
+			chars[i] = i % 1000 == 0 ? '\u20ac' : (char) ('a' + i % 26);
+		final String text = new String(chars);
+		final byte[] data = JSONBinaryWriter.toByteArray(new JSONString(text));
+
+		final JSONValue value;
+		try (JSONBinaryParser parser = new JSONBinaryParser(fragmented(data))) {
+			value = parser.parse();
+		}
+
+		assertEquals(text, ((JSONString) value).getString());
+		final byte[] truncated = Arrays.copyOf(data, data.length - 1);
+		try (JSONBinaryParser parser = new JSONBinaryParser(fragmented(truncated))) {
+			assertThrows(EOFException.class, parser::parse);
+		}
+	}
+
+	@Test
+	void roundTrip() throws IOException {
+		final ByteArrayOutputStream all = new ByteArrayOutputStream();
+		final List<String> signatures = new ArrayList<>();
+		try (JSONBinaryWriter writer = new JSONBinaryWriter(all)) {
+			for (int i = 0; i < 20000; ++i) {
+				final JSONValue value = generate(0);
+				final String signature = signature(value);
+				assertEquals(signature, signature(JSONBinaryParser.fromByteArray(JSONBinaryWriter.toByteArray(value))));
+				writer.writeJSONValue(value);
+				signatures.add(signature);
+			}
+		}
+
+		// the same values one after the other, read from a stream returning a few bytes at a time
+		final InputStream slow = new FilterInputStream(new ByteArrayInputStream(all.toByteArray())) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return super.read(b, off, Math.min(len, 1 + random.nextInt(3)));
+			}
+		};
+		try (JSONBinaryParser parser = new JSONBinaryParser(slow)) {
+			for (String signature : signatures)
+				assertEquals(signature, signature(parser.parse()));
+			assertThrows(EOFException.class, parser::parse);
+		}
+	}
+
+	@Test
+	void truncated() {
+		final byte[] data = JSONBinaryWriter.toByteArray(JSONValue.parseString("{\"a\":[1,2],\"b\":\"x\"}"));
+		for (int length = 0; length < data.length; ++length) {
+			final byte[] truncated = Arrays.copyOf(data, length);
+			assertThrows(JSONInvalidBinary.class, () -> JSONBinaryParser.fromByteArray(truncated));
+		}
+
+		final JSONInvalidBinary e = assertThrows(JSONInvalidBinary.class, () -> JSONBinaryParser.fromByteArray(new byte[]{0x1f}));
+		assertEquals("Unknown tag `0x1f' at offset 0", e.getMessage());
+	}
+}
@@ -0,0 +1,156 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONArray;
+import com.guy_732.json.JSONInteger;
+import com.guy_732.json.JSONObject;
+import com.guy_732.json.JSONValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONFeedParser} against {@link JSONParser}: same values and errors on random sequences of
+ * values (valid, truncated or followed by garbage) fed in random chunks
+ *
+ * @author Guy_732
+ */
+class JSONFeedParserTest {
+	private final Random random = new Random(23);
+
+	private String generate(int depth) {
+		switch (random.nextInt(depth <= 0 ? 6 : 9)) {
+			case 0:
+				return String.valueOf(random.nextLong());
+			case 1:
+				return "\"a\\\"b\\\\\\u00e9\\ud83d\\ude00 \u00e9\ud83d\ude00 \\n\"";
+			case 2:
+				return random.nextBoolean() ? "true" : "false";
+			case 3:
+				return "null";
+			case 4:
+				return String.valueOf(random.nextDouble() * 1e5);
+			case 5:
+				return "-12.5e-3";
+			case 6:
+			case 7: {
+				final StringBuilder sb = new StringBuilder("{");
+				final int n = random.nextInt(4);
+				for (int i = 0; i < n; ++i) {
+					if (i > 0)
+						sb.append(",\r\n ");
+					sb.append("\"k").append(i).append("\" : ").append(generate(depth - 1));
+				}
+
+				return sb.append('}').toString();
+			}
+			default: {
+				final StringBuilder sb = new StringBuilder("[ ");
+				final int n = random.nextInt(5);
+				for (int i = 0; i < n; ++i) {
+					if (i > 0)
+						sb.append(",\n");
+					sb.append(generate(depth - 1));
+				}
+
+				return sb.append(']').toString();
+			}
+		}
+	}
+
+	/**
+	 * @return The values (or the error) of the feed parser, fed in chunks of random sizes
+	 */
+	private List<String> feed(byte[] data, boolean direct) {
+		final JSONFeedParser parser = new JSONFeedParser();
+		final List<String> out = new ArrayList<>();
+		try {
+			JSONValue value;
+			for (int i = 0; i < data.length; ) {
+				final int n = Math.min(data.length - i, 1 + random.nextInt(random.nextBoolean() ? 3 : 200));
+				final ByteBuffer chunk = direct ? ByteBuffer.allocateDirect(n) : ByteBuffer.allocate(n + 5);
+				chunk.put(data, i, n).flip();
+				parser.feed(chunk);
+				i += n;
+				while ((value = parser.nextValue()) != null)
+					out.add(value.toString());
+			}
+
+			parser.endOfInput();
+			while ((value = parser.nextValue()) != null)
+				out.add(value.toString());
+			assertTrue(parser.isFinished());
+		} catch (JSONSyntaxException e) {
+			out.add("error: " + e.getMessage());
+		}
+
+		return out;
+	}
+
+	/**
+	 * @return The values (or the error) of {@link JSONParser} over the whole input
+	 */
+	private static List<String> parse(byte[] data) {
+		final List<String> out = new ArrayList<>();
+		try (JSONParser parser = new JSONParser(data)) {
+			while (true)
+				out.add(parser.parse().toString());
+		} catch (EOFException e) {
+			if (!e.getMessage().startsWith("The parser is at End Of File"))
+				out.add("error: " + e.getMessage());
+		} catch (JSONSyntaxException e) {
+			out.add("error: " + e.getMessage());
+		} catch (IOException e) {
+			throw new AssertionError(e); // the input is in memory
+		}
+
+		return out;
+	}
+
+	@Test
+	void sameValuesAsParser() {
+		for (int t = 0; t < 4000; ++t) {
+			final StringBuilder sb = new StringBuilder(t % 7 == 0 ? "\ufeff" : "");
+			final int n = 1 + random.nextInt(4);
+			for (int i = 0; i < n; ++i)
+				sb.append(generate(4)).append(random.nextBoolean() ? "\n" : " \r\n\t");
+
+			String doc = sb.toString();
+			if (t % 5 == 0)
+				doc = doc.substring(0, random.nextInt(doc.length())); // truncated
+			if (t % 11 == 0)
+				doc += "]"; // garbage
+			final byte[] data = doc.getBytes(StandardCharsets.UTF_8);
+			final String d = doc;
+			// the line of an unfinished value is where the feed parser stopped
+			assertEquals(parse(data).toString().replaceAll("values at line [0-9]+", "values"),
+					feed(data, t % 2 == 0).toString().replaceAll("values at line [0-9]+", "values"), () -> d);
+		}
+	}
+
+	@Test
+	void options() throws Exception {
+		final byte[] doc = "{\"a\":[1,2],\"b\":\"x\",\"c\":3}".getBytes(StandardCharsets.UTF_8);
+		final JSONFeedParser feed = new JSONFeedParser();
+		feed.setFieldFilter(JSONFieldFilter.deny("b"));
+		feed.setPackedArrays(false);
+		feed.setMutableNumbers(true);
+		feed.feed(doc, 0, doc.length);
+		feed.endOfInput();
+
+		final JSONObject ob = (JSONObject) feed.nextValue();
+		assertNull(feed.nextValue());
+		assertTrue(feed.isFinished());
+		assertEquals("{\"a\":[1,2],\"c\":3}", ob.toString());
+		final JSONValue first = ((JSONArray) ob.getJSONValue("a")).get(0);
+		assertNotSame(JSONInteger.valueOf(1), first);
+		((JSONInteger) first).setValue(5); // mutable, not from a packed array
+	}
+}
@@ -0,0 +1,201 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONArray;
+import com.guy_732.json.JSONValue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONLinesReader} against a parse of each line: same values in the same order, same errors
+ * at the same lines, whatever the size of the chunks, the number of threads and the order of the
+ * stream
+ *
+ * @author Guy_732
+ */
+class JSONLinesReaderTest {
+	private static final int[] chunkSizes = {1, 2, 7, 64, 1000, 1 << 20};
+
+	@TempDir
+	Path dir;
+
+	private final Random random = new Random(16);
+
+	private String value() {
+		switch (random.nextInt(6)) {
+			case 0:
+				return String.valueOf(random.nextLong());
+			case 1:
+				return "\"a\\\"b \u00e9\ud83d\ude00 \\n\"";
+			case 2:
+				return "[1, 2, " + random.nextInt(100) + "]";
+			case 3:
+				return "{\"a\": [1.5, true], \"b\": {\"c\": null}}";
+			case 4:
+				return "  " + random.nextInt(10) + "\t";
+			default:
+				return "[]";
+		}
+	}
+
+	private static String[] lines(String doc) {
+		return doc.split("\r\n|\r|\n", -1);
+	}
+
+	/**
+	 * @return The values of the non-empty lines, each one parsed alone
+	 */
+	private static List<String> expected(String doc) {
+		final List<String> values = new ArrayList<>();
+		for (String line : lines(doc)) {
+			if (!line.trim().isEmpty())
+				values.add(JSONValue.parseString(line).toString());
+		}
+
+		return values;
+	}
+
+	private static List<String> read(byte[] data, int chunkSize, int threads, boolean ordered) {
+		try (JSONLinesReader reader = new JSONLinesReader(data)) {
+			reader.setChunkSize(chunkSize);
+			reader.setParallelism(threads);
+			reader.setOrdered(ordered);
+			reader.setMaxPendingChunks(1 + chunkSize % 5);
+			try (Stream<JSONValue> values = reader.stream()) {
+				return values.map(JSONValue::toString).collect(Collectors.toList());
+			}
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private String document(int lines) {
+		final StringBuilder sb = new StringBuilder(random.nextInt(4) == 0 ? "\ufeff" : "");
+		for (int i = 0; i < lines; ++i) {
+			sb.append(random.nextInt(8) == 0 ? "" : value());
+			sb.append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+		}
+
+		if (random.nextBoolean())
+			sb.append(value()); // no line feed at the end
+		return sb.toString();
+	}
+
+	@Test
+	void sameValuesAsEachLine() {
+		for (int t = 0; t < 60; ++t) {
+			final String doc = document(random.nextInt(200));
+			final byte[] data = doc.getBytes(StandardCharsets.UTF_8);
+			final List<String> expected = expected(doc.replace("\ufeff", ""));
+			for (int chunkSize : chunkSizes) {
+				final int threads = chunkSize % 3;
+				assertEquals(expected, read(data, chunkSize, threads, true), doc);
+
+				final List<String> unordered = read(data, chunkSize, threads, false);
+				final List<String> sorted = new ArrayList<>(expected);
+				Collections.sort(sorted);
+				Collections.sort(unordered);
+				assertEquals(sorted, unordered, doc);
+			}
+		}
+	}
+
+	@Test
+	void emptyLines() {
+		for (String doc : new String[]{"", "\n", "\n\n", "1\n2", "1\n2\n", "1\n2\n\n", "\r\n1\r\n\r\n2\r\n", "\ufeff1\n2\n"}) {
+			final byte[] data = doc.getBytes(StandardCharsets.UTF_8);
+			for (int chunkSize : chunkSizes) {
+				assertEquals(doc.trim().isEmpty() ? "[]" : "[1, 2]", read(data, chunkSize, 1, true).toString(), doc);
+			}
+		}
+	}
+
+	@Test
+	void errorsInTheMiddle() {
+		final String[] errors = {"[1, 2", "{\"a\" 1}", "1 2", "[1,\n2]", "\"x", "]"};
+		final String[] messages = {
+				"Value spanning several lines (Expected one value per line) at line %d",
+				"Unexpected token `1' (Expected token `:' after key in JSONObject) at line %d",
+				"Several values on the same line (Expected one value per line) at line %d",
+				"Value spanning several lines (Expected one value per line) at line %d",
+				null, null
+		};
+		for (int t = 0; t < 60; ++t) {
+			final int kind = t % errors.length;
+			final String before = document(random.nextInt(100)) + "\n";
+			final int line = lines(before).length;
+			final String doc = before + errors[kind] + "\n" + document(random.nextInt(50));
+			final byte[] data = doc.getBytes(StandardCharsets.UTF_8);
+			final List<String> expected = expected(before.replace("\ufeff", ""));
+			for (int chunkSize : chunkSizes) {
+				for (boolean ordered : new boolean[]{true, false}) {
+					final List<String> values = new ArrayList<>();
+					final JSONSyntaxException e;
+					try (JSONLinesReader reader = new JSONLinesReader(data)) {
+						reader.setChunkSize(chunkSize);
+						reader.setParallelism(2);
+						reader.setOrdered(ordered);
+						e = assertThrows(JSONSyntaxException.class, () -> reader.stream().forEach(v -> values.add(v.toString())));
+					} catch (IOException io) {
+						throw new AssertionError(io);
+					}
+
+					if (messages[kind] != null)
+						assertEquals(String.format(messages[kind], line), e.getMessage(), doc);
+					assertTrue(e.getMessage().endsWith(" at line " + line), () -> e.getMessage() + "\n" + doc);
+					if (ordered)
+						assertEquals(expected, values, doc); // every line before the error
+				}
+			}
+		}
+	}
+
+	@Test
+	void optionsOfTheStream() throws IOException {
+		final byte[] data = "{\"a\": [1, 2], \"b\": 3}\n[4, 5]\n".getBytes(StandardCharsets.UTF_8);
+		try (JSONLinesReader reader = new JSONLinesReader(data)) {
+			reader.setChunkSize(1);
+			reader.setMaxPendingChunks(1);
+			reader.setPackedArrays(false);
+			reader.setFieldFilter(JSONFieldFilter.deny("b"));
+			try (Stream<JSONValue> stream = reader.stream()) {
+				// the chunks not parsed yet keep the options of the stream
+				reader.setPackedArrays(true);
+				reader.setFieldFilter(null);
+				reader.setChunkSize(1 << 20);
+				final List<JSONValue> values = stream.collect(Collectors.toList());
+				assertEquals("[{\"a\":[1,2]}, [4,5]]", values.toString());
+				assertFalse(((JSONArray) values.get(1)).isLongArray());
+			}
+
+			final List<JSONValue> values = reader.stream().collect(Collectors.toList());
+			assertEquals("[{\"a\":[1,2],\"b\":3}, [4,5]]", values.toString());
+			assertTrue(((JSONArray) values.get(1)).isLongArray());
+		}
+	}
+
+	@Test
+	void mappedFile() throws IOException {
+		final String doc = document(500);
+		final Path file = dir.resolve("lines.json");
+		Files.write(file, doc.getBytes(StandardCharsets.UTF_8));
+		try (JSONLinesReader reader = JSONLinesReader.open(file)) {
+			reader.setChunkSize(100);
+			reader.setParallelism(3);
+			assertEquals(expected(doc.replace("\ufeff", "")),
+					reader.stream().map(JSONValue::toString).collect(Collectors.toList()));
+		}
+	}
+}
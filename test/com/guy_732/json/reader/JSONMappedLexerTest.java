@@ -0,0 +1,201 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.JSONArray;
+import com.guy_732.json.JSONObject;
+import com.guy_732.json.JSONValue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONMappedLexer} against {@link JSONUTF8Lexer} over the same bytes, with windows small
+ * enough for the tokens to cross their boundaries
+ *
+ * @author Guy_732
+ */
+class JSONMappedLexerTest {
+	private static final String[] strings = {
+			"\"\"", "\"a\\\\\"", "\"\\\\\\\"x\"", "\"\u00e9\u20ac\ud83d\ude00\"", "\"q\\u0041\\n\"",
+			"\"abcdefghijklmnopqrstuvwxyz0123456789\"", "\"[{,:}]\"", "\"a\\\"b\""
+	};
+
+	private static final String[] spaces = {"\n", "\r\n", "\r", "  \t", " /* c */ ", "// c\n"};
+
+	@TempDir
+	Path dir;
+
+	private final Random random = new Random(15);
+
+	private String generate(int depth) {
+		final String ws = random.nextInt(3) == 0 ? spaces[random.nextInt(spaces.length)] : " ";
+		switch (random.nextInt(depth > 4 ? 4 : 6)) {
+			case 0:
+				return ws + (random.nextBoolean() ? "-" : "") + random.nextInt(100000000) + ".5E-" + random.nextInt(3);
+			case 1:
+				return ws + strings[random.nextInt(strings.length)];
+			case 2:
+				return ws + (random.nextBoolean() ? "false" : "null");
+			case 3:
+				return "true" + ws;
+			case 4: {
+				final StringBuilder sb = new StringBuilder("[").append(ws);
+				final int n = random.nextInt(5);
+				for (int i = 0; i < n; ++i) {
+					if (i > 0)
+						sb.append(',').append(ws);
+					sb.append(generate(depth + 1));
+				}
+
+				return sb.append(']').toString();
+			}
+			default: {
+				final StringBuilder sb = new StringBuilder("{");
+				final int n = random.nextInt(5);
+				for (int i = 0; i < n; ++i) {
+					if (i > 0)
+						sb.append(',').append(ws);
+					sb.append("\"f").append(i).append('"').append(ws).append(':').append(generate(depth + 1));
+				}
+
+				return sb.append(ws).append('}').toString();
+			}
+		}
+	}
+
+	/**
+	 * @return Two root values, one document in three with a byte replaced by a random structural or
+	 * invalid byte
+	 */
+	private byte[] document(int i) {
+		final byte[] b = ("[" + generate(1) + "," + generate(1) + "] " + generate(0)).getBytes(StandardCharsets.UTF_8);
+		if (i % 3 == 0) {
+			final byte[] noise = "]}[,:\"x\n\\".getBytes(StandardCharsets.US_ASCII);
+			final int c = random.nextInt(noise.length + 1);
+			b[random.nextInt(b.length)] = c < noise.length ? noise[c] : (byte) 0xFF;
+		}
+
+		return b;
+	}
+
+	private static String parse(JSONLexer lexer, boolean lazy, JSONFieldFilter filter) {
+		final StringBuilder out = new StringBuilder();
+		try (JSONParser parser = new JSONParser(lexer)) {
+			parser.supportCStyleComment(true);
+			parser.setLazy(lazy);
+			parser.setFieldFilter(filter);
+			out.append(parser.parse()).append(" | ");
+			parser.skipValue();
+			out.append("skipped | ").append(parser.parse());
+		} catch (Exception e) {
+			out.append(e.getClass().getSimpleName()).append(": ").append(e.getMessage());
+		}
+
+		return out.toString();
+	}
+
+	@Test
+	void sameTrees() throws IOException {
+		final Path file = dir.resolve("doc.json");
+		final JSONFieldFilter filter = JSONFieldFilter.deny("f1", "f3");
+		for (int i = 0; i < 500; ++i) {
+			final byte[] b = document(i);
+			Files.write(file, b);
+			for (int windowBits : new int[]{3, 4, 7, MappedFile.defaultWindowBits}) {
+				for (int mode = 0; mode < 3; ++mode) {
+					final boolean lazy = mode == 1;
+					final JSONFieldFilter f = mode == 2 ? filter : null;
+					final JSONLexer mapped = new JSONMappedLexer(new MappedFile(file, windowBits));
+					// lazy parsing is only used when the file fits in a window
+					assertEquals(parse(new JSONUTF8Lexer(b, 0, b.length), lazy && mapped.inMemory(), f),
+							parse(mapped, lazy, f), () -> new String(b, StandardCharsets.UTF_8));
+				}
+			}
+		}
+	}
+
+	@Test
+	void byteOrderMark() throws IOException {
+		final Path file = dir.resolve("bom.json");
+		Files.write(file, "\ufeff{\"a\": [1, 2]}".getBytes(StandardCharsets.UTF_8));
+		try (JSONParser parser = JSONParser.open(file)) {
+			assertEquals("{\"a\":[1,2]}", parser.parse().toString());
+		}
+
+		Files.write(file, new byte[0]);
+		try (JSONParser parser = JSONParser.open(file)) {
+			assertThrows(EOFException.class, parser::parse);
+		}
+	}
+
+	@Test
+	void deferredValuesOutliveTheParser() throws IOException {
+		final Path file = dir.resolve("lazy.json");
+		Files.write(file, "{\"a\": {\"b\": [1, {\"c\": \"\u00e9\"}]}, \"d\": [true]}".getBytes(StandardCharsets.UTF_8));
+		final JSONValue value;
+		try (JSONParser parser = JSONParser.open(file)) {
+			parser.setLazy(true);
+			value = parser.parse();
+		}
+
+		System.gc(); // the mappings are only released once unreachable
+		final JSONObject a = (JSONObject) ((JSONObject) value).getJSONValue("a");
+		assertTrue(a.isDeferred());
+		assertEquals("{\"b\":[1,{\"c\":\"\u00e9\"}]}", a.toString());
+		assertEquals("[true]", ((JSONArray) ((JSONObject) value).getJSONValue("d")).toString());
+	}
+
+	@Test
+	void pullParser() throws IOException {
+		final Path file = dir.resolve("pull.json");
+		final byte[] b = document(1);
+		Files.write(file, b);
+		final StringBuilder expected = new StringBuilder();
+		final StringBuilder actual = new StringBuilder();
+		try (JSONPullParser direct = new JSONPullParser(b); JSONPullParser mapped = JSONPullParser.open(file)) {
+			direct.supportCStyleComment(true);
+			mapped.supportCStyleComment(true);
+			JSONToken token;
+			while ((token = direct.nextToken()) != null)
+				expected.append(token).append(direct.getLine()).append(direct.getText()).append(' ');
+			while ((token = mapped.nextToken()) != null)
+				actual.append(token).append(mapped.getLine()).append(mapped.getText()).append(' ');
+		}
+
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	void closedParser() throws IOException {
+		final Path file = dir.resolve("closed.json");
+		Files.write(file, "[1] [2]".getBytes(StandardCharsets.UTF_8));
+		final JSONParser parser = JSONParser.open(file);
+		assertEquals("[1]", parser.parse().toString());
+		parser.close();
+		assertThrows(IOException.class, parser::parse);
+	}
+
+	@Test
+	void positionOfLargeFile() throws IOException {
+		final Path file = dir.resolve("large.json");
+		Files.write(file, "[1, 2, 3]".getBytes(StandardCharsets.UTF_8));
+		try (JSONMappedLexer lexer = new JSONMappedLexer(new MappedFile(file, 3))) {
+			assertFalse(lexer.inMemory());
+			assertEquals('[', lexer.nextToken());
+			assertThrows(IllegalStateException.class, lexer::position);
+		}
+
+		try (JSONMappedLexer lexer = new JSONMappedLexer(new MappedFile(file, 4))) {
+			assertTrue(lexer.inMemory());
+			assertEquals('[', lexer.nextToken());
+			assertEquals(1, lexer.position());
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.*;
+import com.guy_732.json.writer.JSONNonFiniteNumber;
+import com.guy_732.json.writer.JSONWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONNumberDecoder} against {@link Long#parseLong(String)} and
+ * {@link Double#parseDouble(String)}
+ *
+ * @author Guy_732
+ */
+class JSONNumberDecoderTest {
+	private final JSONNumberDecoder decoder = new JSONNumberDecoder();
+
+	/**
+	 * Decode s surrounded by other characters
+	 */
+	private boolean decode(String s) {
+		final char[] b = ("12" + s + "x").toCharArray();
+		return decoder.decode(b, 2, s.length());
+	}
+
+	private static boolean isInteger(String s) {
+		return s.indexOf('.') < 0 && s.indexOf('e') < 0 && s.indexOf('E') < 0;
+	}
+
+	private void check(String s) {
+		assertTrue(decode(s), s);
+		long expectedLong = 0;
+		boolean fitsInLong = false;
+		if (isInteger(s)) {
+			try {
+				expectedLong = Long.parseLong(s);
+				fitsInLong = true;
+			} catch (NumberFormatException e) {
+				// decoded as a double
+			}
+		}
+
+		assertEquals(fitsInLong, decoder.integer, s);
+		if (fitsInLong) {
+			assertEquals(expectedLong, decoder.longValue, s);
+		} else {
+			final double expected = Double.parseDouble(s);
+			assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(decoder.doubleValue),
+					() -> s + ": " + decoder.doubleValue + " instead of " + expected);
+		}
+	}
+
+	private static void digits(StringBuilder sb, Random random, int count, boolean leading) {
+		for (int i = 0; i < count; ++i)
+			sb.append((char) ((leading && i == 0 ? '1' + random.nextInt(9) : '0' + random.nextInt(10))));
+	}
+
+	@Test
+	void randomNumbers() {
+		final Random random = new Random(2);
+		final StringBuilder sb = new StringBuilder();
+		for (int round = 0; round < 200000; ++round) {
+			sb.setLength(0);
+			if (random.nextBoolean())
+				sb.append('-');
+			if (random.nextInt(8) == 0)
+				sb.append('0');
+			else
+				digits(sb, random, 1 + random.nextInt(22), true);
+			if (random.nextBoolean()) {
+				sb.append('.');
+				digits(sb, random, 1 + random.nextInt(22), false);
+			}
+
+			if (random.nextBoolean()) {
+				sb.append(random.nextBoolean() ? 'e' : 'E');
+				final int r = random.nextInt(3);
+				if (r != 0)
+					sb.append(r == 1 ? '-' : '+');
+				sb.append(random.nextInt(random.nextBoolean() ? 30 : 340));
+			}
+
+			check(sb.toString());
+		}
+	}
+
+	@Test
+	void randomDoubles() {
+		final Random random = new Random(3);
+		for (int round = 0; round < 100000; ++round) {
+			final double d = Double.longBitsToDouble(random.nextLong());
+			if (Double.isFinite(d))
+				check(Double.toString(d));
+		}
+	}
+
+	@Test
+	void boundaries() {
+		final String[] numbers = {
+				"0", "-0", "0.0", "-0.0", "0e10", "-0E-10", "0.000000000000000000000000001",
+				// subnormals and the smallest normal
+				"4.9e-324", "5e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-323",
+				"2.225073858507201e-308", "2.2250738585072011e-308", "2.2250738585072012e-308",
+				"2.2250738585072014E-308", "-4.9E-324",
+				// largest values
+				"1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "-1.7976931348623157E308",
+				// around 2^53
+				"9007199254740991", "9007199254740992", "9007199254740993",
+				"9007199254740991.0", "9007199254740992.0", "9007199254740993.0", "9007199254740994.0",
+				"9007199254740995.0", "9007199254740993e0", "900719925474099.3e1", "-9007199254740993.0",
+				// 15 and 16 significant digits around the limit of the exact path
+				"123456789012345", "0.123456789012345", "1234567890123456e-10", "123456789012345e22",
+				"123456789012345e-22", "1e22", "1e23", "1e-22", "1e-23", "8.41e21", "8.41e-21",
+				// 19 and 20 digits mantissas
+				"1234567890123456789", "12345678901234567890", "99999999999999999999", "1000000000000000000000",
+				"1234567890123456789.5", "12345678901234567890e-5", "0.12345678901234567890",
+				"3.14159265358979323846", "100000000000000000000.000000000000000000001",
+				// long limits
+				"9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+				"18446744073709551616", "-18446744073709551616", "9223372036854775807.0", "-9223372036854775808e0",
+				// huge exponents
+				"1e308", "1e309", "1e-324", "1e-400", "-1e-400", "1e99999999999", "0.1e100001"
+		};
+
+		for (String s : numbers) {
+			check(s);
+		}
+
+		assertTrue(decode("-9223372036854775808"));
+		assertTrue(decoder.integer);
+		assertEquals(Long.MIN_VALUE, decoder.longValue);
+		assertTrue(decode("9223372036854775808"));
+		assertFalse(decoder.integer);
+		assertEquals(9.223372036854775808e18, decoder.doubleValue);
+	}
+
+	@Test
+	void invalidNumbers() {
+		final String[] invalid = {
+				"", "-", "+1", "01", "-01", "00", "1.", ".5", "-.5", "1.e5", "1e", "1e+", "1E-", "1e+-1", "--1",
+				"1x", "1.5.5", "1e5.5", "0x10", "NaN", "Infinity", "-Infinity", "1 ", " 1", "1_000"
+		};
+
+		for (String s : invalid) {
+			assertFalse(decode(s), s);
+		}
+	}
+
+	@Test
+	void outOfRange() {
+		assertTrue(decode("1e400"));
+		assertFalse(decoder.integer);
+		assertEquals(Double.POSITIVE_INFINITY, decoder.doubleValue);
+		assertTrue(decode("-1e400"));
+		assertEquals(Double.NEGATIVE_INFINITY, decoder.doubleValue);
+
+		// a valid JSON number, kept as an infinity that the default writer rejects
+		final JSONValue val = JSONValue.parseString("[1e400,-1e400,1e-400]");
+		assertEquals("[\"Infinity\",\"-Infinity\",0.0]", val.toString());
+		assertThrows(JSONNonFiniteNumber.class, () -> JSONWriter.toUTF8(val));
+	}
+}
@@ -0,0 +1,211 @@
+package com.guy_732.json.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Differential check of {@link JSONTapeLexer} (structural index enabled) against the direct scan of
+ * {@link JSONUTF8Lexer}: same tokens, line numbers, values and errors on random documents, valid
+ * or corrupted
+ *
+ * @author Guy_732
+ */
+class JSONTapeLexerTest {
+	private static final String[] strings = {
+			"\"\"", "\"a\\\\\"", "\"\\\\\\\"x\"", "\"\u00e9\u20ac\ud83d\ude00\"", "\"q\\u0041\\n\"",
+			"\"" + repeat("x", 70) + "\"", "\"" + repeat("\\\\", 33) + "\"", "\"[{,:}]\"", "\"a\\\"b\""
+	};
+
+	private static final String[] spaces = {"\n", "\r\n", "\r", "  \t"};
+
+	private final Random random = new Random(14);
+
+	private static String repeat(String s, int n) {
+		final char[] c = new char[s.length() * n];
+		for (int i = 0; i < n; ++i) {
+			s.getChars(0, s.length(), c, i * s.length());
+		}
+
+		return new String(c);
+	}
+
+	/**
+	 * @return A random value, with random whitespace between the tokens
+	 */
+	private String generate(int depth) {
+		final String ws = random.nextInt(4) == 0 ? spaces[random.nextInt(spaces.length)] : random.nextBoolean() ? "" : " ";
+		switch (random.nextInt(depth > 5 ? 5 : 8)) {
+			case 0:
+				return ws + (random.nextBoolean() ? "-" : "") + random.nextInt(1000000)
+						+ (random.nextBoolean() ? "" : "." + random.nextInt(100) + "E+" + random.nextInt(3));
+			case 1:
+			case 4:
+				return ws + strings[random.nextInt(strings.length)];
+			case 2:
+				return ws + (random.nextBoolean() ? "false" : "null");
+			case 3:
+				return "true" + ws;
+			case 5:
+			case 6: {
+				final StringBuilder sb = new StringBuilder("[").append(ws);
+				final int n = random.nextInt(6);
+				for (int i = 0; i < n; ++i) {
+					if (i > 0)
+						sb.append(',').append(ws);
+					sb.append(generate(depth + 1));
+				}
+
+				return sb.append(']').toString();
+			}
+			default: {
+				final StringBuilder sb = new StringBuilder("{");
+				final int n = random.nextInt(6);
+				for (int i = 0; i < n; ++i) {
+					if (i > 0)
+						sb.append(',').append(ws);
+					sb.append("\"f").append(i).append('"').append(ws).append(':').append(generate(depth + 1));
+				}
+
+				return sb.append(ws).append('}').toString();
+			}
+		}
+	}
+
+	/**
+	 * @return Two root values, one document in three with a byte replaced by a random structural or
+	 * invalid byte
+	 */
+	private byte[] document(int i) {
+		final byte[] b = (generate(0) + " " + generate(1)).getBytes(StandardCharsets.UTF_8);
+		if (i % 3 == 0 && b.length > 2) {
+			final byte[] noise = "]}[,:\"x\n\\".getBytes(StandardCharsets.US_ASCII);
+			final int c = random.nextInt(noise.length + 1);
+			b[random.nextInt(b.length)] = c < noise.length ? noise[c] : (byte) 0xFF;
+		}
+
+		return b;
+	}
+
+	private static JSONLexer lexer(byte[] b, boolean tape) {
+		if (!tape)
+			return new JSONUTF8Lexer(b, 0, b.length);
+
+		final JSONTapeLexer lexer = new JSONTapeLexer(b, 0, b.length);
+		lexer.structuralIndex = true;
+		return lexer;
+	}
+
+	private static String tokens(byte[] b, boolean tape) {
+		final StringBuilder out = new StringBuilder();
+		try {
+			final JSONLexer lexer = lexer(b, tape);
+			int t;
+			while ((t = lexer.nextToken()) != JSONLexer.TT_EOF) {
+				out.append(t).append('@').append(lexer.lineno()).append(':');
+				if (t == '"')
+					out.append(lexer.stringValue());
+				else if (t == JSONLexer.TT_WORD)
+					out.append(lexer.wordValue());
+				out.append(' ');
+			}
+		} catch (Exception e) {
+			out.append(e.getClass().getSimpleName()).append(": ").append(e.getMessage());
+		}
+
+		return out.toString();
+	}
+
+	private static String parse(byte[] b, boolean tape, boolean lazy, JSONFieldFilter filter) {
+		final StringBuilder out = new StringBuilder();
+		try {
+			final JSONParser parser = new JSONParser(lexer(b, tape));
+			parser.setLazy(lazy);
+			parser.setFieldFilter(filter);
+			out.append(parser.parse()).append(" | ");
+			parser.skipValue();
+			out.append("skipped");
+		} catch (Exception e) {
+			out.append(e.getClass().getSimpleName()).append(": ").append(e.getMessage());
+		}
+
+		return out.toString();
+	}
+
+	@Test
+	void sameTokens() {
+		for (int i = 0; i < 20000; ++i) {
+			final byte[] b = document(i);
+			assertEquals(tokens(b, false), tokens(b, true), () -> new String(b, StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void sameTrees() {
+		final JSONFieldFilter filter = JSONFieldFilter.deny("f1", "f3");
+		for (int i = 0; i < 20000; ++i) {
+			final byte[] b = document(i);
+			for (int mode = 0; mode < 3; ++mode) {
+				final boolean lazy = mode == 1;
+				final JSONFieldFilter f = mode == 2 ? filter : null;
+				assertEquals(parse(b, false, lazy, f), parse(b, true, lazy, f),
+						() -> new String(b, StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	@Test
+	void largeDocument() {
+		// several blocks of the first stage, Strings crossing their boundaries
+		final StringBuilder sb = new StringBuilder("[\n");
+		for (int i = 0; i < 5000; ++i) {
+			if (i > 0)
+				sb.append(",\n");
+			sb.append("{\"id\": ").append(i).append(", \"name\": \"n").append(repeat("\\\"", i % 7))
+					.append(repeat("y", i % 13)).append("\", \"v\": [").append(i * 0.25).append(", null]}");
+		}
+
+		final byte[] b = sb.append("\n]").toString().getBytes(StandardCharsets.UTF_8);
+		assertEquals(tokens(b, false), tokens(b, true));
+		assertEquals(parse(b, false, false, null), parse(b, true, false, null));
+		assertEquals(parse(b, false, true, null), parse(b, true, true, null));
+
+		final byte[] truncated = Arrays.copyOf(b, b.length / 2);
+		assertEquals(parse(truncated, false, false, null), parse(truncated, true, false, null));
+	}
+
+	@Test
+	void backslashTokens() {
+		// the first stage considers every `\' to be in a String, the scan resumes after the ones that are not
+		final String[] pieces = {"\\", "\\\\", "\\\"", "\\\n", "\\\r\n", "\"a\\\"b\"", "[", "]", " ", "1", "\n", "\"x\""};
+		for (int i = 0; i < 5000; ++i) {
+			final StringBuilder sb = new StringBuilder();
+			final int n = random.nextInt(60);
+			for (int j = 0; j < n; ++j)
+				sb.append(pieces[random.nextInt(pieces.length)]);
+
+			final byte[] b = sb.toString().getBytes(StandardCharsets.UTF_8);
+			assertEquals(tokens(b, false), tokens(b, true), sb::toString);
+			assertEquals(parse(b, false, true, null), parse(b, true, true, null), sb::toString);
+		}
+	}
+
+	@Test
+	void manyBackslashesInSkippedContainers() {
+		// a `\' outside a String used to build the rest of the tape again
+		final String backslashes = repeat("\\ ", 1 << 20);
+		final byte[] b = ("{\"a\": [" + backslashes + "], \"b\": {\"c\": [" + backslashes + "\"x\"]}, \"d\": 1}")
+				.getBytes(StandardCharsets.UTF_8);
+		assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+			assertEquals("{\"d\":1} | EOFException: The parser is at End Of File, nothing to be skipped",
+					parse(b, true, false, JSONFieldFilter.deny("a", "b")));
+			assertEquals(parse(b, false, true, null), parse(b, true, true, null));
+		});
+	}
+}
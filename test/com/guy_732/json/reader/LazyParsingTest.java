@@ -0,0 +1,95 @@
+package com.guy_732.json.reader;
+
+import com.guy_732.json.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Trees parsed with {@link JSONParser#setLazy(boolean)} against the eager ones, read by one and by
+ * several threads
+ *
+ * @author Guy_732
+ */
+class LazyParsingTest {
+	private static String document() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < 200; ++i) {
+			if (i != 0)
+				sb.append(',');
+			sb.append("{\"id\":").append(i).append(",\"tags\":[\"a\",\"b\"],\"pos\":[").append(i).append(".5,2.25]")
+					.append(",\"child\":{\"n\":[1,2,{\"deep\":[").append(i).append("]}]}}");
+		}
+
+		return sb.append(']').toString();
+	}
+
+	private static JSONValue parse(String doc, boolean lazy) throws IOException {
+		try (JSONParser parser = new JSONParser(doc.getBytes(StandardCharsets.UTF_8))) {
+			parser.setLazy(lazy);
+			return parser.parse();
+		}
+	}
+
+	@Test
+	void sameTreeAsEager() throws IOException {
+		final String doc = document();
+		assertEquals(parse(doc, false).toString(), parse(doc, true).toString());
+	}
+
+	@Test
+	void optionsSetAfterParsing() throws IOException {
+		final String doc = document();
+		final JSONValue lazy;
+		try (JSONParser parser = new JSONParser(doc.getBytes(StandardCharsets.UTF_8))) {
+			parser.setLazy(true);
+			lazy = parser.parse();
+			// the deferred values are parsed with the options they were found with
+			parser.setFieldFilter(JSONFieldFilter.deny("tags", "n"));
+			parser.setPackedArrays(false);
+			parser.setKeyCache(new JSONKeyCache());
+		}
+
+		assertEquals(parse(doc, false).toString(), lazy.toString());
+	}
+
+	@Test
+	void concurrentFirstAccess() throws Exception {
+		final String doc = document();
+		final String expected = parse(doc, false).toString();
+		final int threads = 8;
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < 50; ++round) {
+				final JSONArray root = (JSONArray) parse(doc, true);
+				final CyclicBarrier start = new CyclicBarrier(threads);
+				final List<Future<String>> results = new ArrayList<>();
+				for (int t = 0; t < threads; ++t) {
+					final int first = t;
+					results.add(pool.submit(() -> {
+						start.await();
+						// every thread loads the same deferred nodes, in a different order
+						for (int i = 0; i < root.size(); ++i) {
+							JSONObject ob = (JSONObject) root.get((i + first * 25) % root.size());
+							ob.getJSONValue("child").toString();
+						}
+
+						return root.toString();
+					}));
+				}
+
+				for (Future<String> result : results) {
+					assertEquals(expected, result.get(30, TimeUnit.SECONDS));
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
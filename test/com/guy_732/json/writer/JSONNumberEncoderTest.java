@@ -0,0 +1,141 @@
+package com.guy_732.json.writer;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JSONNumberEncoder} against the definitions: the doubles are read back exactly, with the
+ * fewest digits possible (2 at least, checked with {@link BigDecimal}) and the closest decimal
+ * among those, the longs are written as {@link Long#toString(long)} does
+ *
+ * @author Guy_732
+ */
+class JSONNumberEncoderTest {
+	private final Random random = new Random(25);
+
+	private static String encode(double value) {
+		final byte[] b = new byte[JSONNumberEncoder.maxLength];
+		return new String(b, 0, JSONNumberEncoder.encodeDouble(value, b, 0), StandardCharsets.US_ASCII);
+	}
+
+	private static String encode(long value) {
+		final byte[] b = new byte[JSONNumberEncoder.maxLength];
+		return new String(b, 0, JSONNumberEncoder.encodeLong(value, b, 0), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * @return Number of significant digits of an encoded double
+	 */
+	private static int digits(String s) {
+		final int e = s.indexOf('E');
+		final String m = (e >= 0 ? s.substring(0, e) : s).replace("-", "").replace(".", "")
+				.replaceFirst("^0+", "").replaceFirst("0+$", "");
+		return Math.max(1, m.length());
+	}
+
+	/**
+	 * @return The value rounded to the given number of digits
+	 */
+	private static BigDecimal round(double value, int digits) {
+		return new BigDecimal(value).round(new MathContext(digits, RoundingMode.HALF_EVEN));
+	}
+
+	private List<Double> values() {
+		final List<Double> values = new ArrayList<>();
+		final double[] special = {
+				0.0, -0.0, Double.MIN_VALUE, -Double.MIN_VALUE, 2 * Double.MIN_VALUE, 3 * Double.MIN_VALUE,
+				Double.MAX_VALUE, Double.MIN_NORMAL, 1, -1, 0.1, 0.2, 0.3, 1e7, 9999999.0, 1e-3, 0.00099, 1e23,
+				2e-3, 1e22, 123456789012345678.0, 4.35, 100, 1e15, 1e16, 1e17, 2.5, Math.PI, Math.E,
+				(double) (1L << 53), (double) ((1L << 53) + 2), 1e21, 1e-7, 1.2345e-5, 2.2250738585072014E-308
+		};
+		for (double d : special)
+			values.add(d);
+
+		for (int e = -1074; e <= 1023; ++e) {
+			values.add(Math.scalb(1.0, e));
+			values.add(Math.nextDown(Math.scalb(1.0, e)));
+			values.add(Math.nextUp(Math.scalb(1.0, e)));
+		}
+
+		for (int e = -325; e <= 308; ++e)
+			values.add(Double.parseDouble("1e" + e));
+
+		for (int i = 0; i < 100_000; ++i) {
+			final double d = Double.longBitsToDouble(random.nextLong());
+			if (Double.isFinite(d))
+				values.add(d);
+			values.add(random.nextInt(1000000) / 1000.0);
+			values.add(random.nextDouble());
+		}
+
+		return values;
+	}
+
+	@Test
+	void doublesRoundTrip() {
+		for (double value : values()) {
+			final String s = encode(value);
+			assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(Double.parseDouble(s)), s);
+			// never read back as an integer
+			assertTrue(s.contains("."), s);
+			assertTrue(s.length() <= JSONNumberEncoder.maxLength, s);
+		}
+	}
+
+	@Test
+	void doublesShortestAndClosest() {
+		for (double value : values()) {
+			if (value == 0)
+				continue;
+
+			final String s = encode(value);
+			final int n = digits(s);
+			if (n > 2) {
+				// no decimal with fewer digits parses back to the same double (2 digits are kept when 1
+				// would be enough, like Double.toString(double) does: 4.9E-324 and not 5.0E-324)
+				assertNotEquals(value, Double.parseDouble(round(value, n - 1).toString()), s);
+			}
+
+			final BigDecimal closest = round(value, n);
+			if (Double.parseDouble(closest.toString()) == value)
+				assertEquals(0, new BigDecimal(s).compareTo(closest), s);
+		}
+	}
+
+	@Test
+	void layout() {
+		assertEquals("100.0", encode(100.0));
+		assertEquals("0.001", encode(0.001));
+		assertEquals("1.0E-4", encode(0.0001));
+		assertEquals("9999999.0", encode(9999999.0));
+		assertEquals("1.0E7", encode(1e7));
+		assertEquals("4.9E-324", encode(Double.MIN_VALUE));
+		assertEquals("1.7976931348623157E308", encode(Double.MAX_VALUE));
+		assertEquals("-0.0", encode(-0.0));
+		assertEquals("1.0E23", encode(1e23));
+	}
+
+	@Test
+	void longs() {
+		final long[] special = {
+				0, 1, -1, 9, 10, 99, 100, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE,
+				1L << 31, (1L << 31) - 1, -(1L << 31) - 1, 999999999999999999L, 1000000000000000000L
+		};
+		for (long l : special)
+			assertEquals(Long.toString(l), encode(l));
+
+		for (int i = 0; i < 1_000_000; ++i) {
+			final long l = random.nextLong() >> random.nextInt(64);
+			assertEquals(Long.toString(l), encode(l));
+		}
+	}
+}
@@ -0,0 +1,448 @@
+package com.guy_732.json.writer;
+
+import com.guy_732.json.*;
+import org.junit.jupiter.api.Test;
+
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The output paths of {@link JSONWriter} (String, UTF-8 bytes, Writer, OutputStream written in
+ * parallel, channels) against each other, the numbers read back, and the policies of the
+ * non-finite numbers
+ *
+ * @author Guy_732
+ */
+class JSONWriterTest {
+	@TempDir
+	Path dir;
+
+	@Test
+	void sameOutputOnEveryPath() throws IOException {
+		final Random random = new Random(25);
+		for (int round = 0; round < 50; ++round) {
+			final double[] doubles = new double[2000];
+			final long[] longs = new long[doubles.length];
+			final JSONArray mixed = new JSONArray();
+			for (int i = 0; i < doubles.length; ++i) {
+				doubles[i] = random.nextBoolean() ? Double.longBitsToDouble(random.nextLong()) : random.nextInt(100000) / 100.0;
+				if (!Double.isFinite(doubles[i]))
+					doubles[i] = 0.5;
+				longs[i] = random.nextLong() >> random.nextInt(64);
+				mixed.add(new JSONNumber(doubles[i]));
+				mixed.add(new JSONInteger(longs[i]));
+			}
+
+			final String s = mixed.toString();
+			assertEquals(s, new String(JSONWriter.toUTF8(mixed), StandardCharsets.UTF_8));
+
+			final StringWriter chars = new StringWriter();
+			try (JSONWriter writer = new JSONWriter(chars)) {
+				writer.writeJSONValue(mixed);
+			}
+			assertEquals(s, chars.toString());
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (JSONWriter writer = new JSONWriter(bytes)) {
+				writer.setParallelPool(ForkJoinPool.commonPool());
+				writer.setParallelThreshold(100);
+				writer.writeJSONValue(mixed);
+			}
+			assertEquals(s, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+
+			final JSONArray back = (JSONArray) JSONValue.parseString(s);
+			for (int i = 0; i < doubles.length; ++i) {
+				final JSONValue d = back.get(2 * i);
+				final JSONValue l = back.get(2 * i + 1);
+				assertEquals(JSONType.JSONNumber, d.type(), d::toString);
+				assertEquals(Double.doubleToLongBits(doubles[i]), Double.doubleToLongBits(((JSONNumber) d).getValue()));
+				assertEquals(JSONType.JSONInteger, l.type(), l::toString);
+				assertEquals(longs[i], ((JSONInteger) l).getValue());
+			}
+		}
+	}
+
+	@Test
+	void doublesStayDoubles() {
+		assertEquals("1.0E10", new JSONNumber(1e10).toString());
+		assertEquals("0.1", new JSONNumber(0.1).toString());
+		assertEquals("1.0E23", new JSONNumber(1e23).toString());
+		assertEquals("-0.0", new JSONNumber(-0.0).toString());
+		assertEquals("100.0", new JSONNumber(100).toString());
+	}
+
+	@Test
+	void nonFinitePolicies() throws IOException {
+		final JSONArray nonFinite = new JSONArray();
+		nonFinite.add(new JSONNumber(Double.NaN));
+		nonFinite.add(new JSONNumber(Double.POSITIVE_INFINITY));
+		nonFinite.add(new JSONNumber(Double.NEGATIVE_INFINITY));
+		final JSONNonFiniteNumber e = assertThrows(JSONNonFiniteNumber.class, () -> JSONWriter.toUTF8(nonFinite));
+		assertEquals("Cannot write `NaN' as a JSON number", e.getMessage());
+		assertThrows(JSONNonFiniteNumber.class, () -> JSONWriter.appendTo(new StringBuilder(), nonFinite));
+		assertThrows(JSONNonFiniteNumber.class, () -> new JSONWriter(new StringWriter()).writeJSONValue(nonFinite));
+
+		// never thrown by toString(), used by loggers and debuggers
+		assertEquals("[\"NaN\",\"Infinity\",\"-Infinity\"]", nonFinite.toString());
+		assertEquals("x[\"NaN\",\"Infinity\",\"-Infinity\"]", nonFinite.appendTo(new StringBuilder("x")).toString());
+		assertEquals("\"NaN\"", new JSONNumber(Double.NaN).toString());
+		assertThrows(JSONNonFiniteNumber.class, () -> JSONWriter.toUTF8(nonFinite)); // the reused writers still reject them
+
+		final String[] expected = {"[null,null,null]null", "[\"NaN\",\"Infinity\",\"-Infinity\"]\"NaN\""};
+		final JSONNonFinitePolicy[] policies = {JSONNonFinitePolicy.WriteNull, JSONNonFinitePolicy.WriteString};
+		for (int i = 0; i < policies.length; ++i) {
+			final StringWriter out = new StringWriter();
+			try (JSONWriter writer = new JSONWriter(out)) {
+				writer.setNonFinitePolicy(policies[i]);
+				writer.writeJSONValue(nonFinite);
+				writer.writeNumber(Double.NaN);
+			}
+
+			assertEquals(expected[i], out.toString());
+		}
+	}
+
+	private static JSONArray large() {
+		final JSONArray arr = new JSONArray();
+		for (int i = 0; i < 20000; ++i)
+			arr.add(new JSONString("value \u00e9\ud83d\ude00 " + i));
+		return arr;
+	}
+
+	@Test
+	void channelWritesBeforeFlush() throws IOException {
+		final JSONArray arr = large();
+		final byte[] expected = JSONWriter.toUTF8(arr);
+		final ByteArrayOutputStream received = new ByteArrayOutputStream();
+		final WritableByteChannel channel = new WritableByteChannel() {
+			@Override
+			public int write(ByteBuffer src) {
+				final int n = Math.min(src.remaining(), 5000); // partial writes
+				final byte[] b = new byte[n];
+				src.get(b);
+				received.write(b, 0, n);
+				return n;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+
+		try (JSONWriter writer = new JSONWriter(channel)) {
+			writer.setFlushPolicy(JSONFlushPolicy.Explicit);
+			writer.writeJSONValue(arr);
+			// only the last few blocks are still buffered
+			assertTrue(received.size() >= expected.length - (80 << 10), () -> received.size() + " / " + expected.length);
+		}
+
+		assertArrayEquals(expected, received.toByteArray());
+	}
+
+	@Test
+	void gatheringChannel() throws IOException {
+		final JSONArray arr = large();
+		final Path file = dir.resolve("out.json");
+		try (JSONWriter writer = new JSONWriter(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE))) {
+			writer.setFlushPolicy(JSONFlushPolicy.Explicit);
+			writer.writeJSONValue(arr);
+			writer.writeJSONValue(arr);
+		}
+
+		final String s = arr.toString();
+		assertEquals(s + s, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void streamingNesting() throws IOException {
+		final StringWriter out = new StringWriter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.writeStartObject();
+			writer.writeFieldName("a");
+			writer.writeStartArray();
+			writer.writeNumber(1);
+			writer.writeNumber(2.5);
+			writer.writeStartObject();
+			writer.writeEndObject();
+			writer.writeStartArray();
+			writer.writeEndArray();
+			writer.writeJSONValue(JSONValue.parseString("{\"x\":[true]}"));
+			writer.writeEndArray();
+			writer.writeFieldName("b\"");
+			writer.writeString(null);
+			writer.writeFieldName("c");
+			writer.writeBoolean(false);
+			writer.writeFieldName("d");
+			writer.writeNull();
+			writer.writeEndObject();
+			writer.writeString("next");
+		}
+
+		assertEquals("{\"a\":[1,2.5,{},[],{\"x\":[true]}],\"b\\\"\":null,\"c\":false,\"d\":null}\"next\"", out.toString());
+	}
+
+	@Test
+	void streamingDeepNesting() throws IOException {
+		final int depth = 1000; // beyond the initial size of the state stack
+		final StringWriter out = new StringWriter();
+		final StringBuilder expected = new StringBuilder();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			for (int i = 0; i < depth; ++i) {
+				if (i % 2 == 0) {
+					writer.writeStartArray();
+					expected.append('[');
+				} else {
+					writer.writeStartObject();
+					writer.writeFieldName("k");
+					expected.append("{\"k\":");
+				}
+			}
+
+			writer.writeNumber(0);
+			expected.append('0');
+			for (int i = depth - 1; i >= 0; --i) {
+				if (i % 2 == 0) {
+					writer.writeEndArray();
+					expected.append(']');
+				} else {
+					writer.writeEndObject();
+					expected.append('}');
+				}
+			}
+		}
+
+		assertEquals(expected.toString(), out.toString());
+		assertEquals(expected.toString(), JSONValue.parseString(out.toString()).toString());
+	}
+
+	@Test
+	void streamingInvalidStates() throws IOException {
+		final StringWriter out = new StringWriter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			JSONInvalidState e = assertThrows(JSONInvalidState.class, () -> writer.writeFieldName("a"));
+			assertEquals("Field names can only be written inside a JSONObject", e.getMessage());
+			e = assertThrows(JSONInvalidState.class, writer::writeEndObject);
+			assertEquals("No JSONObject to end", e.getMessage());
+			e = assertThrows(JSONInvalidState.class, writer::writeEndArray);
+			assertEquals("No JSONArray to end", e.getMessage());
+
+			writer.writeStartArray();
+			assertThrows(JSONInvalidState.class, () -> writer.writeFieldName("a"));
+			assertThrows(JSONInvalidState.class, writer::writeEndObject);
+			writer.writeStartObject();
+			e = assertThrows(JSONInvalidState.class, () -> writer.writeNumber(1));
+			assertEquals("A field name must be written before a value inside a JSONObject", e.getMessage());
+			assertThrows(JSONInvalidState.class, writer::writeEndArray);
+			writer.writeFieldName("a");
+			e = assertThrows(JSONInvalidState.class, () -> writer.writeFieldName("b"));
+			assertEquals("Two field names without value in between", e.getMessage());
+			e = assertThrows(JSONInvalidState.class, writer::writeEndObject);
+			assertEquals("Cannot end a JSONObject after a field name without value", e.getMessage());
+			writer.writeNumber(1);
+			e = assertThrows(JSONInvalidState.class, () -> writer.writeAll(Collections.singletonList(JSONNull.Null), null));
+			assertEquals("writeAll can only write root values", e.getMessage());
+			writer.writeEndObject();
+			writer.writeEndArray();
+			assertThrows(JSONInvalidState.class, writer::writeEndArray);
+		}
+
+		// the rejected calls did not write anything
+		assertEquals("[{\"a\":1}]", out.toString());
+	}
+
+	/**
+	 * Count the flushes reaching the underlying writer
+	 */
+	private static final class FlushCounter extends StringWriter {
+		int flushes = 0;
+
+		@Override
+		public void flush() {
+			++flushes;
+			super.flush();
+		}
+	}
+
+	private static List<JSONValue> strings(int count) {
+		final List<JSONValue> values = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+			values.add(new JSONString("abcdef")); // 8 characters once quoted
+		return values;
+	}
+
+	@Test
+	void explicitFlushByDefault() throws IOException {
+		final FlushCounter out = new FlushCounter();
+		final JSONWriter writer = new JSONWriter(out);
+		assertSame(JSONFlushPolicy.Explicit, writer.getFlushPolicy());
+		for (JSONValue v : strings(100))
+			writer.writeJSONValue(v);
+		writer.writeAll(strings(100), "\n");
+		assertEquals(0, out.flushes);
+		assertEquals("", out.toString()); // still in the buffer of the writer
+
+		writer.flush();
+		assertEquals(1, out.flushes);
+		assertEquals(100 * 8 + 100 * 9, out.toString().length());
+		writer.close();
+	}
+
+	@Test
+	void flushPolicies() throws IOException {
+		FlushCounter out = new FlushCounter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.setFlushPolicy(JSONFlushPolicy.EachValue);
+			for (JSONValue v : strings(3))
+				writer.writeJSONValue(v);
+			assertEquals(3, out.flushes);
+			assertEquals("\"abcdef\"\"abcdef\"\"abcdef\"", out.toString());
+
+			writer.writeStartArray();
+			writer.writeNumber(1);
+			writer.writeStartObject();
+			writer.writeEndObject();
+			assertEquals(3, out.flushes); // only complete root values are flushed
+			writer.writeEndArray();
+			assertEquals(4, out.flushes);
+
+			writer.writeAll(strings(100), "\n"); // a single flush for the batch
+			assertEquals(5, out.flushes);
+		}
+
+		out = new FlushCounter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.setFlushPolicy(JSONFlushPolicy.everyNValues(10));
+			for (JSONValue v : strings(25))
+				writer.writeJSONValue(v);
+			assertEquals(2, out.flushes);
+			assertEquals(20 * 8, out.toString().length());
+			writer.writeAll(strings(15), null);
+			assertEquals(4, out.flushes);
+		}
+
+		out = new FlushCounter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.setFlushPolicy(JSONFlushPolicy.everyNChars(20));
+			for (JSONValue v : strings(10))
+				writer.writeJSONValue(v); // flushed once 24 characters are written
+			assertEquals(3, out.flushes);
+			writer.flush();
+			writer.writeAll(strings(10), "\n"); // the separators are counted
+			assertEquals(4 + 3, out.flushes);
+			assertEquals(10 * 8 + 9 * 9, out.toString().length());
+
+			writer.setFlushPolicy(JSONFlushPolicy.Explicit);
+			writer.writeAll(strings(10), "\n");
+			assertEquals(7, out.flushes);
+		}
+
+		assertSame(JSONFlushPolicy.EachValue, JSONFlushPolicy.everyNValues(1));
+		assertThrows(IllegalArgumentException.class, () -> JSONFlushPolicy.everyNValues(0));
+		assertThrows(IllegalArgumentException.class, () -> JSONFlushPolicy.everyNChars(-1));
+		assertThrows(NullPointerException.class, () -> new JSONWriter(new StringWriter()).setFlushPolicy(null));
+	}
+
+	@Test
+	void recursiveValues() throws IOException {
+		final JSONObject ob = new JSONObject();
+		final JSONArray arr = new JSONArray();
+		arr.add(new JSONInteger(1));
+		arr.add(ob);
+		ob.addValue("arr", arr);
+		JSONRecursiveObject e = assertThrows(JSONRecursiveObject.class, () -> JSONWriter.toUTF8(ob));
+		assertEquals("A JSONObject contains itself", e.getMessage());
+		e = assertThrows(JSONRecursiveObject.class, () -> JSONWriter.toUTF8(arr));
+		assertEquals("A JSONArray contains itself", e.getMessage());
+
+		final JSONArray self = new JSONArray();
+		self.add(self);
+		assertThrows(JSONRecursiveObject.class, () -> JSONWriter.toUTF8(self));
+
+		final JSONArray wide = new JSONArray();
+		for (int i = 0; i < 1000; ++i)
+			wide.add(new JSONInteger(i));
+		wide.add(wide);
+		final StringWriter out = new StringWriter();
+		try (JSONWriter writer = new JSONWriter(out)) {
+			writer.setParallelPool(ForkJoinPool.commonPool());
+			writer.setParallelThreshold(100); // detected by the writers of the chunks too
+			assertThrows(JSONRecursiveObject.class, () -> writer.writeJSONValue(wide));
+
+			// the values of the interrupted write are forgotten
+			writer.setParallelPool(null);
+			writer.writeJSONValue(arr.get(0));
+			writer.writeStartArray();
+			writer.writeJSONValue(new JSONArray());
+			writer.writeEndArray();
+		}
+
+		assertTrue(out.toString().endsWith("1[[]]"), out::toString);
+	}
+
+	@Test
+	void sharedValues() throws IOException {
+		final JSONArray shared = new JSONArray();
+		shared.add(new JSONString("s"));
+		final JSONObject inner = new JSONObject();
+		inner.addValue("a", shared);
+		inner.addValue("b", shared);
+		final JSONArray root = new JSONArray();
+		for (int i = 0; i < 200; ++i) {
+			root.add(inner);
+			root.add(shared);
+		}
+
+		final StringBuilder expected = new StringBuilder("[");
+		for (int i = 0; i < 200; ++i)
+			expected.append(i == 0 ? "" : ",").append("{\"a\":[\"s\"],\"b\":[\"s\"]},[\"s\"]");
+		expected.append(']');
+		assertEquals(expected.toString(), root.toString());
+
+		for (final boolean trusted : new boolean[]{false, true}) {
+			final StringWriter out = new StringWriter();
+			try (JSONWriter writer = new JSONWriter(out)) {
+				writer.setTrustedTrees(trusted);
+				writer.setParallelPool(ForkJoinPool.commonPool());
+				writer.setParallelThreshold(50);
+				writer.writeJSONValue(root);
+			}
+
+			assertEquals(expected.toString(), out.toString());
+		}
+	}
+
+	@Test
+	void trustedTreesSkipTheCheck() throws IOException {
+		final JSONArray self = new JSONArray();
+		self.add(self);
+		try (JSONWriter writer = new JSONWriter(new StringWriter())) {
+			writer.setTrustedTrees(true);
+			// documented: a value containing itself is not detected anymore
+			assertThrows(StackOverflowError.class, () -> writer.writeJSONValue(self));
+			writer.setTrustedTrees(false);
+			assertThrows(JSONRecursiveObject.class, () -> writer.writeJSONValue(self));
+		}
+	}
+}